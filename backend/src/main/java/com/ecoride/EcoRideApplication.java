@@ -2,8 +2,10 @@ package com.ecoride;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class EcoRideApplication {
     public static void main(String[] args) {
         SpringApplication.run(EcoRideApplication.class, args);
@@ -0,0 +1,40 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.admin.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/admin/export")
+@RequiredArgsConstructor
+public class AdminExportController {
+
+    private final ExportService exportService;
+
+    /**
+     * Streams carbon-transactions or rides as csv or ndjson, ordered by (created_at, id).
+     * To resume, pass the last received row's created_at as from and its id as afterId.
+     */
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String dataset,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(required = false) String from,
+                                                        @RequestParam(required = false) String afterId,
+                                                        @RequestParam(required = false) String to) {
+        ExportService.Dataset ds = exportService.parseDataset(dataset);
+        ExportService.Format fmt = exportService.parseFormat(format);
+        StreamingResponseBody body = exportService.export(ds, fmt, from, afterId, to);
+        return ResponseEntity.ok()
+                .contentType(fmt == ExportService.Format.CSV
+                        ? new MediaType("text", "csv")
+                        : new MediaType("application", "x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(ds.fileName(fmt)).build().toString())
+                .body(body);
+    }
+}
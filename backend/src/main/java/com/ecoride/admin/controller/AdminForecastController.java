@@ -0,0 +1,23 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.prediction.service.DemandForecastEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/forecast")
+@RequiredArgsConstructor
+public class AdminForecastController {
+
+    private final DemandForecastEngine forecastEngine;
+
+    /** Runs the demand forecast now instead of waiting for the nightly schedule. */
+    @PostMapping("/run")
+    public ApiResponse<DemandForecastEngine.RunSummary> run() {
+        DemandForecastEngine.RunSummary summary = forecastEngine.run();
+        if (summary == null) throw ApiException.conflict("A forecast run is already in progress");
+        return ApiResponse.ok("Forecast published", summary);
+    }
+}
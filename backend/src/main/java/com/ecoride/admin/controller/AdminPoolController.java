@@ -0,0 +1,23 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.subscription.service.PoolRideMaterializer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/pools")
+@RequiredArgsConstructor
+public class AdminPoolController {
+
+    private final PoolRideMaterializer materializer;
+
+    /** Creates any missing upcoming rides for all subscription pools now. */
+    @PostMapping("/materialize")
+    public ApiResponse<PoolRideMaterializer.RunSummary> materialize() {
+        PoolRideMaterializer.RunSummary summary = materializer.run();
+        if (summary == null) throw ApiException.conflict("Materialization is already in progress");
+        return ApiResponse.ok("Pool rides materialized", summary);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.subscription.service.PoolProposalJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/pool-proposals")
+@RequiredArgsConstructor
+public class AdminPoolProposalController {
+
+    private final PoolProposalJob poolProposalJob;
+
+    /** Re-clusters commuters now instead of waiting for the nightly schedule. */
+    @PostMapping("/run")
+    public ApiResponse<PoolProposalJob.RunSummary> run() {
+        PoolProposalJob.RunSummary summary = poolProposalJob.run();
+        if (summary == null) throw ApiException.conflict("A clustering run is already in progress");
+        return ApiResponse.ok("Pool proposals published", summary);
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.trust.service.TrustRankEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/trust-rank")
+@RequiredArgsConstructor
+public class AdminTrustRankController {
+
+    private final TrustRankEngine trustRankEngine;
+
+    /** Recomputes trust ranks now instead of waiting for the nightly schedule. */
+    @PostMapping("/run")
+    public ApiResponse<TrustRankEngine.RunSummary> run() {
+        TrustRankEngine.RunSummary summary = trustRankEngine.run();
+        if (summary == null) throw ApiException.conflict("A trust rank run is already in progress");
+        return ApiResponse.ok("Trust ranks recomputed", summary);
+    }
+}
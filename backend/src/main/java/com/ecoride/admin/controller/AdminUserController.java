@@ -0,0 +1,42 @@
+package com.ecoride.admin.controller;
+
+import com.ecoride.admin.service.AdminUserService;
+import com.ecoride.common.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/admin/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    private final AdminUserService adminUserService;
+
+    /** Blocks sign-in and revokes every token issued to the user so far. */
+    @PostMapping("/{id}/disable")
+    public ApiResponse<Void> disable(@PathVariable UUID id) {
+        adminUserService.disable(id);
+        return ApiResponse.ok("User disabled");
+    }
+
+    @PostMapping("/{id}/enable")
+    public ApiResponse<Void> enable(@PathVariable UUID id) {
+        adminUserService.enable(id);
+        return ApiResponse.ok("User enabled");
+    }
+
+    /** Marks the user's identity as checked; verified users seed the trust rank. */
+    @PostMapping("/{id}/verify-identity")
+    public ApiResponse<Void> verifyIdentity(@PathVariable UUID id) {
+        adminUserService.setIdentityVerified(id, true);
+        return ApiResponse.ok("User identity verified");
+    }
+
+    @PostMapping("/{id}/unverify-identity")
+    public ApiResponse<Void> unverifyIdentity(@PathVariable UUID id) {
+        adminUserService.setIdentityVerified(id, false);
+        return ApiResponse.ok("User identity verification removed");
+    }
+}
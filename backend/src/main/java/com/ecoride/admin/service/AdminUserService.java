@@ -0,0 +1,54 @@
+package com.ecoride.admin.service;
+
+import com.ecoride.auth.security.UserStatusCache;
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.transaction.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Account status changes made by admins. Tokens are stateless, so disabling an account also moves its
+ * tokens_valid_after forward: every token issued so far stops working on this node at once
+ * and on other nodes within the status cache TTL.
+ */
+@Service
+@RequiredArgsConstructor
+public class AdminUserService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserStatusCache userStatusCache;
+
+    @Transactional
+    public void disable(UUID userId) {
+        // Token issue times are whole seconds; round up so a token issued this second is covered too
+        Instant validAfter = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        int updated = jdbcTemplate.update(
+                "UPDATE users SET disabled = TRUE, tokens_valid_after = ? WHERE id = ?",
+                Timestamp.from(validAfter), userId.toString());
+        if (updated == 0) throw ApiException.notFound("User not found");
+        AfterCommit.run(() -> userStatusCache.evict(userId));
+    }
+
+    /** Sets the admin-checked identity flag that makes the user a trust rank seed. */
+    @Transactional
+    public void setIdentityVerified(UUID userId, boolean verified) {
+        int updated = jdbcTemplate.update("UPDATE users SET identity_verified = ? WHERE id = ?",
+                verified, userId.toString());
+        if (updated == 0) throw ApiException.notFound("User not found");
+    }
+
+    /** Re-enables sign-in. Tokens revoked by the disable stay revoked. */
+    @Transactional
+    public void enable(UUID userId) {
+        int updated = jdbcTemplate.update("UPDATE users SET disabled = FALSE WHERE id = ?", userId.toString());
+        if (updated == 0) throw ApiException.notFound("User not found");
+        AfterCommit.run(() -> userStatusCache.evict(userId));
+    }
+}
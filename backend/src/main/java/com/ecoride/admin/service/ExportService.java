@@ -0,0 +1,276 @@
+package com.ecoride.admin.service;
+
+import com.ecoride.common.exception.ApiException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Full-table audit exports streamed straight from a forward-only MySQL cursor to the response.
+ * Rows are written one at a time in (created_at, id) order, so memory stays flat regardless of
+ * table size and an interrupted export can resume after the last row it received.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    public enum Dataset {
+        CARBON_TRANSACTIONS("carbon_transactions",
+                "id, user_id, ride_id, carbon_saved_grams, credits_earned, created_at"),
+        RIDES("rides",
+                "id, driver_id, pickup_zone, destination, departure_time, available_seats, status, "
+                        + "is_subscription, price_per_seat, created_at");
+
+        private final String table;
+        private final String columns;
+
+        Dataset(String table, String columns) {
+            this.table = table;
+            this.columns = columns;
+        }
+
+        String[] columnNames() {
+            return columns.split(",\\s*");
+        }
+
+        public String fileName(Format format) {
+            return table + (format == Format.CSV ? ".csv" : ".ndjson");
+        }
+    }
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public Dataset parseDataset(String name) {
+        try {
+            return Dataset.valueOf(name.replace('-', '_').toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.notFound("Unknown export: " + name);
+        }
+    }
+
+    public Format parseFormat(String name) {
+        try {
+            return Format.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("format must be csv or ndjson");
+        }
+    }
+
+    /**
+     * Rows with created_at in [from, to), or strictly after (from, afterId) when afterId is given.
+     * Arguments are validated here, before the response is committed.
+     */
+    public StreamingResponseBody export(Dataset dataset, Format format, String from, String afterId, String to) {
+        Instant start = from == null || from.isBlank() ? Instant.EPOCH : parseInstant(from);
+        Instant end = to == null || to.isBlank() ? null : parseInstant(to);
+        String after = null;
+        if (afterId != null && !afterId.isBlank()) {
+            try {
+                after = UUID.fromString(afterId.trim()).toString();
+            } catch (IllegalArgumentException e) {
+                throw ApiException.badRequest("afterId must be a UUID");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(dataset.columns)
+                .append(" FROM ").append(dataset.table).append(" WHERE ");
+        List<Object> args = new ArrayList<>();
+        if (after == null) {
+            sql.append("created_at >= ?");
+            args.add(Timestamp.from(start));
+        } else {
+            sql.append("(created_at > ? OR (created_at = ? AND id > ?))");
+            args.add(Timestamp.from(start));
+            args.add(Timestamp.from(start));
+            args.add(after);
+        }
+        if (end != null) {
+            sql.append(" AND created_at < ?");
+            args.add(Timestamp.from(end));
+        }
+        sql.append(" ORDER BY created_at, id");
+
+        return out -> stream(dataset, format, sql.toString(), args.toArray(), out);
+    }
+
+    private void stream(Dataset dataset, Format format, String sql, Object[] args, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        RowWriter writer = format == Format.CSV
+                ? new CsvWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_BYTES))
+                : new NdjsonWriter(objectMapper.getFactory().createGenerator(new BufferedOutputStream(out, BUFFER_BYTES)));
+        long[] rows = {0};
+        try {
+            writer.header(dataset.columnNames());
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+                for (int i = 0; i < args.length; i++) ps.setObject(i + 1, args[i]);
+                return ps;
+            }, rs -> {
+                try {
+                    writer.row(rs);
+                    rows[0]++;
+                } catch (IOException e) {
+                    // Client went away. Closing a streaming result set would read and discard every
+                    // remaining row, so kill the query on the server first.
+                    try {
+                        rs.getStatement().cancel();
+                    } catch (SQLException cancelFailed) {
+                        e.addSuppressed(cancelFailed);
+                    }
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.close();
+        } catch (UncheckedIOException e) {
+            log.info("Export of {} aborted after {} rows: {}", dataset, rows[0], e.getCause().getMessage());
+            return;
+        }
+        log.info("Exported {} {} rows as {} in {} ms", rows[0], dataset, format, System.currentTimeMillis() - start);
+    }
+
+    private interface RowWriter {
+        void header(String[] names) throws IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void close() throws IOException;
+    }
+
+    /** RFC 4180 CSV with a header row; timestamps as ISO-8601 UTC instants. */
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+        private int[] types;
+
+        CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void header(String[] names) throws IOException {
+            out.write(String.join(",", names));
+            out.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            if (types == null) types = columnTypes(rs.getMetaData());
+            for (int i = 1; i <= types.length; i++) {
+                if (i > 1) out.write(',');
+                Object value = value(rs, i, types[i - 1]);
+                if (value == null) continue;
+                String s = value.toString();
+                if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                    out.write('"');
+                    out.write(s.replace("\"", "\"\""));
+                    out.write('"');
+                } else {
+                    out.write(s);
+                }
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    /** One JSON object per line, keyed by column name. */
+    private static final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator gen;
+        private String[] names;
+        private int[] types;
+        private boolean any;
+
+        NdjsonWriter(JsonGenerator gen) {
+            this.gen = gen;
+            gen.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        }
+
+        @Override
+        public void header(String[] names) {
+            this.names = names;
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            if (types == null) types = columnTypes(rs.getMetaData());
+            any = true;
+            gen.writeStartObject();
+            for (int i = 1; i <= types.length; i++) {
+                gen.writeFieldName(names[i - 1]);
+                Object value = value(rs, i, types[i - 1]);
+                if (value == null) gen.writeNull();
+                else if (value instanceof Boolean b) gen.writeBoolean(b);
+                else if (value instanceof Long l) gen.writeNumber(l);
+                else if (value instanceof BigDecimal d) gen.writeNumber(d);
+                else gen.writeString(value.toString());
+            }
+            gen.writeEndObject();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (any) gen.writeRaw('\n');
+            gen.close();
+        }
+    }
+
+    private static int[] columnTypes(ResultSetMetaData meta) throws SQLException {
+        int[] types = new int[meta.getColumnCount()];
+        for (int i = 1; i <= types.length; i++) types[i - 1] = meta.getColumnType(i);
+        return types;
+    }
+
+    /** Normalizes JDBC values to String, Long, BigDecimal, Boolean or an ISO instant string. */
+    private static Object value(ResultSet rs, int column, int type) throws SQLException {
+        Object value = switch (type) {
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> {
+                Timestamp ts = rs.getTimestamp(column);
+                yield ts == null ? null : ts.toInstant().toString();
+            }
+            case Types.BIT, Types.BOOLEAN -> rs.getBoolean(column);
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> rs.getLong(column);
+            case Types.DECIMAL, Types.NUMERIC -> rs.getBigDecimal(column);
+            default -> rs.getString(column);
+        };
+        return rs.wasNull() ? null : value;
+    }
+
+    /** ISO-8601 instant, or a date meaning its start in UTC. */
+    private static Instant parseInstant(String value) {
+        try {
+            return value.length() == 10
+                    ? LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Invalid date: " + value);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ecoride.auth.security;
 
+import com.ecoride.user.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,19 +9,30 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
 
+/**
+ * Authenticates requests from the bearer token alone. Tokens carry the user id and roles,
+ * so the only per-request lookup is the cached account status check. Tokens issued before
+ * ids and roles were embedded also load the user by email until they expire.
+ */
 @Component
 @RequiredArgsConstructor
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsServiceImpl userDetailsService;
+    private final UserStatusCache userStatusCache;
+    private final UserRepository userRepository;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -33,23 +46,48 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             return;
         }
 
-        String token = authHeader.substring(7);
-
-        if (!jwtUtil.isValid(token)) {
+        Claims claims = jwtUtil.verify(authHeader.substring(7));
+        if (claims == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String email = jwtUtil.extractEmail(token);
-
         if (SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
-            var auth = new UsernamePasswordAuthenticationToken(
-                    userDetails, null, userDetails.getAuthorities());
-            auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            SecurityContextHolder.getContext().setAuthentication(auth);
+            UserDetails userDetails = resolve(claims);
+            if (userDetails != null) {
+                var auth = new UsernamePasswordAuthenticationToken(
+                        userDetails, null, userDetails.getAuthorities());
+                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    /** The principal for a verified token, or null if its account is disabled or revoked. */
+    private UserDetails resolve(Claims claims) {
+        String userId = claims.get(JwtUtil.CLAIM_USER_ID, String.class);
+        List<?> roles = claims.get(JwtUtil.CLAIM_ROLES, List.class);
+        Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : Instant.EPOCH;
+        String[] granted;
+
+        if (userId == null || roles == null) {
+            // Legacy token: resolve the id by email; revocation applies to these tokens too
+            com.ecoride.user.entity.User user = userRepository.findByEmail(claims.getSubject()).orElse(null);
+            if (user == null) return null;
+            userId = user.getId().toString();
+            granted = userDetailsService.rolesFor(user.getEmail());
+        } else {
+            granted = roles.stream().map(String::valueOf).toArray(String[]::new);
+        }
+
+        if (!userStatusCache.isActive(UUID.fromString(userId), issuedAt)) {
+            return null;
+        }
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .roles(granted)
+                .build();
+    }
 }
@@ -2,6 +2,7 @@ package com.ecoride.auth.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,49 +10,89 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
-import java.util.Date;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLES = "roles";
+
+    private record Verified(Claims claims, long expiresAtMs) {
+    }
+
     private final SecretKey key;
     private final long expiryMs;
+    /** Immutable and thread-safe; built once instead of per token. */
+    private final JwtParser parser;
+    /** SHA-256 of the token → verified claims, so a session's repeat requests skip the HMAC check. */
+    private final Map<String, Verified> verifiedCache;
 
     public JwtUtil(
             @Value("${ecoride.jwt.secret}") String secret,
-            @Value("${ecoride.jwt.expiry-ms}") long expiryMs) {
+            @Value("${ecoride.jwt.expiry-ms}") long expiryMs,
+            @Value("${ecoride.jwt.verified-cache.size:10000}") int cacheSize) {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expiryMs = expiryMs;
+        this.parser = Jwts.parser().verifyWith(key).build();
+        this.verifiedCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > cacheSize;
+            }
+        });
     }
 
-    public String generateToken(String email) {
-        long now = System.currentTimeMillis();
+    /**
+     * Issues a self-contained token: the filter builds the principal from the subject, user id
+     * and roles without loading the user. Issue time is whole seconds, as carried in the token.
+     */
+    public String generateToken(UUID userId, String email, Collection<String> roles) {
+        long now = System.currentTimeMillis() / 1000 * 1000;
         return Jwts.builder()
                 .subject(email)
+                .claim(CLAIM_USER_ID, userId.toString())
+                .claim(CLAIM_ROLES, roles)
                 .issuedAt(new Date(now))
                 .expiration(new Date(now + expiryMs))
                 .signWith(key)
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return parseClaims(token).getSubject();
-    }
+    /**
+     * Verifies signature and expiry and returns the claims, or null if the token is not acceptable.
+     * Only successfully verified tokens are cached, and never past their own expiry.
+     */
+    public Claims verify(String token) {
+        String hash = sha256(token);
+        long now = System.currentTimeMillis();
+        Verified cached = verifiedCache.get(hash);
+        if (cached != null) {
+            if (now < cached.expiresAtMs()) return cached.claims();
+            verifiedCache.remove(hash);
+            return null;
+        }
 
-    public boolean isValid(String token) {
+        Claims claims;
         try {
-            parseClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
+        }
+        if (claims.getExpiration() != null) {
+            verifiedCache.put(hash, new Verified(claims, claims.getExpiration().getTime()));
         }
+        return claims;
     }
 
-    private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 }
@@ -0,0 +1,120 @@
+package com.ecoride.auth.security;
+
+import com.ecoride.common.exception.ApiException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs bcrypt on a small dedicated pool instead of on request threads.
+ *
+ * The pool is sized below the core count and its queue is bounded, so a login or registration
+ * burst can use at most that many cores and keep at most that many requests waiting. Anything
+ * beyond is turned away at once with 503 and Retry-After instead of piling up on Tomcat threads.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    /** Result of a password check; rehash is non-null when the stored hash used an old cost. */
+    public record Verification(boolean matches, String rehash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final int strength;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    /** Checked against when the account does not exist, so unknown emails take as long as wrong passwords. */
+    private final String dummyHash;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder,
+                          @Value("${ecoride.auth.bcrypt.strength:10}") int strength,
+                          @Value("${ecoride.auth.hashing.threads:0}") int threads,
+                          @Value("${ecoride.auth.hashing.queue-capacity:64}") int queueCapacity,
+                          @Value("${ecoride.auth.hashing.timeout-ms:5000}") long timeoutMs,
+                          @Value("${ecoride.auth.hashing.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.strength = strength;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = passwordEncoder.encode("not-a-real-password");
+        log.info("Password hashing pool: {} threads, queue {}, bcrypt cost {}", poolSize, queueCapacity, strength);
+    }
+
+    @PreDestroy
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    public String encode(String rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Checks a password against its stored hash, or against a dummy hash when there is none.
+     * A matching password whose hash was made with a different cost is rehashed in the same task.
+     */
+    public Verification verify(String rawPassword, String storedHash) {
+        return run(() -> {
+            if (storedHash == null) {
+                passwordEncoder.matches(rawPassword, dummyHash);
+                return new Verification(false, null);
+            }
+            if (!passwordEncoder.matches(rawPassword, storedHash)) {
+                return new Verification(false, null);
+            }
+            return new Verification(true, cost(storedHash) != strength ? passwordEncoder.encode(rawPassword) : null);
+        });
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw busy();
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ApiException busy() {
+        return ApiException.serviceUnavailable("Sign-in is busy, please retry shortly", retryAfterSeconds);
+    }
+
+    /** Cost field of a modular-crypt bcrypt hash ({@code $2a$10$...}); -1 if unreadable. */
+    static int cost(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
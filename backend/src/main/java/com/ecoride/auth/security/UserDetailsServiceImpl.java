@@ -1,19 +1,40 @@
 package com.ecoride.auth.security;
 
 import com.ecoride.user.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    /** Comma-separated emails granted ROLE_ADMIN (exports and other /admin endpoints). */
+    @Value("${ecoride.admin-emails:}")
+    private String adminEmails;
+
+    private Set<String> admins;
+
+    @PostConstruct
+    void init() {
+        admins = Arrays.stream(adminEmails.split(","))
+                .map(e -> e.trim().toLowerCase(Locale.ROOT))
+                .filter(e -> !e.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         com.ecoride.user.entity.User user = userRepository.findByEmail(email)
@@ -22,7 +43,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         return User.builder()
                 .username(user.getEmail())
                 .password(user.getPasswordHash())
-                .roles("USER")
+                .roles(rolesFor(user.getEmail()))
+                .disabled(user.isDisabled())
                 .build();
     }
+
+    /** Role names without the ROLE_ prefix; also embedded in issued tokens. */
+    public String[] rolesFor(String email) {
+        return admins.contains(email.toLowerCase(Locale.ROOT)) ? new String[]{"USER", "ADMIN"} : new String[]{"USER"};
+    }
 }
@@ -0,0 +1,69 @@
+package com.ecoride.auth.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Bounded cache of account status for the stateless JWT filter.
+ *
+ * Tokens carry everything needed to build the principal; the only per-request question left
+ * is whether the account was disabled or its tokens revoked since issue. That is answered from
+ * here, with at most one primary-key read per user per TTL. Local changes evict immediately;
+ * other nodes see them within the TTL.
+ */
+@Component
+public class UserStatusCache {
+
+    private record Status(boolean disabled, Instant tokensValidAfter, long loadedAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long ttlMs;
+    private final Map<UUID, Status> cache;
+
+    public UserStatusCache(JdbcTemplate jdbcTemplate,
+                           @Value("${ecoride.jwt.status-cache.size:10000}") int size,
+                           @Value("${ecoride.jwt.status-cache.ttl-ms:60000}") long ttlMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttlMs = ttlMs;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Status> eldest) {
+                return size() > size;
+            }
+        });
+    }
+
+    /** False if the account is gone, disabled, or its tokens were revoked after {@code issuedAt}. */
+    public boolean isActive(UUID userId, Instant issuedAt) {
+        Status status = cache.get(userId);
+        long now = System.currentTimeMillis();
+        if (status == null || now - status.loadedAt() > ttlMs) {
+            status = load(userId, now);
+            cache.put(userId, status);
+        }
+        if (status.disabled()) return false;
+        return status.tokensValidAfter() == null || !issuedAt.isBefore(status.tokensValidAfter());
+    }
+
+    public void evict(UUID userId) {
+        cache.remove(userId);
+    }
+
+    private Status load(UUID userId, long now) {
+        List<Status> rows = jdbcTemplate.query(
+                "SELECT disabled, tokens_valid_after FROM users WHERE id = ?",
+                (rs, i) -> {
+                    Timestamp validAfter = rs.getTimestamp(2);
+                    return new Status(rs.getBoolean(1), validAfter == null ? null : validAfter.toInstant(), now);
+                },
+                userId.toString());
+        // A deleted account is treated as disabled
+        return rows.isEmpty() ? new Status(true, null, now) : rows.get(0);
+    }
+}
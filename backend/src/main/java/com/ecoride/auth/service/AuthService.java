@@ -4,30 +4,32 @@ import com.ecoride.auth.dto.LoginRequest;
 import com.ecoride.auth.dto.RegisterRequest;
 import com.ecoride.auth.dto.TokenResponse;
 import com.ecoride.auth.security.JwtUtil;
+import com.ecoride.auth.security.PasswordHasher;
+import com.ecoride.auth.security.UserDetailsServiceImpl;
 import com.ecoride.common.exception.ApiException;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtUtil jwtUtil;
-    private final AuthenticationManager authenticationManager;
+    private final UserDetailsServiceImpl userDetailsService;
 
     @Value("${ecoride.allowed-email-domain}")
     private String allowedDomain;
 
-    @Transactional
+    /** Not transactional: no connection is held while the password waits for a hashing thread. */
     public TokenResponse register(RegisterRequest req) {
         validateEmailDomain(req.getEmail());
 
@@ -35,29 +37,42 @@ public class AuthService {
             throw ApiException.conflict("Email already registered");
         }
 
+        String passwordHash = passwordHasher.encode(req.getPassword());
+
         User user = User.builder()
                 .name(req.getName())
                 .email(req.getEmail().toLowerCase())
-                .passwordHash(passwordEncoder.encode(req.getPassword()))
+                .passwordHash(passwordHash)
                 .department(req.getDepartment())
                 .year(req.getYear())
                 .build();
 
         userRepository.save(user);
 
-        String token = jwtUtil.generateToken(user.getEmail());
-        return new TokenResponse(token, user.getEmail(), user.getName());
+        return issueToken(user);
     }
 
     public TokenResponse login(LoginRequest req) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(req.getEmail().toLowerCase(), req.getPassword())
-        );
+        User user = userRepository.findByEmail(req.getEmail().toLowerCase()).orElse(null);
+
+        PasswordHasher.Verification check = passwordHasher.verify(
+                req.getPassword(), user != null ? user.getPasswordHash() : null);
+        if (user == null || !check.matches()) {
+            throw new BadCredentialsException("Bad credentials");
+        }
+        if (user.isDisabled()) {
+            throw new DisabledException("User is disabled");
+        }
+        if (check.rehash() != null) {
+            userRepository.replacePasswordHash(user.getId().toString(), user.getPasswordHash(), check.rehash());
+        }
 
-        User user = userRepository.findByEmail(req.getEmail().toLowerCase())
-                .orElseThrow(() -> ApiException.notFound("User not found"));
+        return issueToken(user);
+    }
 
-        String token = jwtUtil.generateToken(user.getEmail());
+    private TokenResponse issueToken(User user) {
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(),
+                List.of(userDetailsService.rolesFor(user.getEmail())));
         return new TokenResponse(token, user.getEmail(), user.getName());
     }
 
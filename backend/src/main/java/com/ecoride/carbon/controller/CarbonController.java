@@ -1,13 +1,17 @@
 package com.ecoride.carbon.controller;
 
 import com.ecoride.carbon.dto.CampusSummaryDto;
+import com.ecoride.carbon.dto.CarbonTrendsDto;
 import com.ecoride.carbon.dto.WalletDto;
 import com.ecoride.carbon.service.CarbonService;
 import com.ecoride.common.response.ApiResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/wallet")
@@ -17,12 +21,33 @@ public class CarbonController {
     private final CarbonService carbonService;
 
     @GetMapping
-    public ApiResponse<WalletDto> getWallet(@AuthenticationPrincipal UserDetails principal) {
-        return ApiResponse.ok(carbonService.getWallet(principal.getUsername()));
+    public ApiResponse<WalletDto> getWallet(@AuthenticationPrincipal UserDetails principal,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.ok(carbonService.getWallet(principal.getUsername(), cursor, limit));
     }
 
+    /** Revalidated on every request; answers 304 while the running totals are unchanged. */
     @GetMapping("/campus-summary")
-    public ApiResponse<CampusSummaryDto> getCampusSummary() {
-        return ApiResponse.ok(carbonService.getCampusSummary());
+    public ResponseEntity<ApiResponse<CampusSummaryDto>> getCampusSummary(WebRequest request) {
+        CampusSummaryDto summary = carbonService.getCampusSummary();
+        if (request.checkNotModified(summary.getEtag())) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(summary.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.ok(summary));
+    }
+
+    /** from/to are inclusive yyyy-MM-dd dates in campus time; defaults to the last 30 days. */
+    @GetMapping("/campus-trends")
+    public ApiResponse<CarbonTrendsDto> getCampusTrends(@RequestParam(required = false) String from,
+                                                        @RequestParam(required = false) String to,
+                                                        @RequestParam(defaultValue = "DAY") String granularity,
+                                                        @RequestParam(defaultValue = "NONE") String groupBy,
+                                                        @RequestParam(required = false) String department,
+                                                        @RequestParam(required = false) String zone) {
+        return ApiResponse.ok(carbonService.getCampusTrends(from, to, granularity, groupBy, department, zone));
     }
 }
@@ -1,5 +1,6 @@
 package com.ecoride.carbon.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
 import lombok.Data;
 
@@ -10,4 +11,7 @@ public class CampusSummaryDto {
     private double totalCarbonSavedKg;
     private long totalRidesCompleted;
     private long totalCarbonCreditsIssued;
+
+    @JsonIgnore
+    private String etag;
 }
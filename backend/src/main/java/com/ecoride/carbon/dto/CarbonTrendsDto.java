@@ -0,0 +1,34 @@
+package com.ecoride.carbon.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CarbonTrendsDto {
+    @Data
+    @Builder
+    public static class Point {
+        private String bucketStart;     // local campus time: "yyyy-MM-dd" or "yyyy-MM-dd HH:mm"
+        private long carbonSavedGrams;
+        private long creditsEarned;
+        private long transactions;
+    }
+
+    @Data
+    @Builder
+    public static class Series {
+        private String key;             // "campus", a department or a pickup zone
+        private long totalCarbonSavedGrams;
+        private long totalCreditsEarned;
+        private List<Point> points;
+    }
+
+    private String granularity;         // HOUR, DAY, WEEK
+    private String groupBy;             // NONE, DEPARTMENT, ZONE
+    private String from;
+    private String to;
+    private List<Series> series;
+}
@@ -8,10 +8,12 @@ import java.util.List;
 @Data
 @Builder
 public class WalletDto {
-    private int totalCredits;
+    private long totalCredits;
     private long totalCarbonSavedGrams;
     private double totalCarbonSavedKg;
     private List<TransactionEntry> recentTransactions;
+    /** Keyset cursor for the next page of transactions; null when there are no more */
+    private String nextCursor;
 
     @Data
     @Builder
@@ -0,0 +1,13 @@
+package com.ecoride.carbon.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/** Column projection over carbon_transactions for the wallet feed; no entity hydration. */
+public interface WalletTransactionView {
+    UUID getId();
+    UUID getRideId();
+    int getCarbonSavedGrams();
+    int getCreditsEarned();
+    Instant getCreatedAt();
+}
@@ -1,10 +1,13 @@
 package com.ecoride.carbon.repository;
 
+import com.ecoride.carbon.dto.WalletTransactionView;
 import com.ecoride.carbon.entity.CarbonTransaction;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -19,4 +22,32 @@ public interface CarbonTransactionRepository extends JpaRepository<CarbonTransac
 
     @Query("SELECT COALESCE(SUM(c.carbonSavedGrams), 0) FROM CarbonTransaction c WHERE c.user.id = :userId")
     long sumCarbonSavedByUser(@Param("userId") UUID userId);
+
+    /**
+     * Newest wallet entries first, served from idx_carbon_user_created.
+     */
+    @Query("""
+            SELECT c.id AS id, c.ride.id AS rideId, c.carbonSavedGrams AS carbonSavedGrams,
+                   c.creditsEarned AS creditsEarned, c.createdAt AS createdAt
+            FROM CarbonTransaction c
+            WHERE c.user.id = :userId
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<WalletTransactionView> findWalletPage(@Param("userId") UUID userId, Pageable page);
+
+    /**
+     * Keyset continuation: entries strictly older than the (createdAt, id) cursor.
+     */
+    @Query("""
+            SELECT c.id AS id, c.ride.id AS rideId, c.carbonSavedGrams AS carbonSavedGrams,
+                   c.creditsEarned AS creditsEarned, c.createdAt AS createdAt
+            FROM CarbonTransaction c
+            WHERE c.user.id = :userId
+              AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id))
+            ORDER BY c.createdAt DESC, c.id DESC
+            """)
+    List<WalletTransactionView> findWalletPageAfter(@Param("userId") UUID userId,
+                                                    @Param("createdAt") Instant createdAt,
+                                                    @Param("id") UUID id,
+                                                    Pageable page);
 }
@@ -0,0 +1,122 @@
+package com.ecoride.carbon.service;
+
+import com.ecoride.common.transaction.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Running campus-wide carbon aggregates.
+ *
+ * The totals are spread over SLOTS rows of campus_carbon_totals so concurrent completions do not
+ * all queue on one row lock; reads sum the slots. A slot is incremented inside the transaction that
+ * records carbon, and the in-memory snapshot follows after commit. Other nodes' increments are
+ * picked up by a cheap periodic refresh; a slower reconciliation recomputes the totals from the
+ * source tables.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CampusCarbonTotals {
+
+    public record Totals(long carbonSavedGrams, long ridesCompleted, long creditsIssued) {
+
+        /** Strong validator for the summary endpoint: changes whenever any total changes. */
+        public String etag() {
+            return "\"" + Long.toHexString(carbonSavedGrams) + "-" + Long.toHexString(ridesCompleted)
+                    + "-" + Long.toHexString(creditsIssued) + "\"";
+        }
+    }
+
+    /** Slot rows seeded by V14. */
+    static final int SLOTS = 16;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicReference<Totals> current = new AtomicReference<>(new Totals(0, 0, 0));
+
+    public Totals get() {
+        return current.get();
+    }
+
+    /**
+     * Slot for the calling thread. A transaction runs on one thread, so all of its increments hit
+     * one row and two transactions can never lock two slots in opposite orders.
+     */
+    private static int slot() {
+        return (int) (Thread.currentThread().getId() % SLOTS);
+    }
+
+    /** Must be called inside the transaction that inserts the carbon transaction. */
+    public void recordCarbon(int carbonSavedGrams, int credits) {
+        jdbcTemplate.update("""
+                UPDATE campus_carbon_totals
+                SET carbon_saved_grams = carbon_saved_grams + ?, credits_issued = credits_issued + ?
+                WHERE slot = ?
+                """, carbonSavedGrams, credits, slot());
+        AfterCommit.run(() -> current.updateAndGet(t -> new Totals(
+                t.carbonSavedGrams() + carbonSavedGrams, t.ridesCompleted(), t.creditsIssued() + credits)));
+    }
+
+    /** Must be called inside the transaction that marks the ride COMPLETED. */
+    public void recordRideCompleted() {
+        jdbcTemplate.update("UPDATE campus_carbon_totals SET rides_completed = rides_completed + 1 WHERE slot = ?",
+                slot());
+        AfterCommit.run(() -> current.updateAndGet(t -> new Totals(
+                t.carbonSavedGrams(), t.ridesCompleted() + 1, t.creditsIssued())));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ecoride.carbon.campus-totals.refresh-ms:30000}",
+               initialDelayString = "${ecoride.carbon.campus-totals.refresh-ms:30000}")
+    public void refresh() {
+        current.set(jdbcTemplate.queryForObject("""
+                        SELECT SUM(carbon_saved_grams), SUM(rides_completed), SUM(credits_issued)
+                        FROM campus_carbon_totals
+                        """,
+                (rs, i) -> new Totals(rs.getLong(1), rs.getLong(2), rs.getLong(3))));
+    }
+
+    /**
+     * Recompute the totals from carbon_transactions and rides and correct any drift.
+     * The summed slots and the source sums are read by one non-locking statement, so they come from
+     * the same consistent snapshot: an increment is committed together with its source row, so
+     * the snapshot sees both or neither. The difference is then applied to slot 0 as a relative
+     * UPDATE, which keeps increments committed since the snapshot and holds the row lock for that
+     * statement only.
+     */
+    @Scheduled(cron = "${ecoride.carbon.campus-totals.reconcile-cron:0 0 * * * *}")
+    public void reconcile() {
+        long[] row = jdbcTemplate.queryForObject("""
+                        SELECT SUM(t.carbon_saved_grams), SUM(t.rides_completed), SUM(t.credits_issued),
+                               (SELECT COALESCE(SUM(carbon_saved_grams), 0) FROM carbon_transactions),
+                               (SELECT COUNT(*) FROM rides WHERE status = 'COMPLETED'),
+                               (SELECT COALESCE(SUM(credits_earned), 0) FROM carbon_transactions)
+                        FROM campus_carbon_totals t
+                        """,
+                (rs, i) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getLong(4), rs.getLong(5), rs.getLong(6)});
+        Totals stored = new Totals(row[0], row[1], row[2]);
+        Totals actual = new Totals(row[3], row[4], row[5]);
+
+        if (!actual.equals(stored)) {
+            log.warn("Campus carbon totals drifted: stored {} actual {}", stored, actual);
+            jdbcTemplate.update("""
+                    UPDATE campus_carbon_totals
+                    SET carbon_saved_grams = carbon_saved_grams + ?,
+                        rides_completed = rides_completed + ?,
+                        credits_issued = credits_issued + ?
+                    WHERE slot = 0
+                    """,
+                    actual.carbonSavedGrams() - stored.carbonSavedGrams(),
+                    actual.ridesCompleted() - stored.ridesCompleted(),
+                    actual.creditsIssued() - stored.creditsIssued());
+        }
+        refresh();
+    }
+}
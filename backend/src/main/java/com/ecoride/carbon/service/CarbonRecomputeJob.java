@@ -0,0 +1,189 @@
+package com.ecoride.carbon.service;
+
+import com.ecoride.common.lock.ClusterLock;
+import com.ecoride.leaderboard.service.LeaderboardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Recomputes historical carbon savings when the distance matrix changes.
+ *
+ * Saved grams are a pure function of a ride's (pickup zone, destination), so the job fans the
+ * distinct pairs out over a small thread pool and rewrites each pair's transactions in bounded
+ * chunks. Credits already issued are left as they are. The version is recorded only after every
+ * derived total has been rebuilt, so an interrupted run simply repeats on the next start.
+ *
+ * Every node checks the version on startup, but the run holds a cluster lock and re-checks the
+ * version under it, so only one node does the work; the others skip it.
+ */
+@Slf4j
+@Component
+public class CarbonRecomputeJob {
+
+    private record RoutePair(String pickupZone, String destination) {
+    }
+
+    private static final String LOCK_NAME = "ecoride.carbon-recompute";
+    private static final int DELTA_BATCH = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterLock clusterLock;
+    private final DistanceMatrix distanceMatrix;
+    private final CampusCarbonTotals campusTotals;
+    private final CarbonRollups rollups;
+    private final LeaderboardService leaderboardService;
+    private final int savingsPerKmGrams;
+    private final int threads;
+    private final int chunkSize;
+
+    public CarbonRecomputeJob(JdbcTemplate jdbcTemplate,
+                              ClusterLock clusterLock,
+                              DistanceMatrix distanceMatrix,
+                              CampusCarbonTotals campusTotals,
+                              CarbonRollups rollups,
+                              LeaderboardService leaderboardService,
+                              @Value("${ecoride.carbon.savings-per-km-grams}") int savingsPerKmGrams,
+                              @Value("${ecoride.carbon.distance-matrix.recompute-threads:4}") int threads,
+                              @Value("${ecoride.carbon.distance-matrix.recompute-chunk-size:5000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterLock = clusterLock;
+        this.distanceMatrix = distanceMatrix;
+        this.campusTotals = campusTotals;
+        this.rollups = rollups;
+        this.leaderboardService = leaderboardService;
+        this.savingsPerKmGrams = savingsPerKmGrams;
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recomputeIfMatrixChanged() {
+        String version = distanceMatrix.version();
+        if (isApplied(version)) return;
+
+        Thread t = new Thread(() -> {
+            try {
+                boolean ran = clusterLock.runExclusively(LOCK_NAME, () -> {
+                    // Another node may have finished between the check above and taking the lock
+                    if (isApplied(version)) return;
+                    try {
+                        recompute(version);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted", e);
+                    }
+                });
+                if (!ran) log.info("Carbon recompute for distance matrix {} is running on another node", version);
+            } catch (RuntimeException e) {
+                log.error("Carbon recompute for distance matrix {} failed: {}", version, e.getMessage(), e);
+            }
+        }, "carbon-recompute");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    void recompute(String version) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<RoutePair> pairs = jdbcTemplate.query("""
+                        SELECT DISTINCT r.pickup_zone, r.destination
+                        FROM carbon_transactions ct
+                        JOIN rides r ON r.id = ct.ride_id
+                        """,
+                (rs, i) -> new RoutePair(rs.getString(1), rs.getString(2)));
+        log.info("Recomputing carbon for distance matrix {}: {} routes on {} threads", version, pairs.size(), threads);
+
+        AtomicLong updated = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread worker = new Thread(r, "carbon-recompute-worker");
+            worker.setDaemon(true);
+            return worker;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(pairs.size());
+            for (RoutePair pair : pairs) {
+                futures.add(pool.submit(() -> updated.addAndGet(recomputeRoute(pair))));
+            }
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Route recompute failed", e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Derived totals, in dependency order
+        correctUserTotals();
+        campusTotals.reconcile();
+        rollups.rebuildFromTransactions();
+        leaderboardService.rebuild();
+
+        jdbcTemplate.update("INSERT INTO carbon_distance_matrix_versions (version, recomputed_transactions) VALUES (?, ?)",
+                version, updated.get());
+        log.info("Carbon recompute for distance matrix {} done: {} transactions changed in {} ms",
+                version, updated.get(), System.currentTimeMillis() - start);
+    }
+
+    private boolean isApplied(String version) {
+        Integer applied = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM carbon_distance_matrix_versions WHERE version = ?", Integer.class, version);
+        return applied != null && applied > 0;
+    }
+
+    /**
+     * Brings users.carbon_saved_grams in line with their transactions while rides keep completing.
+     * Each user's stored total and transaction sum are read by one non-locking statement, so they
+     * come from the same consistent snapshot: a credit commits its transaction row and its
+     * increment together. The difference is applied as a relative UPDATE, which keeps increments
+     * committed since the snapshot instead of overwriting them with a stale sum.
+     */
+    private void correctUserTotals() {
+        List<Object[]> deltas = new ArrayList<>();
+        jdbcTemplate.query("""
+                        SELECT u.id, COALESCE(t.grams, 0) - u.carbon_saved_grams
+                        FROM users u
+                        LEFT JOIN (SELECT user_id, SUM(carbon_saved_grams) AS grams
+                                   FROM carbon_transactions GROUP BY user_id) t ON t.user_id = u.id
+                        WHERE u.carbon_saved_grams <> COALESCE(t.grams, 0)
+                        """,
+                rs -> {
+                    deltas.add(new Object[]{rs.getLong(2), rs.getString(1)});
+                });
+        for (int from = 0; from < deltas.size(); from += DELTA_BATCH) {
+            jdbcTemplate.batchUpdate("UPDATE users SET carbon_saved_grams = carbon_saved_grams + ? WHERE id = ?",
+                    deltas.subList(from, Math.min(deltas.size(), from + DELTA_BATCH)));
+        }
+        log.info("Carbon recompute corrected saved grams for {} users", deltas.size());
+    }
+
+    /** Rewrites one route's transactions in autocommitted chunks until none differ. */
+    private long recomputeRoute(RoutePair pair) {
+        int grams = CarbonService.carbonSavedGrams(
+                distanceMatrix.distanceKm(pair.pickupZone(), pair.destination()), savingsPerKmGrams);
+        long total = 0;
+        int n;
+        do {
+            n = jdbcTemplate.update("""
+                            UPDATE carbon_transactions
+                            SET carbon_saved_grams = ?
+                            WHERE carbon_saved_grams <> ?
+                              AND ride_id IN (SELECT id FROM rides WHERE pickup_zone = ? AND destination <=> ?)
+                            LIMIT ?
+                            """,
+                    grams, grams, pair.pickupZone(), pair.destination(), chunkSize);
+            total += n;
+        } while (n == chunkSize);
+        return total;
+    }
+}
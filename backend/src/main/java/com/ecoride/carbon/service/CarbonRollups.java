@@ -0,0 +1,243 @@
+package com.ecoride.carbon.service;
+
+import com.ecoride.common.transaction.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Incremental carbon time series by department and pickup zone.
+ *
+ * Crediting upserts a per-minute bucket in the same transaction. A compaction job folds closed
+ * minutes into hourly and daily buckets aligned to the campus timezone; hourly buckets are kept for
+ * a limited window, daily ones forever. Queries are answered from a columnar in-memory copy that
+ * is updated on commit and reloaded from the table after each compaction.
+ */
+@Slf4j
+@Component
+public class CarbonRollups {
+
+    private static final String UPSERT = """
+            INSERT INTO carbon_rollups (granularity, bucket_start, department, pickup_zone,
+                                        carbon_saved_grams, credits_earned, transactions)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE carbon_saved_grams = carbon_saved_grams + VALUES(carbon_saved_grams),
+                                    credits_earned = credits_earned + VALUES(credits_earned),
+                                    transactions = transactions + VALUES(transactions)
+            """;
+
+    private record Key(RollupStore.Unit unit, Instant bucketStart, String department, String zone) {
+    }
+
+    private record Row(String granularity, Instant bucketStart, String department, String zone,
+                       long grams, long credits, long transactions) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ZoneId zone;
+    private final int hourlyRetentionDays;
+
+    private volatile RollupStore store = new RollupStore();
+
+    public CarbonRollups(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${ecoride.carbon.rollups.zone-id:Asia/Kolkata}") String zoneId,
+                         @Value("${ecoride.carbon.rollups.hourly-retention-days:35}") int hourlyRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.zone = ZoneId.of(zoneId);
+        this.hourlyRetentionDays = hourlyRetentionDays;
+    }
+
+    public ZoneId zone() {
+        return zone;
+    }
+
+    public int hourlyRetentionDays() {
+        return hourlyRetentionDays;
+    }
+
+    /** Must be called inside the transaction that inserts the carbon transaction. */
+    public void record(String department, String pickupZone, int carbonSavedGrams, int credits) {
+        Instant now = Instant.now();
+        String dept = normalize(department);
+        String pz = normalize(pickupZone);
+        jdbcTemplate.update(UPSERT, "MINUTE", Timestamp.from(now.truncatedTo(ChronoUnit.MINUTES)),
+                dept, pz, carbonSavedGrams, credits, 1);
+        AfterCommit.run(() -> {
+            RollupStore s = store;
+            s.add(RollupStore.Unit.HOUR, hourIndex(now), dept, pz, carbonSavedGrams, credits, 1);
+            s.add(RollupStore.Unit.DAY, dayIndex(now), dept, pz, carbonSavedGrams, credits, 1);
+        });
+    }
+
+    /**
+     * Sum [from, to) in the given unit, where buckets are local epoch hours or local epoch days.
+     * Filters match exactly; null means all.
+     */
+    List<RollupStore.Result> query(RollupStore.Unit unit, long from, long to, RollupStore.GroupBy groupBy,
+                                   String department, String pickupZone) {
+        return store.query(unit, from, to, groupBy, department, pickupZone);
+    }
+
+    long hourIndex(Instant instant) {
+        return LocalDateTime.ofInstant(instant, zone).toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    long dayIndex(Instant instant) {
+        return LocalDate.ofInstant(instant, zone).toEpochDay();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${ecoride.carbon.rollups.compact-cron:0 */5 * * * *}")
+    public void compactAndReload() {
+        try {
+            compact();
+        } finally {
+            reload();
+        }
+    }
+
+    /**
+     * Fold closed minute buckets into hour and day buckets and drop expired hours.
+     * The minute rows are read FOR UPDATE, so concurrent compactions on other nodes serialize
+     * and never fold the same minutes twice.
+     */
+    void compact() {
+        Instant cutoff = Instant.now().truncatedTo(ChronoUnit.MINUTES).minus(1, ChronoUnit.MINUTES);
+        int[] folded = {0};
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Row> minutes = jdbcTemplate.query("""
+                            SELECT granularity, bucket_start, department, pickup_zone,
+                                   carbon_saved_grams, credits_earned, transactions
+                            FROM carbon_rollups
+                            WHERE granularity = 'MINUTE' AND bucket_start < ?
+                            FOR UPDATE
+                            """,
+                    (rs, i) -> toRow(rs), Timestamp.from(cutoff));
+            if (minutes.isEmpty()) return;
+
+            Map<Key, long[]> sums = new HashMap<>();
+            for (Row m : minutes) {
+                LocalDateTime local = LocalDateTime.ofInstant(m.bucketStart(), zone);
+                Instant hour = local.truncatedTo(ChronoUnit.HOURS).atZone(zone).toInstant();
+                Instant day = local.toLocalDate().atStartOfDay(zone).toInstant();
+                accumulate(sums, new Key(RollupStore.Unit.HOUR, hour, m.department(), m.zone()), m);
+                accumulate(sums, new Key(RollupStore.Unit.DAY, day, m.department(), m.zone()), m);
+            }
+            List<Object[]> batch = new ArrayList<>(sums.size());
+            sums.forEach((k, v) -> batch.add(new Object[]{
+                    k.unit().name(), Timestamp.from(k.bucketStart()), k.department(), k.zone(), v[0], v[1], v[2]}));
+            jdbcTemplate.batchUpdate(UPSERT, batch);
+            jdbcTemplate.update("DELETE FROM carbon_rollups WHERE granularity = 'MINUTE' AND bucket_start < ?",
+                    Timestamp.from(cutoff));
+            jdbcTemplate.update("DELETE FROM carbon_rollups WHERE granularity = 'HOUR' AND bucket_start < ?",
+                    Timestamp.from(hourlyCutoff()));
+            folded[0] = minutes.size();
+        });
+        if (folded[0] > 0) {
+            log.debug("Compacted {} minute carbon buckets", folded[0]);
+        }
+    }
+
+    /**
+     * Discard all rollups and reseed minute buckets from carbon_transactions, e.g. after historical
+     * savings were recomputed. Departments are taken from the users' current profiles.
+     */
+    public void rebuildFromTransactions() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM carbon_rollups");
+            jdbcTemplate.update("""
+                    INSERT INTO carbon_rollups (granularity, bucket_start, department, pickup_zone,
+                                                carbon_saved_grams, credits_earned, transactions)
+                    SELECT 'MINUTE',
+                           DATE_FORMAT(ct.created_at, '%Y-%m-%d %H:%i:00'),
+                           COALESCE(u.department, ''),
+                           r.pickup_zone,
+                           SUM(ct.carbon_saved_grams),
+                           SUM(ct.credits_earned),
+                           COUNT(*)
+                    FROM carbon_transactions ct
+                    JOIN users u ON u.id = ct.user_id
+                    JOIN rides r ON r.id = ct.ride_id
+                    GROUP BY DATE_FORMAT(ct.created_at, '%Y-%m-%d %H:%i:00'), COALESCE(u.department, ''), r.pickup_zone
+                    """);
+        });
+        compactAndReload();
+    }
+
+    /**
+     * Rebuild the in-memory store from the table. Commits that land while the load runs may be
+     * missed by the new copy; the next reload picks them up.
+     */
+    void reload() {
+        long start = System.currentTimeMillis();
+        RollupStore fresh = new RollupStore();
+        int[] count = {0};
+        jdbcTemplate.query("""
+                        SELECT granularity, bucket_start, department, pickup_zone,
+                               carbon_saved_grams, credits_earned, transactions
+                        FROM carbon_rollups
+                        WHERE granularity <> 'HOUR' OR bucket_start >= ?
+                        """,
+                rs -> {
+                    Row r = toRow(rs);
+                    switch (r.granularity()) {
+                        case "DAY" -> fresh.add(RollupStore.Unit.DAY, dayIndex(r.bucketStart()),
+                                r.department(), r.zone(), r.grams(), r.credits(), r.transactions());
+                        case "HOUR" -> fresh.add(RollupStore.Unit.HOUR, hourIndex(r.bucketStart()),
+                                r.department(), r.zone(), r.grams(), r.credits(), r.transactions());
+                        default -> {
+                            // Not yet compacted; counts towards both views
+                            fresh.add(RollupStore.Unit.HOUR, hourIndex(r.bucketStart()),
+                                    r.department(), r.zone(), r.grams(), r.credits(), r.transactions());
+                            fresh.add(RollupStore.Unit.DAY, dayIndex(r.bucketStart()),
+                                    r.department(), r.zone(), r.grams(), r.credits(), r.transactions());
+                        }
+                    }
+                    count[0]++;
+                },
+                Timestamp.from(hourlyCutoff()));
+        store = fresh;
+        log.debug("Carbon rollups reloaded: {} buckets in {} ms", count[0], System.currentTimeMillis() - start);
+    }
+
+    private Instant hourlyCutoff() {
+        return Instant.now().minus(hourlyRetentionDays, ChronoUnit.DAYS).truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static void accumulate(Map<Key, long[]> sums, Key key, Row row) {
+        long[] v = sums.computeIfAbsent(key, k -> new long[3]);
+        v[0] += row.grams();
+        v[1] += row.credits();
+        v[2] += row.transactions();
+    }
+
+    private static Row toRow(ResultSet rs) throws SQLException {
+        return new Row(
+                rs.getString("granularity"),
+                rs.getTimestamp("bucket_start").toInstant(),
+                rs.getString("department"),
+                rs.getString("pickup_zone"),
+                rs.getLong("carbon_saved_grams"),
+                rs.getLong("credits_earned"),
+                rs.getLong("transactions"));
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim();
+    }
+}
@@ -1,38 +1,77 @@
 package com.ecoride.carbon.service;
 
 import com.ecoride.carbon.dto.CampusSummaryDto;
+import com.ecoride.carbon.dto.CarbonTrendsDto;
 import com.ecoride.carbon.dto.WalletDto;
+import com.ecoride.carbon.dto.WalletTransactionView;
 import com.ecoride.carbon.entity.CarbonTransaction;
 import com.ecoride.carbon.repository.CarbonTransactionRepository;
 import com.ecoride.common.exception.ApiException;
+import com.ecoride.leaderboard.service.LeaderboardService;
 import com.ecoride.ride.entity.Ride;
-import com.ecoride.ride.repository.RideRepository;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
-import java.time.ZoneId;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.*;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.UUID;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CarbonService {
 
-    private static final int ASSUMED_DISTANCE_KM = 10;  // default campus commute distance
     private static final DateTimeFormatter FMT = DateTimeFormatter
             .ofPattern("yyyy-MM-dd HH:mm")
             .withZone(ZoneId.of("Asia/Kolkata"));
 
+    private static final int MAX_WALLET_PAGE = 100;
+    private static final int MAX_TREND_DAYS = 3 * 366;
+    private static final int MAX_HOURLY_TREND_DAYS = 14;
+    private static final DateTimeFormatter HOUR_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    /** Opaque keyset cursor: position of the last entry returned. */
+    private record WalletCursor(Instant createdAt, UUID id) {
+
+        String encode() {
+            String raw = createdAt.getEpochSecond() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static WalletCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf(':');
+                return new WalletCursor(Instant.ofEpochSecond(Long.parseLong(raw.substring(0, sep))),
+                        UUID.fromString(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw ApiException.badRequest("Invalid wallet cursor");
+            }
+        }
+    }
+
     private final CarbonTransactionRepository carbonTransactionRepository;
     private final UserRepository userRepository;
-    private final RideRepository rideRepository;
+    private final CampusCarbonTotals campusTotals;
+    private final CarbonRollups rollups;
+    private final DistanceMatrix distanceMatrix;
+    private final CreditLedger creditLedger;
+    private final LeaderboardService leaderboardService;
+    private final JdbcTemplate jdbcTemplate;
 
     @Value("${ecoride.carbon.savings-per-km-grams}")
     private int savingsPerKmGrams;
@@ -47,7 +86,8 @@ public class CarbonService {
             return; // idempotency guard
         }
 
-        int carbonSaved = ASSUMED_DISTANCE_KM * savingsPerKmGrams;
+        int carbonSaved = carbonSavedGrams(
+                distanceMatrix.distanceKm(ride.getPickupZone(), ride.getDestination()), savingsPerKmGrams);
         int credits = carbonSaved / 100;  // 1 credit per 100g saved
 
         CarbonTransaction tx = CarbonTransaction.builder()
@@ -59,45 +99,206 @@ public class CarbonService {
 
         carbonTransactionRepository.save(tx);
 
-        user.setCarbonCredits(user.getCarbonCredits() + credits);
-        userRepository.save(user);
+        creditLedger.append(user.getId(), CreditLedger.EntryType.EARN, credits, ride.getId());
+        // The row stays locked until commit, but only for this single increment
+        user.setCarbonSavedGrams(addCarbonSaved(user.getId(), carbonSaved));
+
+        campusTotals.recordCarbon(carbonSaved, credits);
+        rollups.record(user.getDepartment(), ride.getPickupZone(), carbonSaved, credits);
+        leaderboardService.update(user);
+    }
+
+    /**
+     * Atomic increment, so concurrent completions for one user cannot lose each other's grams.
+     * LAST_INSERT_ID(expr) hands the new total back with the UPDATE itself, saving a read.
+     */
+    private long addCarbonSaved(UUID userId, int grams) {
+        KeyHolder newTotal = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "UPDATE users SET carbon_saved_grams = LAST_INSERT_ID(carbon_saved_grams + ?) WHERE id = ?",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, grams);
+            ps.setString(2, userId.toString());
+            return ps;
+        }, newTotal);
+        // The driver reports no key when the new total is 0
+        Number total = newTotal.getKey();
+        return total == null ? 0 : total.longValue();
+    }
+
+    /** Per-rider saving for a ride of the given road distance. */
+    static int carbonSavedGrams(float distanceKm, int savingsPerKmGrams) {
+        return Math.round(distanceKm * savingsPerKmGrams);
+    }
+
+    /** Count a ride towards the campus total; call from the transaction that completes it. */
+    @Transactional
+    public void recordRideCompleted() {
+        campusTotals.recordRideCompleted();
     }
 
+    /**
+     * Wallet totals come from the user row; entries are one keyset page of a column projection.
+     * Pass the returned nextCursor back to continue; it is null on the last page.
+     */
     @Transactional(readOnly = true)
-    public WalletDto getWallet(String email) {
+    public WalletDto getWallet(String email, String cursor, int limit) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> ApiException.notFound("User not found"));
 
-        List<CarbonTransaction> txList = carbonTransactionRepository.findByUserId(user.getId());
-        long totalCarbon = carbonTransactionRepository.sumCarbonSavedByUser(user.getId());
+        int pageSize = Math.max(1, Math.min(limit, MAX_WALLET_PAGE));
+        // Fetch one extra row to know whether another page exists
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<WalletTransactionView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = carbonTransactionRepository.findWalletPage(user.getId(), page);
+        } else {
+            WalletCursor after = WalletCursor.decode(cursor);
+            rows = carbonTransactionRepository.findWalletPageAfter(user.getId(), after.createdAt(), after.id(), page);
+        }
 
-        List<WalletDto.TransactionEntry> entries = txList.stream()
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) rows = rows.subList(0, pageSize);
+
+        List<WalletDto.TransactionEntry> entries = rows.stream()
                 .map(tx -> WalletDto.TransactionEntry.builder()
-                        .rideId(tx.getRide().getId().toString())
+                        .rideId(tx.getRideId().toString())
                         .carbonSavedGrams(tx.getCarbonSavedGrams())
                         .creditsEarned(tx.getCreditsEarned())
                         .createdAt(FMT.format(tx.getCreatedAt()))
                         .build())
                 .collect(Collectors.toList());
 
+        WalletTransactionView last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        long totalCarbon = user.getCarbonSavedGrams();
         return WalletDto.builder()
-                .totalCredits(user.getCarbonCredits())
-                .totalCarbonSavedGrams((int) totalCarbon)
+                .totalCredits(creditLedger.balance(user.getId()))
+                .totalCarbonSavedGrams(totalCarbon)
                 .totalCarbonSavedKg(totalCarbon / 1000.0)
                 .recentTransactions(entries)
+                .nextCursor(hasMore ? new WalletCursor(last.getCreatedAt(), last.getId()).encode() : null)
                 .build();
     }
 
-    @Transactional(readOnly = true)
+    /** Served from the in-memory running totals; no table scans. */
     public CampusSummaryDto getCampusSummary() {
-        long totalCarbon = carbonTransactionRepository.sumAllCarbonSaved();
-        long totalRides = rideRepository.count();
-
+        CampusCarbonTotals.Totals totals = campusTotals.get();
         return CampusSummaryDto.builder()
-                .totalCarbonSavedGrams(totalCarbon)
-                .totalCarbonSavedKg(totalCarbon / 1000.0)
-                .totalRidesCompleted(totalRides)
-                .totalCarbonCreditsIssued(totalCarbon / 100)
+                .totalCarbonSavedGrams(totals.carbonSavedGrams())
+                .totalCarbonSavedKg(totals.carbonSavedGrams() / 1000.0)
+                .totalRidesCompleted(totals.ridesCompleted())
+                .totalCarbonCreditsIssued(totals.creditsIssued())
+                .etag(totals.etag())
+                .build();
+    }
+
+    /**
+     * Carbon savings over [from, to] (inclusive local dates), bucketed by hour, day or week and
+     * optionally split by department or pickup zone. Served from the in-memory rollups.
+     */
+    public CarbonTrendsDto getCampusTrends(String from, String to, String granularity, String groupBy,
+                                           String department, String pickupZone) {
+        ZoneId zone = rollups.zone();
+        LocalDate end = to == null || to.isBlank() ? LocalDate.now(zone) : parseDate(to);
+        LocalDate start = from == null || from.isBlank() ? end.minusDays(29) : parseDate(from);
+        if (start.isAfter(end)) {
+            throw ApiException.badRequest("from must not be after to");
+        }
+        String unit = granularity.toUpperCase(Locale.ROOT);
+        RollupStore.GroupBy grouping = parseGroupBy(groupBy);
+        String dept = department == null || department.isBlank() ? null : department.trim();
+        String pz = pickupZone == null || pickupZone.isBlank() ? null : pickupZone.trim();
+
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        List<CarbonTrendsDto.Series> series;
+        switch (unit) {
+            case "HOUR" -> {
+                if (days > MAX_HOURLY_TREND_DAYS) {
+                    throw ApiException.badRequest("Hourly trends cover at most " + MAX_HOURLY_TREND_DAYS + " days");
+                }
+                if (start.isBefore(LocalDate.now(zone).minusDays(rollups.hourlyRetentionDays()))) {
+                    throw ApiException.badRequest("Hourly trends are kept for "
+                            + rollups.hourlyRetentionDays() + " days; use DAY");
+                }
+                long first = start.toEpochDay() * 24;
+                series = toSeries(rollups.query(RollupStore.Unit.HOUR, first, (end.toEpochDay() + 1) * 24,
+                                grouping, dept, pz), 1,
+                        i -> HOUR_FMT.format(LocalDateTime.ofEpochSecond((first + i) * 3600, 0, ZoneOffset.UTC)));
+            }
+            case "DAY", "WEEK" -> {
+                if (days > MAX_TREND_DAYS) {
+                    throw ApiException.badRequest("Trends cover at most " + MAX_TREND_DAYS + " days");
+                }
+                boolean weekly = unit.equals("WEEK");
+                if (weekly) {
+                    start = start.with(DayOfWeek.MONDAY);
+                    end = end.with(DayOfWeek.SUNDAY);
+                }
+                LocalDate first = start;
+                series = toSeries(rollups.query(RollupStore.Unit.DAY, first.toEpochDay(), end.toEpochDay() + 1,
+                                grouping, dept, pz), weekly ? 7 : 1,
+                        i -> first.plusDays(i).toString());
+            }
+            default -> throw ApiException.badRequest("granularity must be HOUR, DAY or WEEK");
+        }
+
+        return CarbonTrendsDto.builder()
+                .granularity(unit)
+                .groupBy(grouping.name())
+                .from(start.toString())
+                .to(end.toString())
+                .series(series)
                 .build();
     }
+
+    /** Folds every {@code width} consecutive buckets into one point, labelled by its first bucket. */
+    private static List<CarbonTrendsDto.Series> toSeries(List<RollupStore.Result> results, int width,
+                                                         IntFunction<String> label) {
+        List<CarbonTrendsDto.Series> out = new ArrayList<>(results.size());
+        for (RollupStore.Result r : results) {
+            List<CarbonTrendsDto.Point> points = new ArrayList<>(r.grams().length / width);
+            long totalGrams = 0;
+            long totalCredits = 0;
+            for (int i = 0; i < r.grams().length; i += width) {
+                long g = 0, c = 0, n = 0;
+                for (int j = i; j < i + width && j < r.grams().length; j++) {
+                    g += r.grams()[j];
+                    c += r.credits()[j];
+                    n += r.transactions()[j];
+                }
+                totalGrams += g;
+                totalCredits += c;
+                points.add(CarbonTrendsDto.Point.builder()
+                        .bucketStart(label.apply(i))
+                        .carbonSavedGrams(g)
+                        .creditsEarned(c)
+                        .transactions(n)
+                        .build());
+            }
+            out.add(CarbonTrendsDto.Series.builder()
+                    .key(r.key())
+                    .totalCarbonSavedGrams(totalGrams)
+                    .totalCreditsEarned(totalCredits)
+                    .points(points)
+                    .build());
+        }
+        return out;
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw ApiException.badRequest("Dates must be yyyy-MM-dd");
+        }
+    }
+
+    private static RollupStore.GroupBy parseGroupBy(String value) {
+        try {
+            return RollupStore.GroupBy.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("groupBy must be NONE, DEPARTMENT or ZONE");
+        }
+    }
 }
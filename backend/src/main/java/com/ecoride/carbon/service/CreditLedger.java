@@ -0,0 +1,216 @@
+package com.ecoride.carbon.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Append-only carbon credit ledger; the source of truth for credit balances.
+ *
+ * Credit writers only INSERT ledger rows inside their own transaction; there is no balance
+ * column to update. Carbon grams are still a counter on the user row, bumped by an atomic
+ * increment in the same transaction, so completions for one user serialize on that row.
+ *
+ * A balance is a per-user snapshot plus the ledger rows after it. Recently read balances are
+ * kept in a bounded LRU cache, and each read only replays the tail since the cached position.
+ *
+ * Auto-increment seqs are handed out at insert time, not commit time. To keep every user's
+ * committed entries a prefix of their seqs, each append first locks the user's snapshot row, so
+ * entries for one user are inserted and committed one transaction at a time. A reader that sees
+ * a user's seq N has therefore seen all of that user's entries below N, and cached positions and
+ * snapshots can advance to the last visible row without waiting for a settle window.
+ */
+@Slf4j
+@Component
+public class CreditLedger {
+
+    public enum EntryType { EARN, REDEEM, ADJUST }
+
+    /** Balance folded through {@code throughSeq}. */
+    private record Position(long balance, long throughSeq) {
+    }
+
+    private record MissingEarn(UUID userId, int amount, UUID rideId, Timestamp createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<UUID, Position> cache;
+
+    public CreditLedger(JdbcTemplate jdbcTemplate,
+                        TransactionTemplate transactionTemplate,
+                        @Value("${ecoride.credits.cache-size:10000}") int cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Position> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Append an entry in the caller's transaction. {@code referenceId} makes EARN/REDEEM entries
+     * idempotent per user; returns false if that entry already exists.
+     * The user's snapshot row stays locked until the caller commits; a transaction crediting
+     * several users should append in a consistent order (rides credit riders, then the driver).
+     */
+    public boolean append(UUID userId, EntryType type, int amount, UUID referenceId) {
+        lock(userId.toString());
+        int inserted = jdbcTemplate.update("""
+                        INSERT IGNORE INTO credit_ledger (user_id, entry_type, amount, reference_id)
+                        VALUES (?, ?, ?, ?)
+                        """,
+                userId.toString(), type.name(), amount, referenceId == null ? null : referenceId.toString());
+        return inserted > 0;
+    }
+
+    /** Current balance: cached or snapshotted position plus the ledger tail after it. */
+    public long balance(UUID userId) {
+        Position pos = cache.get(userId);
+        if (pos == null) pos = loadSnapshot(userId);
+
+        long[] folded = {pos.balance(), pos.throughSeq()};
+        jdbcTemplate.query("""
+                        SELECT seq, amount
+                        FROM credit_ledger
+                        WHERE user_id = ? AND seq > ?
+                        ORDER BY seq
+                        """,
+                rs -> {
+                    folded[0] += rs.getInt(2);
+                    folded[1] = rs.getLong(1);
+                },
+                userId.toString(), pos.throughSeq());
+
+        // Visible entries are a prefix of the user's seqs (see class comment), so this never skips one
+        cache.put(userId, new Position(folded[0], folded[1]));
+        return folded[0];
+    }
+
+    /**
+     * Authoritative balance for a debit decision; must run inside the debiting transaction.
+     * Locks the user's snapshot row, which every append for the user takes first, so no other
+     * entry for this user can be written until the debiting transaction commits. The tail is
+     * summed with a locking read so it sees every committed entry, not the transaction's read view.
+     * Keep debiting transactions short; other users' entries are not affected.
+     */
+    public long lockBalance(UUID userId) {
+        String id = userId.toString();
+        Position pos = lock(id);
+        Long tail = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(amount), 0) FROM credit_ledger WHERE user_id = ? AND seq > ? FOR UPDATE",
+                Long.class, id, pos.throughSeq());
+        return pos.balance() + (tail == null ? 0 : tail);
+    }
+
+    /**
+     * Locks the user's snapshot row for the rest of the transaction, creating it if missing.
+     * The row is locked before any insert is tried: INSERT IGNORE on an existing row takes a
+     * shared lock, and two appenders upgrading shared locks to exclusive would deadlock.
+     */
+    private Position lock(String userId) {
+        List<Position> rows = lockSnapshot(userId);
+        if (rows.isEmpty()) {
+            jdbcTemplate.update(
+                    "INSERT IGNORE INTO credit_snapshots (user_id, balance, through_seq) VALUES (?, 0, 0)", userId);
+            rows = lockSnapshot(userId);
+        }
+        return rows.get(0);
+    }
+
+    private List<Position> lockSnapshot(String userId) {
+        return jdbcTemplate.query(
+                "SELECT balance, through_seq FROM credit_snapshots WHERE user_id = ? FOR UPDATE",
+                (rs, i) -> new Position(rs.getLong(1), rs.getLong(2)), userId);
+    }
+
+    private Position loadSnapshot(UUID userId) {
+        List<Position> rows = jdbcTemplate.query(
+                "SELECT balance, through_seq FROM credit_snapshots WHERE user_id = ?",
+                (rs, i) -> new Position(rs.getLong(1), rs.getLong(2)), userId.toString());
+        return rows.isEmpty() ? new Position(0, 0) : rows.get(0);
+    }
+
+    /**
+     * Fold committed ledger rows into the snapshots, each user through their own last visible seq.
+     * The new balance is computed from the old snapshot and written together with its position,
+     * so overlapping runs on several nodes always leave a consistent (balance, through_seq) pair.
+     * A user with an append in flight is folded after that append commits, since the upsert
+     * waits on the snapshot row the appender holds.
+     */
+    @Scheduled(fixedDelayString = "${ecoride.credits.snapshot-ms:300000}")
+    public void snapshot() {
+        int users = jdbcTemplate.update("""
+                INSERT INTO credit_snapshots (user_id, balance, through_seq)
+                SELECT l.user_id, COALESCE(MAX(s.balance), 0) + SUM(l.amount), MAX(l.seq)
+                FROM credit_ledger l
+                LEFT JOIN credit_snapshots s ON s.user_id = l.user_id
+                WHERE l.seq > COALESCE(s.through_seq, 0)
+                GROUP BY l.user_id
+                ON DUPLICATE KEY UPDATE balance = VALUES(balance), through_seq = VALUES(through_seq)
+                """);
+        if (users > 0) log.debug("Credit snapshots advanced ({} rows affected)", users);
+    }
+
+    /**
+     * Verify the ledger against its inputs and its snapshots:
+     * every carbon transaction has its EARN entry, and every snapshot equals the sum of the
+     * ledger through its position. Missing earnings are appended; bad snapshots are rebuilt.
+     */
+    @Scheduled(cron = "${ecoride.credits.reconcile-cron:0 45 3 * * *}")
+    public void reconcile() {
+        List<MissingEarn> earns = jdbcTemplate.query("""
+                        SELECT ct.user_id, ct.credits_earned, ct.ride_id, ct.created_at
+                        FROM carbon_transactions ct
+                        LEFT JOIN credit_ledger l
+                               ON l.user_id = ct.user_id AND l.entry_type = 'EARN' AND l.reference_id = ct.ride_id
+                        WHERE l.seq IS NULL
+                        """,
+                (rs, i) -> new MissingEarn(UUID.fromString(rs.getString(1)), rs.getInt(2),
+                        UUID.fromString(rs.getString(3)), rs.getTimestamp(4)));
+        // One short transaction per entry, through the same per-user lock as append()
+        int missing = 0;
+        for (MissingEarn earn : earns) {
+            Integer inserted = transactionTemplate.execute(status -> {
+                lock(earn.userId().toString());
+                return jdbcTemplate.update("""
+                                INSERT IGNORE INTO credit_ledger (user_id, entry_type, amount, reference_id, created_at)
+                                VALUES (?, 'EARN', ?, ?, ?)
+                                """,
+                        earn.userId().toString(), earn.amount(), earn.rideId().toString(), earn.createdAt());
+            });
+            if (inserted != null) missing += inserted;
+        }
+        if (missing > 0) log.warn("Credit ledger was missing {} EARN entries; appended", missing);
+
+        List<UUID> drifted = jdbcTemplate.query("""
+                        SELECT s.user_id
+                        FROM credit_snapshots s
+                        LEFT JOIN (SELECT l.user_id, SUM(l.amount) AS total
+                                   FROM credit_ledger l
+                                   JOIN credit_snapshots s2 ON s2.user_id = l.user_id AND l.seq <= s2.through_seq
+                                   GROUP BY l.user_id) t ON t.user_id = s.user_id
+                        WHERE s.balance <> COALESCE(t.total, 0)
+                        """,
+                (rs, i) -> UUID.fromString(rs.getString(1)));
+        for (UUID userId : drifted) {
+            log.warn("Credit snapshot for user {} disagrees with the ledger; rebuilding", userId);
+            jdbcTemplate.update("""
+                    UPDATE credit_snapshots s
+                    SET s.balance = (SELECT COALESCE(SUM(l.amount), 0) FROM credit_ledger l
+                                     WHERE l.user_id = s.user_id AND l.seq <= s.through_seq)
+                    WHERE s.user_id = ?
+                    """, userId.toString());
+            cache.remove(userId);
+        }
+        if (missing > 0) cache.clear();
+    }
+}
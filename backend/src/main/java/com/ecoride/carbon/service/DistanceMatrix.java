@@ -0,0 +1,122 @@
+package com.ecoride.carbon.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Precomputed pickup zone → destination road distances, loaded once at startup.
+ * Names are mapped to canonical row/column ids and the distances live in one flat float array,
+ * with every gap already filled from the defaults, so a lookup is two hash probes and an array read.
+ */
+@Slf4j
+@Component
+public class DistanceMatrix {
+
+    private static final String ANY = "*";
+
+    private final Map<String, Integer> zoneIds = new HashMap<>();
+    private final Map<String, Integer> destinationIds = new HashMap<>();
+    private final int defaultZone;
+    private final int defaultDestination;
+    private final float[] km;
+    private final int columns;
+    private final float fallbackKm;
+    private final String version;
+
+    public DistanceMatrix(@Value("${ecoride.carbon.distance-matrix.location:classpath:carbon/zone-distances.csv}")
+                          Resource location,
+                          @Value("${ecoride.carbon.distance-matrix.fallback-km:10}") float fallbackKm) throws IOException {
+        this.fallbackKm = fallbackKm;
+        byte[] bytes;
+        try (InputStream in = location.getInputStream()) {
+            bytes = in.readAllBytes();
+        }
+        this.version = sha256(bytes).substring(0, 16);
+
+        List<String[]> rows = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.UTF_8).split("\\R")) {
+            if (line.isBlank() || line.startsWith("#")) continue;
+            rows.add(line.split(",", -1));
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Distance matrix " + location + " has no header");
+        }
+
+        String[] header = rows.get(0);
+        this.columns = header.length - 1;
+        for (int c = 1; c < header.length; c++) {
+            destinationIds.put(canonical(header[c]), c - 1);
+        }
+        int zones = rows.size() - 1;
+        float[] raw = new float[zones * columns];
+        Arrays.fill(raw, Float.NaN);
+        for (int r = 1; r < rows.size(); r++) {
+            String[] row = rows.get(r);
+            zoneIds.put(canonical(row[0]), r - 1);
+            for (int c = 1; c < row.length && c <= columns; c++) {
+                String cell = row[c].trim();
+                if (!cell.isEmpty()) raw[(r - 1) * columns + c - 1] = Float.parseFloat(cell);
+            }
+        }
+        this.defaultZone = zoneIds.getOrDefault(ANY, -1);
+        this.defaultDestination = destinationIds.getOrDefault(ANY, -1);
+
+        // Fill gaps once so lookups never branch on missing data
+        this.km = new float[raw.length];
+        for (int z = 0; z < zones; z++) {
+            for (int d = 0; d < columns; d++) {
+                km[z * columns + d] = resolve(raw, z, d);
+            }
+        }
+        log.info("Loaded distance matrix {} ({} zones x {} destinations)", version, zones, columns);
+    }
+
+    /** Hash of the matrix file; changes whenever any distance changes. */
+    public String version() {
+        return version;
+    }
+
+    /** Road distance for a ride; unknown zones and destinations use the "*" defaults. */
+    public float distanceKm(String pickupZone, String destination) {
+        int z = zoneIds.getOrDefault(canonical(pickupZone), defaultZone);
+        int d = destination == null || destination.isBlank()
+                ? defaultDestination
+                : destinationIds.getOrDefault(canonical(destination), defaultDestination);
+        if (z < 0 || d < 0) return fallbackKm;
+        return km[z * columns + d];
+    }
+
+    private float resolve(float[] raw, int z, int d) {
+        float v = raw[z * columns + d];
+        if (!Float.isNaN(v)) return v;
+        if (defaultDestination >= 0 && !Float.isNaN(raw[z * columns + defaultDestination])) {
+            return raw[z * columns + defaultDestination];
+        }
+        if (defaultZone >= 0 && !Float.isNaN(raw[defaultZone * columns + d])) {
+            return raw[defaultZone * columns + d];
+        }
+        return fallbackKm;
+    }
+
+    /** Trimmed, lower-cased, inner whitespace collapsed. */
+    static String canonical(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
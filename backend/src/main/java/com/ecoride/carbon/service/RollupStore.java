@@ -0,0 +1,128 @@
+package com.ecoride.carbon.service;
+
+import java.util.*;
+
+/**
+ * Columnar in-memory copy of the carbon rollups.
+ * Each (department, zone) pair is a series of dense primitive columns indexed by bucket number
+ * (local epoch hour or local epoch day), so a range query is a straight array walk per series.
+ * Not thread-safe on its own; all access goes through the synchronized methods.
+ */
+final class RollupStore {
+
+    enum Unit { HOUR, DAY }
+
+    enum GroupBy { NONE, DEPARTMENT, ZONE }
+
+    /** Summed columns for one group over buckets [from, from + length). */
+    record Result(String key, long[] grams, long[] credits, long[] transactions) {
+    }
+
+    private static final class Series {
+        final int departmentId;
+        final int zoneId;
+        long base;
+        long[] grams = new long[0];
+        long[] credits = new long[0];
+        long[] transactions = new long[0];
+
+        Series(int departmentId, int zoneId) {
+            this.departmentId = departmentId;
+            this.zoneId = zoneId;
+        }
+
+        void add(long bucket, long g, long c, long n) {
+            ensure(bucket);
+            int i = (int) (bucket - base);
+            grams[i] += g;
+            credits[i] += c;
+            transactions[i] += n;
+        }
+
+        void sumInto(long from, long to, long[] g, long[] c, long[] n) {
+            long lo = Math.max(from, base);
+            long hi = Math.min(to, base + grams.length);
+            for (long b = lo; b < hi; b++) {
+                int src = (int) (b - base);
+                int dst = (int) (b - from);
+                g[dst] += grams[src];
+                c[dst] += credits[src];
+                n[dst] += transactions[src];
+            }
+        }
+
+        private void ensure(long bucket) {
+            int length = grams.length;
+            if (length == 0) {
+                base = bucket;
+                resize(0, 16);
+            } else if (bucket < base) {
+                int shift = (int) Math.max(base - bucket, length / 2);
+                base -= shift;
+                resize(shift, length + shift);
+            } else if (bucket >= base + length) {
+                resize(0, (int) Math.max(bucket - base + 1, length * 2L));
+            }
+        }
+
+        private void resize(int offset, int capacity) {
+            grams = copy(grams, offset, capacity);
+            credits = copy(credits, offset, capacity);
+            transactions = copy(transactions, offset, capacity);
+        }
+
+        private static long[] copy(long[] src, int offset, int capacity) {
+            long[] dst = new long[capacity];
+            System.arraycopy(src, 0, dst, offset, src.length);
+            return dst;
+        }
+    }
+
+    private final List<String> departments = new ArrayList<>();
+    private final Map<String, Integer> departmentIds = new HashMap<>();
+    private final List<String> zones = new ArrayList<>();
+    private final Map<String, Integer> zoneIds = new HashMap<>();
+    private final EnumMap<Unit, Map<Long, Series>> series = new EnumMap<>(Map.of(
+            Unit.HOUR, new HashMap<>(), Unit.DAY, new HashMap<>()));
+
+    synchronized void add(Unit unit, long bucket, String department, String zone,
+                          long grams, long credits, long transactions) {
+        int d = intern(department, departments, departmentIds);
+        int z = intern(zone, zones, zoneIds);
+        series.get(unit).computeIfAbsent(((long) d << 32) | z, k -> new Series(d, z))
+                .add(bucket, grams, credits, transactions);
+    }
+
+    /**
+     * Sum buckets [from, to) per group. Filters are exact matches; null means no filter.
+     * Groups appear in first-seen order.
+     */
+    synchronized List<Result> query(Unit unit, long from, long to, GroupBy groupBy,
+                                    String department, String zone) {
+        int length = (int) (to - from);
+        Integer departmentFilter = department == null ? null : departmentIds.getOrDefault(department, -1);
+        Integer zoneFilter = zone == null ? null : zoneIds.getOrDefault(zone, -1);
+
+        Map<String, Result> groups = new LinkedHashMap<>();
+        for (Series s : series.get(unit).values()) {
+            if (departmentFilter != null && s.departmentId != departmentFilter) continue;
+            if (zoneFilter != null && s.zoneId != zoneFilter) continue;
+            String key = switch (groupBy) {
+                case NONE -> "campus";
+                case DEPARTMENT -> departments.get(s.departmentId);
+                case ZONE -> zones.get(s.zoneId);
+            };
+            Result r = groups.computeIfAbsent(key,
+                    k -> new Result(k, new long[length], new long[length], new long[length]));
+            s.sumInto(from, to, r.grams(), r.credits(), r.transactions());
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    private static int intern(String value, List<String> values, Map<String, Integer> ids) {
+        return ids.computeIfAbsent(value, v -> {
+            values.add(v);
+            return values.size() - 1;
+        });
+    }
+}
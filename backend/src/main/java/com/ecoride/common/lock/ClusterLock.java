@@ -0,0 +1,45 @@
+package com.ecoride.common.lock;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Runs a job on at most one node at a time, using a MySQL named lock (GET_LOCK).
+ *
+ * The lock belongs to the connection that took it, so that connection is held for the whole job;
+ * the job itself runs its statements on other pooled connections. If the node dies the session
+ * ends and MySQL frees the lock.
+ */
+@Component
+@RequiredArgsConstructor
+public class ClusterLock {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Runs the job if no other node holds the lock; returns false without running it otherwise. */
+    public boolean runExclusively(String name, Runnable job) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            try (PreparedStatement lock = con.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                lock.setString(1, name);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) return false;
+                }
+            }
+            try {
+                job.run();
+                return true;
+            } finally {
+                try (PreparedStatement release = con.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    release.setString(1, name);
+                    release.execute();
+                }
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+}
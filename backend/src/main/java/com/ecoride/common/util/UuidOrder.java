@@ -0,0 +1,28 @@
+package com.ecoride.common.util;
+
+import java.util.UUID;
+
+/**
+ * Ordering of user ids as stored. Ids live in VARCHAR(36) columns, so pair tables that enforce
+ * {@code user1_id < user2_id} compare them as strings. {@link UUID#compareTo} compares signed
+ * longs and disagrees with that for about half of all pairs, so it must not be used for keys.
+ */
+public final class UuidOrder {
+
+    private UuidOrder() {
+    }
+
+    public static int compare(UUID a, UUID b) {
+        return a.toString().compareTo(b.toString());
+    }
+
+    /** The id stored in user1_id for the pair. */
+    public static UUID lower(UUID a, UUID b) {
+        return compare(a, b) <= 0 ? a : b;
+    }
+
+    /** The id stored in user2_id for the pair. */
+    public static UUID higher(UUID a, UUID b) {
+        return compare(a, b) <= 0 ? b : a;
+    }
+}
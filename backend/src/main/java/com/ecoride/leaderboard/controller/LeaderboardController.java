@@ -0,0 +1,26 @@
+package com.ecoride.leaderboard.controller;
+
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.leaderboard.dto.LeaderboardDto;
+import com.ecoride.leaderboard.service.LeaderboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/leaderboard")
+@RequiredArgsConstructor
+public class LeaderboardController {
+
+    private final LeaderboardService leaderboardService;
+
+    /** metric is one of carbon, credits, trust; omit department for the campus-wide board. */
+    @GetMapping("/{metric}")
+    public ApiResponse<LeaderboardDto> getLeaderboard(@AuthenticationPrincipal UserDetails principal,
+                                                      @PathVariable String metric,
+                                                      @RequestParam(required = false) String department,
+                                                      @RequestParam(defaultValue = "10") int limit) {
+        return ApiResponse.ok(leaderboardService.getLeaderboard(principal.getUsername(), metric, department, limit));
+    }
+}
@@ -0,0 +1,27 @@
+package com.ecoride.leaderboard.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class LeaderboardDto {
+    @Data
+    @Builder
+    public static class EntryDto {
+        private int rank;           // 1-based
+        private UUID userId;
+        private String name;
+        private String department;
+        private long score;
+    }
+
+    private String metric;          // CARBON, CREDITS, TRUST
+    private String department;      // null for campus-wide
+    private int totalRanked;
+    private List<EntryDto> entries;
+    private EntryDto me;            // caller's own position, null if not on this board
+}
@@ -0,0 +1,270 @@
+package com.ecoride.leaderboard.service;
+
+import com.ecoride.carbon.service.CreditLedger;
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.transaction.AfterCommit;
+import com.ecoride.leaderboard.dto.LeaderboardDto;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory campus and per-department leaderboards for carbon saved, credits and trust.
+ *
+ * Each board is an order-statistic tree, so top-K and a user's own rank are O(log n) without
+ * touching the users table. Writers push a user's absolute totals after their transaction
+ * commits; a periodic rebuild from the database picks up changes made on other nodes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaderboardService {
+
+    public enum Metric { CARBON, CREDITS, TRUST }
+
+    private static final int MAX_LIMIT = 100;
+    /** Smallest UUID under UUID#compareTo; ranks ahead of nobody with the same score. */
+    private static final UUID LOWEST_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private record Standing(String department, long carbonSavedGrams, long credits, long trust) {
+
+        long score(Metric metric) {
+            return switch (metric) {
+                case CARBON -> carbonSavedGrams;
+                case CREDITS -> credits;
+                case TRUST -> trust;
+            };
+        }
+
+        static Standing of(User user, long credits) {
+            return new Standing(user.getDepartment(), user.getCarbonSavedGrams(), credits, user.getTrustScore());
+        }
+    }
+
+    /** All boards plus the standing each user is currently filed under. */
+    private static final class Boards {
+        final Map<UUID, Standing> standings = new HashMap<>();
+        final EnumMap<Metric, RankTree> campus = new EnumMap<>(Metric.class);
+        final EnumMap<Metric, Map<String, RankTree>> byDepartment = new EnumMap<>(Metric.class);
+
+        Boards() {
+            for (Metric m : Metric.values()) {
+                campus.put(m, new RankTree());
+                byDepartment.put(m, new HashMap<>());
+            }
+        }
+
+        void put(UUID userId, Standing next) {
+            Standing prev = standings.put(userId, next);
+            if (next.equals(prev)) return;
+            String prevDept = prev == null ? null : departmentKey(prev.department());
+            String nextDept = departmentKey(next.department());
+            for (Metric m : Metric.values()) {
+                if (prev != null) {
+                    campus.get(m).remove(prev.score(m), userId);
+                    if (prevDept != null) {
+                        RankTree tree = byDepartment.get(m).get(prevDept);
+                        tree.remove(prev.score(m), userId);
+                        if (tree.size() == 0) byDepartment.get(m).remove(prevDept);
+                    }
+                }
+                campus.get(m).insert(next.score(m), userId);
+                if (nextDept != null) {
+                    byDepartment.get(m).computeIfAbsent(nextDept, k -> new RankTree()).insert(next.score(m), userId);
+                }
+            }
+        }
+
+        RankTree board(Metric metric, String departmentKey) {
+            return departmentKey == null ? campus.get(metric) : byDepartment.get(metric).get(departmentKey);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final CreditLedger creditLedger;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Boards boards = new Boards();
+    /** Non-null while a rebuild scans the table; updates landing meanwhile are replayed on top. */
+    private Map<UUID, Standing> updatedDuringRebuild;
+
+    /**
+     * Publish the user's current totals once the surrounding transaction commits.
+     * Call after mutating the entity; its fields are captured immediately, the credit balance
+     * is read from the ledger once the transaction has committed.
+     */
+    public void update(User user) {
+        UUID userId = user.getId();
+        String department = user.getDepartment();
+        long carbonSavedGrams = user.getCarbonSavedGrams();
+        long trust = user.getTrustScore();
+        AfterCommit.run(() -> apply(userId,
+                new Standing(department, carbonSavedGrams, creditLedger.balance(userId), trust)));
+    }
+
+    public LeaderboardDto getLeaderboard(String email, String metricName, String department, int limit) {
+        User me = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+        Metric metric = parseMetric(metricName);
+        String deptKey = departmentKey(department);
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        if (!isRanked(me.getId())) {
+            // Not on the boards yet, e.g. registered since the last rebuild
+            apply(me.getId(), Standing.of(me, creditLedger.balance(me.getId())));
+        }
+
+        List<RankTree.Entry> top = List.of();
+        int total = 0;
+        LeaderboardDto.EntryDto mine = null;
+        lock.readLock().lock();
+        try {
+            RankTree tree = boards.board(metric, deptKey);
+            Standing myStanding = boards.standings.get(me.getId());
+            if (tree != null) {
+                top = tree.top(k);
+                total = tree.size();
+                if (myStanding != null
+                        && (deptKey == null || deptKey.equals(departmentKey(myStanding.department())))) {
+                    long score = myStanding.score(metric);
+                    mine = LeaderboardDto.EntryDto.builder()
+                            .rank(tree.rank(score, LOWEST_ID) + 1)
+                            .userId(me.getId())
+                            .name(me.getName())
+                            .department(me.getDepartment())
+                            .score(score)
+                            .build();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<UUID, User> users = userRepository.findAllById(top.stream().map(RankTree.Entry::userId).toList())
+                .stream().collect(Collectors.toMap(User::getId, Function.identity()));
+        List<LeaderboardDto.EntryDto> entries = new ArrayList<>(top.size());
+        int rank = 0;
+        long previous = Long.MIN_VALUE;
+        for (int i = 0; i < top.size(); i++) {
+            RankTree.Entry e = top.get(i);
+            // Standard competition ranking: equal scores share a rank
+            if (i == 0 || e.score() != previous) rank = i + 1;
+            previous = e.score();
+            User u = users.get(e.userId());
+            entries.add(LeaderboardDto.EntryDto.builder()
+                    .rank(rank)
+                    .userId(e.userId())
+                    .name(u != null ? u.getName() : null)
+                    .department(u != null ? u.getDepartment() : null)
+                    .score(e.score())
+                    .build());
+        }
+
+        return LeaderboardDto.builder()
+                .metric(metric.name())
+                .department(deptKey == null ? null : department.trim())
+                .totalRanked(total)
+                .entries(entries)
+                .me(mine)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ecoride.leaderboard.rebuild-ms:600000}",
+               initialDelayString = "${ecoride.leaderboard.rebuild-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            updatedDuringRebuild = new HashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Boards fresh = new Boards();
+        boolean complete = false;
+        try {
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(
+                        """
+                        SELECT u.id, u.department, u.carbon_saved_grams, u.trust_score,
+                               COALESCE(s.balance, 0)
+                                 + (SELECT COALESCE(SUM(l.amount), 0) FROM credit_ledger l
+                                    WHERE l.user_id = u.id AND l.seq > COALESCE(s.through_seq, 0)) AS credits
+                        FROM users u
+                        LEFT JOIN credit_snapshots s ON s.user_id = u.id
+                        """,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+                return ps;
+            }, rs -> {
+                fresh.put(UUID.fromString(rs.getString("id")), new Standing(
+                        rs.getString("department"),
+                        rs.getLong("carbon_saved_grams"),
+                        rs.getLong("credits"),
+                        rs.getLong("trust_score")));
+            });
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (complete) {
+                    updatedDuringRebuild.forEach(fresh::put);
+                    boards = fresh;
+                }
+                updatedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Leaderboards rebuilt: {} users in {} ms",
+                fresh.standings.size(), System.currentTimeMillis() - start);
+    }
+
+    private boolean isRanked(UUID userId) {
+        lock.readLock().lock();
+        try {
+            return boards.standings.containsKey(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(UUID userId, Standing standing) {
+        lock.writeLock().lock();
+        try {
+            boards.put(userId, standing);
+            if (updatedDuringRebuild != null) updatedDuringRebuild.put(userId, standing);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Metric parseMetric(String name) {
+        try {
+            return Metric.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw ApiException.badRequest("Unknown leaderboard: " + name);
+        }
+    }
+
+    /** Departments are free text; group them case-insensitively. Null means campus-wide / none. */
+    private static String departmentKey(String department) {
+        if (department == null || department.isBlank()) return null;
+        return department.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecoride.leaderboard.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Order-statistic treap: keys are (score DESC, userId ASC) and every node carries its subtree size,
+ * so insert, remove and rank-of are O(log n) and top-K is O(log n + K).
+ * Not thread-safe; callers synchronize.
+ */
+final class RankTree {
+
+    record Entry(UUID userId, long score) {
+    }
+
+    private static final class Node {
+        final long score;
+        final UUID userId;
+        final int priority;
+        int size = 1;
+        Node left;
+        Node right;
+
+        Node(long score, UUID userId, int priority) {
+            this.score = score;
+            this.userId = userId;
+            this.priority = priority;
+        }
+    }
+
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    int size() {
+        return size(root);
+    }
+
+    void insert(long score, UUID userId) {
+        root = insert(root, new Node(score, userId, random.nextInt()));
+    }
+
+    void remove(long score, UUID userId) {
+        root = remove(root, score, userId);
+    }
+
+    /** Zero-based position of the key, i.e. how many entries rank strictly ahead of it. */
+    int rank(long score, UUID userId) {
+        int ahead = 0;
+        Node n = root;
+        while (n != null) {
+            int c = compare(score, userId, n);
+            if (c < 0) {
+                n = n.left;
+            } else if (c > 0) {
+                ahead += size(n.left) + 1;
+                n = n.right;
+            } else {
+                return ahead + size(n.left);
+            }
+        }
+        return ahead;
+    }
+
+    List<Entry> top(int k) {
+        List<Entry> out = new ArrayList<>(Math.min(k, size()));
+        Deque<Node> stack = new ArrayDeque<>();
+        Node n = root;
+        while ((n != null || !stack.isEmpty()) && out.size() < k) {
+            while (n != null) {
+                stack.push(n);
+                n = n.left;
+            }
+            n = stack.pop();
+            out.add(new Entry(n.userId, n.score));
+            n = n.right;
+        }
+        return out;
+    }
+
+    private Node insert(Node n, Node fresh) {
+        if (n == null) return fresh;
+        if (fresh.priority > n.priority) {
+            Node[] parts = split(n, fresh.score, fresh.userId);
+            fresh.left = parts[0];
+            fresh.right = parts[1];
+            return update(fresh);
+        }
+        if (compare(fresh.score, fresh.userId, n) < 0) {
+            n.left = insert(n.left, fresh);
+        } else {
+            n.right = insert(n.right, fresh);
+        }
+        return update(n);
+    }
+
+    private Node remove(Node n, long score, UUID userId) {
+        if (n == null) return null;
+        int c = compare(score, userId, n);
+        if (c == 0) return merge(n.left, n.right);
+        if (c < 0) {
+            n.left = remove(n.left, score, userId);
+        } else {
+            n.right = remove(n.right, score, userId);
+        }
+        return update(n);
+    }
+
+    /** Splits into keys ranking before (score, userId) and the rest. */
+    private Node[] split(Node n, long score, UUID userId) {
+        if (n == null) return new Node[]{null, null};
+        if (compare(score, userId, n) > 0) {
+            Node[] parts = split(n.right, score, userId);
+            n.right = parts[0];
+            return new Node[]{update(n), parts[1]};
+        }
+        Node[] parts = split(n.left, score, userId);
+        n.left = parts[1];
+        return new Node[]{parts[0], update(n)};
+    }
+
+    private Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        }
+        b.left = merge(a, b.left);
+        return update(b);
+    }
+
+    /** Negative when the key ranks ahead of the node: higher score first, then lower user id. */
+    private static int compare(long score, UUID userId, Node n) {
+        if (score != n.score) return score > n.score ? -1 : 1;
+        return userId.compareTo(n.userId);
+    }
+
+    private static Node update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        return n;
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+}
@@ -24,4 +24,5 @@ public class MatchResultDto {
     private int departmentMatchBonus;
     private int timeProximityScore;
     private int trustBonus;
+    private Integer driverTrustPercentile;
 }
@@ -4,6 +4,7 @@ import com.ecoride.matching.dto.MatchResultDto;
 import com.ecoride.ride.entity.Ride;
 import com.ecoride.ride.repository.RideRepository;
 import com.ecoride.trust.repository.TrustConnectionRepository;
+import com.ecoride.trust.service.TrustRankEngine;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -28,6 +29,7 @@ public class MatchingService {
     private final RideRepository rideRepository;
     private final UserRepository userRepository;
     private final TrustConnectionRepository trustConnectionRepository;
+    private final TrustRankEngine trustRankEngine;
 
     /**
      * Find top-N matching rides for a given zone and requested departure time.
@@ -35,7 +37,7 @@ public class MatchingService {
      *   - Base: 50 points
      *   - Time proximity (within 30 min): 0–30 points
      *   - Same department as driver: 10 points
-     *   - Existing trust connection: 10 points
+     *   - Existing trust connection: 10 points, otherwise the driver's trust rank percentile / 10
      */
     @Transactional(readOnly = true)
     public List<MatchResultDto> findMatches(String zone, String destination, Instant requestedTime, String requesterEmail) {
@@ -70,13 +72,14 @@ public class MatchingService {
             deptBonus = 10;
         }
 
-        // Trust bonus
-        int trustBonus = 0;
+        // Trust bonus: a direct connection, or failing that how trusted the driver is campus-wide
+        TrustRankEngine.Rank driverRank = trustRankEngine.get(ride.getDriver().getId());
+        int trustBonus = driverRank != null ? driverRank.percentile() / 10 : 0;
         if (requesterId != null) {
             boolean hasTrust = trustConnectionRepository
                     .findBetween(requesterId, ride.getDriver().getId())
                     .isPresent();
-            trustBonus = hasTrust ? 10 : 0;
+            if (hasTrust) trustBonus = 10;
         }
 
         int totalScore = base + timeScore + deptBonus + trustBonus;
@@ -93,6 +96,7 @@ public class MatchingService {
                 .timeProximityScore(timeScore)
                 .departmentMatchBonus(deptBonus)
                 .trustBonus(trustBonus)
+                .driverTrustPercentile(driverRank != null ? driverRank.percentile() : null)
                 .build();
     }
 }
@@ -3,6 +3,7 @@ package com.ecoride.messaging.controller;
 import com.ecoride.common.response.ApiResponse;
 import com.ecoride.messaging.dto.ConversationDto;
 import com.ecoride.messaging.dto.MessageDto;
+import com.ecoride.messaging.dto.MessageSearchHitDto;
 import com.ecoride.messaging.dto.SendMessageRequest;
 import com.ecoride.messaging.service.MessagingService;
 import jakarta.validation.Valid;
@@ -26,6 +27,13 @@ public class MessagingController {
         return ApiResponse.ok(messagingService.getConversations(principal.getUsername()));
     }
 
+    @GetMapping("/search")
+    public ApiResponse<List<MessageSearchHitDto>> search(@AuthenticationPrincipal UserDetails principal,
+                                                         @RequestParam String q,
+                                                         @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.ok(messagingService.search(principal.getUsername(), q, limit));
+    }
+
     @GetMapping("/{peerId:[0-9a-fA-F\\-]{36}}")
     public ApiResponse<List<MessageDto>> getConversation(@AuthenticationPrincipal UserDetails principal,
                                                          @PathVariable UUID peerId) {
@@ -0,0 +1,18 @@
+package com.ecoride.messaging.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+public class MessageSearchHitDto {
+    private UUID messageId;
+    private UUID peerId;
+    private UUID senderId;
+    private String content;
+    private Instant createdAt;
+    private double score;
+}
@@ -0,0 +1,49 @@
+package com.ecoride.messaging.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Sparse index entry pointing at one compressed block of archived messages.
+ * Canonical ordering: user1_id < user2_id.
+ */
+@Entity
+@Table(name = "message_archive_blocks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MessageArchiveBlock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user1_id", nullable = false)
+    private UUID user1Id;
+
+    @Column(name = "user2_id", nullable = false)
+    private UUID user2Id;
+
+    @Column(name = "segment_no", nullable = false)
+    private int segmentNo;
+
+    @Column(name = "file_offset", nullable = false)
+    private long fileOffset;
+
+    @Column(name = "block_length", nullable = false)
+    private int blockLength;
+
+    @Column(name = "message_count", nullable = false)
+    private int messageCount;
+
+    @Column(name = "first_created_at", nullable = false)
+    private Instant firstCreatedAt;
+
+    @Column(name = "last_created_at", nullable = false)
+    private Instant lastCreatedAt;
+}
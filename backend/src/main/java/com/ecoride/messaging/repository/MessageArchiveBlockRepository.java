@@ -0,0 +1,24 @@
+package com.ecoride.messaging.repository;
+
+import com.ecoride.messaging.entity.MessageArchiveBlock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface MessageArchiveBlockRepository extends JpaRepository<MessageArchiveBlock, Long> {
+
+    List<MessageArchiveBlock> findByUser1IdAndUser2IdOrderByFirstCreatedAtAsc(UUID user1Id, UUID user2Id);
+
+    Optional<MessageArchiveBlock> findTopByUser1IdAndUser2IdOrderByLastCreatedAtDesc(UUID user1Id, UUID user2Id);
+
+    @Query("""
+            SELECT DISTINCT CASE WHEN b.user1Id = :userId THEN b.user2Id ELSE b.user1Id END
+            FROM MessageArchiveBlock b
+            WHERE b.user1Id = :userId OR b.user2Id = :userId
+            """)
+    List<UUID> findArchivedPeerIds(@Param("userId") UUID userId);
+}
@@ -0,0 +1,202 @@
+package com.ecoride.messaging.service;
+
+import com.ecoride.common.lock.ClusterLock;
+import com.ecoride.common.util.UuidOrder;
+import com.ecoride.messaging.entity.MessageArchiveBlock;
+import com.ecoride.messaging.repository.MessageArchiveBlockRepository;
+import com.ecoride.messaging.service.MessageSegmentStore.ArchivedMessage;
+import com.ecoride.messaging.service.MessageSegmentStore.BlockRef;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Moves cold messages out of MySQL into {@link MessageSegmentStore} segment files.
+ *
+ * Only read messages older than max-age-days are archived, so unread counts never need the archive.
+ * Blocks are fsynced before their index rows and the hot-table delete commit together. Every node
+ * runs the cron but only the one holding the archive lock appends, so segment numbers and offsets
+ * in the shared index are unambiguous.
+ */
+@Slf4j
+@Service
+public class MessageArchiveService {
+
+    private final MessageSegmentStore segmentStore;
+    private final MessageArchiveBlockRepository blockRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterLock clusterLock;
+    private final boolean enabled;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final int blockSize;
+
+    public MessageArchiveService(
+            MessageSegmentStore segmentStore,
+            MessageArchiveBlockRepository blockRepository,
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ClusterLock clusterLock,
+            @Value("${ecoride.messaging.archive.enabled:false}") boolean enabled,
+            @Value("${ecoride.messaging.archive.max-age-days:180}") int maxAgeDays,
+            @Value("${ecoride.messaging.archive.batch-size:5000}") int batchSize,
+            @Value("${ecoride.messaging.archive.block-size:256}") int blockSize) {
+        this.segmentStore = segmentStore;
+        this.blockRepository = blockRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterLock = clusterLock;
+        this.enabled = enabled;
+        this.maxAge = Duration.ofDays(maxAgeDays);
+        this.batchSize = Math.max(1, batchSize);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Scheduled(cron = "${ecoride.messaging.archive.cron:0 30 3 * * *}")
+    public void archiveColdMessages() {
+        if (!enabled) return;
+        if (!clusterLock.runExclusively("ecoride.message-archive", this::archiveUnderLock)) {
+            log.debug("Message archival is running on another node");
+        }
+    }
+
+    private void archiveUnderLock() {
+        Instant cutoff = Instant.now().minus(maxAge);
+        int total = 0;
+        try {
+            int archived;
+            do {
+                archived = archiveBatch(cutoff);
+                total += archived;
+            } while (archived == batchSize);
+        } catch (IOException e) {
+            log.error("Message archival stopped after {} messages: {}", total, e.getMessage(), e);
+            return;
+        } finally {
+            try {
+                segmentStore.close();
+            } catch (IOException e) {
+                log.warn("Could not close message archive segment: {}", e.getMessage());
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} messages older than {}", total, cutoff);
+        }
+    }
+
+    /** All archived messages of one conversation, oldest first. */
+    public List<ArchivedMessage> loadConversation(UUID a, UUID b) {
+        if (!enabled) return List.of();
+        UUID lo = UuidOrder.lower(a, b);
+        UUID hi = UuidOrder.higher(a, b);
+        List<ArchivedMessage> messages = new ArrayList<>();
+        for (MessageArchiveBlock block : blockRepository.findByUser1IdAndUser2IdOrderByFirstCreatedAtAsc(lo, hi)) {
+            messages.addAll(read(block));
+        }
+        return messages;
+    }
+
+    /** Newest archived message of a conversation, read from its last block only. */
+    public Optional<ArchivedMessage> latestMessage(UUID a, UUID b) {
+        if (!enabled) return Optional.empty();
+        UUID lo = UuidOrder.lower(a, b);
+        UUID hi = UuidOrder.higher(a, b);
+        return blockRepository.findTopByUser1IdAndUser2IdOrderByLastCreatedAtDesc(lo, hi)
+                .map(this::read)
+                .filter(list -> !list.isEmpty())
+                .map(list -> list.get(list.size() - 1));
+    }
+
+    public List<UUID> archivedPeerIds(UUID userId) {
+        if (!enabled) return List.of();
+        return blockRepository.findArchivedPeerIds(userId);
+    }
+
+    /** Visit every archived message, block by block in archival order. */
+    public void forEachArchived(Consumer<ArchivedMessage> consumer) {
+        if (!enabled) return;
+        int page = 0;
+        List<MessageArchiveBlock> blocks;
+        do {
+            blocks = blockRepository.findAll(PageRequest.of(page++, 1000, Sort.by("id"))).getContent();
+            for (MessageArchiveBlock block : blocks) {
+                read(block).forEach(consumer);
+            }
+        } while (blocks.size() == 1000);
+    }
+
+    private List<ArchivedMessage> read(MessageArchiveBlock block) {
+        return segmentStore.read(block.getSegmentNo(), block.getFileOffset(), block.getBlockLength());
+    }
+
+    private int archiveBatch(Instant cutoff) throws IOException {
+        List<ArchivedMessage> batch = jdbcTemplate.query("""
+                        SELECT id, sender_id, receiver_id, content, is_read, created_at
+                        FROM messages
+                        WHERE created_at < ? AND is_read = TRUE
+                        ORDER BY created_at
+                        LIMIT ?
+                        """,
+                (rs, i) -> new ArchivedMessage(
+                        UUID.fromString(rs.getString("id")),
+                        UUID.fromString(rs.getString("sender_id")),
+                        UUID.fromString(rs.getString("receiver_id")),
+                        rs.getString("content"),
+                        rs.getBoolean("is_read"),
+                        rs.getTimestamp("created_at").toInstant()),
+                Timestamp.from(cutoff), batchSize);
+        if (batch.isEmpty()) return 0;
+
+        // Group by canonical conversation, keeping created_at order inside each group
+        Map<List<UUID>, List<ArchivedMessage>> byConversation = new LinkedHashMap<>();
+        for (ArchivedMessage m : batch) {
+            List<UUID> key = List.of(UuidOrder.lower(m.senderId(), m.receiverId()),
+                    UuidOrder.higher(m.senderId(), m.receiverId()));
+            byConversation.computeIfAbsent(key, k -> new ArrayList<>()).add(m);
+        }
+
+        List<MessageArchiveBlock> index = new ArrayList<>();
+        for (Map.Entry<List<UUID>, List<ArchivedMessage>> e : byConversation.entrySet()) {
+            List<ArchivedMessage> messages = e.getValue();
+            for (int from = 0; from < messages.size(); from += blockSize) {
+                List<ArchivedMessage> chunk = messages.subList(from, Math.min(from + blockSize, messages.size()));
+                BlockRef ref = segmentStore.append(chunk);
+                index.add(MessageArchiveBlock.builder()
+                        .user1Id(e.getKey().get(0))
+                        .user2Id(e.getKey().get(1))
+                        .segmentNo(ref.segmentNo())
+                        .fileOffset(ref.offset())
+                        .blockLength(ref.length())
+                        .messageCount(chunk.size())
+                        .firstCreatedAt(chunk.get(0).createdAt())
+                        .lastCreatedAt(chunk.get(chunk.size() - 1).createdAt())
+                        .build());
+            }
+        }
+        segmentStore.sync();
+
+        List<Object[]> ids = batch.stream().map(m -> new Object[]{m.id().toString()}).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            blockRepository.saveAll(index);
+            jdbcTemplate.batchUpdate("DELETE FROM messages WHERE id = ?", ids);
+        });
+        return batch.size();
+    }
+}
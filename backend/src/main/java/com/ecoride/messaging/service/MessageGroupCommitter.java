@@ -0,0 +1,188 @@
+package com.ecoride.messaging.service;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.sync.service.ChangeLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional group-commit pipeline for message inserts.
+ * Callers enqueue a message and wait on its future; a single writer thread drains the queue
+ * every few milliseconds and commits the whole batch as one multi-row INSERT.
+ */
+@Slf4j
+@Component
+public class MessageGroupCommitter {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO messages (id, sender_id, receiver_id, content, is_read, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, FALSE, ?)";
+    private static final long IDLE_POLL_MS = 100;
+
+    public record PendingMessage(UUID id, UUID senderId, UUID receiverId, String content,
+                                 Instant createdAt, long enqueuedAtNanos,
+                                 CompletableFuture<Void> committed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLog changeLog;
+    private final boolean enabled;
+    private final long maxLatencyNanos;
+    private final int batchSize;
+    private final BlockingQueue<PendingMessage> queue;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public MessageGroupCommitter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ChangeLog changeLog,
+            @Value("${ecoride.messaging.group-commit.enabled:false}") boolean enabled,
+            @Value("${ecoride.messaging.group-commit.max-latency-ms:5}") long maxLatencyMs,
+            @Value("${ecoride.messaging.group-commit.batch-size:100}") int batchSize,
+            @Value("${ecoride.messaging.group-commit.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLog = changeLog;
+        this.enabled = enabled;
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxLatencyMs));
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(this.batchSize, queueCapacity));
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        running = true;
+        writer = new Thread(this::runWriter, "message-group-commit");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Message group commit enabled (batch size {}, max latency {} ms)",
+                batchSize, TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) return;
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enqueue a message for the next batch. The returned future completes once the batch commits.
+     * Rejects with 503 when the queue stays full for longer than one batch window.
+     */
+    public CompletableFuture<Void> submit(UUID id, UUID senderId, UUID receiverId,
+                                          String content, Instant createdAt) {
+        PendingMessage pending = new PendingMessage(id, senderId, receiverId, content, createdAt,
+                System.nanoTime(), new CompletableFuture<>());
+        try {
+            if (!running || !queue.offer(pending, maxLatencyNanos, TimeUnit.NANOSECONDS)) {
+                throw ApiException.serviceUnavailable("Messaging is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ApiException.serviceUnavailable("Messaging is busy, please retry");
+        }
+        return pending.committed();
+    }
+
+    /**
+     * Takes a message back out of the queue, so it will never be written.
+     * Returns false if the writer already picked it up; its future then completes with the batch.
+     */
+    public boolean withdraw(UUID id) {
+        return queue.removeIf(m -> m.id().equals(id));
+    }
+
+    private void runWriter() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // Wait for more messages until the oldest one has waited max-latency
+                long deadline = first.enqueuedAtNanos() + maxLatencyNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(batch, e);
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        List<PendingMessage> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        fail(leftover, new IllegalStateException("Message writer stopped"));
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertBatch(batch));
+            batch.forEach(m -> m.committed().complete(null));
+        } catch (RuntimeException e) {
+            log.error("Group commit of {} messages failed: {}", batch.size(), e.getMessage(), e);
+            fail(batch, e);
+        }
+    }
+
+    private void insertBatch(List<PendingMessage> batch) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + batch.size() * (ROW_PLACEHOLDER.length() + 2))
+                .append(INSERT_PREFIX);
+        Object[] args = new Object[batch.size() * 5];
+        int i = 0;
+        for (PendingMessage m : batch) {
+            if (i > 0) sql.append(", ");
+            sql.append(ROW_PLACEHOLDER);
+            args[i++] = m.id().toString();
+            args[i++] = m.senderId().toString();
+            args[i++] = m.receiverId().toString();
+            args[i++] = m.content();
+            args[i++] = Timestamp.from(m.createdAt());
+        }
+        jdbcTemplate.update(sql.toString(), args);
+
+        List<ChangeLog.Change> changes = new ArrayList<>(batch.size() * 2);
+        for (PendingMessage m : batch) {
+            changes.add(new ChangeLog.Change(m.senderId(), ChangeLog.Type.MESSAGE, m.id()));
+            changes.add(new ChangeLog.Change(m.receiverId(), ChangeLog.Type.MESSAGE, m.id()));
+        }
+        changeLog.record(changes);
+    }
+
+    private void fail(List<PendingMessage> batch, Throwable cause) {
+        batch.forEach(m -> m.committed().completeExceptionally(cause));
+    }
+}
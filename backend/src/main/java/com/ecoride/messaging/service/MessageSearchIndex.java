@@ -0,0 +1,281 @@
+package com.ecoride.messaging.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Per-node inverted index over message content.
+ * Every message is indexed into the partitions of both its sender and receiver, so a user
+ * can only ever search messages they are part of. Postings are delta + varint encoded.
+ */
+@Slf4j
+@Component
+public class MessageSearchIndex {
+
+    private static final int MIN_TOKEN_LENGTH = 2;
+    private static final int MAX_TOKEN_LENGTH = 32;
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "at", "be", "for", "in", "is", "it", "of", "on", "or",
+            "so", "the", "to", "we", "i", "me", "my", "you", "ok");
+
+    public record Hit(UUID messageId, UUID peerId, Instant createdAt, double score) {
+    }
+
+    private record IndexedMessage(UUID id, UUID senderId, UUID receiverId, String content, Instant createdAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MessageArchiveService archiveService;
+    private final boolean enabled;
+
+    /** Guards the partitions swap against concurrent adds, so no add lands in a replaced map. */
+    private final Object swapLock = new Object();
+
+    private volatile Map<UUID, UserPartition> partitions = new ConcurrentHashMap<>();
+    private Queue<IndexedMessage> addedDuringRebuild;
+
+    public MessageSearchIndex(JdbcTemplate jdbcTemplate,
+                              MessageArchiveService archiveService,
+                              @Value("${ecoride.messaging.search.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archiveService = archiveService;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Index a newly committed message for both participants. */
+    public void add(UUID id, UUID senderId, UUID receiverId, String content, Instant createdAt) {
+        if (!enabled) return;
+        IndexedMessage message = new IndexedMessage(id, senderId, receiverId, content, createdAt);
+        Map<String, Integer> termFreqs = tokenize(content);
+        if (termFreqs.isEmpty()) return;
+        synchronized (swapLock) {
+            if (addedDuringRebuild != null) addedDuringRebuild.add(message);
+            addTo(partitions, message, termFreqs);
+        }
+    }
+
+    public List<Hit> search(UUID userId, String query, int limit) {
+        if (!enabled) return List.of();
+        List<String> terms = new ArrayList<>(tokenize(query).keySet());
+        UserPartition partition = partitions.get(userId);
+        if (terms.isEmpty() || partition == null) return List.of();
+        return partition.search(terms, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) return;
+        Thread t = new Thread(this::rebuild, "message-search-rebuild");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Rebuild every partition from the message archive and the messages table, then swap it in.
+     * Messages sent while the scan runs are buffered and replayed into the new index; partitions
+     * skip message ids they already hold, so a message both scanned and replayed counts once.
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        synchronized (swapLock) {
+            addedDuringRebuild = new ConcurrentLinkedQueue<>();
+        }
+        Map<UUID, UserPartition> fresh = new ConcurrentHashMap<>();
+        int[] count = {0};
+        boolean scanned = false;
+        try {
+            archiveService.forEachArchived(m -> {
+                addTo(fresh, new IndexedMessage(m.id(), m.senderId(), m.receiverId(), m.content(), m.createdAt()));
+                count[0]++;
+            });
+            jdbcTemplate.query(con -> {
+                var ps = con.prepareStatement(
+                        "SELECT id, sender_id, receiver_id, content, created_at FROM messages ORDER BY created_at",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+                return ps;
+            }, rs -> {
+                Timestamp ts = rs.getTimestamp("created_at");
+                addTo(fresh, new IndexedMessage(
+                        UUID.fromString(rs.getString("id")),
+                        UUID.fromString(rs.getString("sender_id")),
+                        UUID.fromString(rs.getString("receiver_id")),
+                        rs.getString("content"),
+                        ts != null ? ts.toInstant() : Instant.EPOCH));
+                count[0]++;
+            });
+            scanned = true;
+        } finally {
+            synchronized (swapLock) {
+                if (scanned) {
+                    addedDuringRebuild.forEach(m -> addTo(fresh, m));
+                    partitions = fresh;
+                }
+                addedDuringRebuild = null;
+            }
+        }
+        log.info("Message search index rebuilt: {} messages, {} users in {} ms",
+                count[0], fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    private void addTo(Map<UUID, UserPartition> target, IndexedMessage m) {
+        Map<String, Integer> termFreqs = tokenize(m.content());
+        if (!termFreqs.isEmpty()) addTo(target, m, termFreqs);
+    }
+
+    private void addTo(Map<UUID, UserPartition> target, IndexedMessage m, Map<String, Integer> termFreqs) {
+        target.computeIfAbsent(m.senderId(), k -> new UserPartition())
+                .add(m.id(), m.receiverId(), m.createdAt(), termFreqs);
+        if (!m.receiverId().equals(m.senderId())) {
+            target.computeIfAbsent(m.receiverId(), k -> new UserPartition())
+                    .add(m.id(), m.senderId(), m.createdAt(), termFreqs);
+        }
+    }
+
+    /** Lower-cases and splits on anything that is not a letter or digit; returns term → frequency. */
+    static Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> terms = new LinkedHashMap<>();
+        if (text == null) return terms;
+        StringBuilder token = new StringBuilder();
+        for (int i = 0, n = text.length(); i <= n; i++) {
+            char c = i < n ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (token.length() < MAX_TOKEN_LENGTH) token.append(Character.toLowerCase(c));
+            } else if (!token.isEmpty()) {
+                String term = token.toString();
+                if (term.length() >= MIN_TOKEN_LENGTH && !STOP_WORDS.contains(term)) {
+                    terms.merge(term, 1, Integer::sum);
+                }
+                token.setLength(0);
+            }
+        }
+        return terms;
+    }
+
+    /** One user's slice of the index. Doc ids are partition-local ordinals in insertion order. */
+    private static final class UserPartition {
+
+        private UUID[] messageIds = new UUID[16];
+        private UUID[] peerIds = new UUID[16];
+        private long[] createdAtSeconds = new long[16];
+        private int docCount;
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final Set<UUID> indexed = new HashSet<>();
+
+        synchronized void add(UUID messageId, UUID peerId, Instant createdAt, Map<String, Integer> termFreqs) {
+            if (!indexed.add(messageId)) return;
+            if (docCount == messageIds.length) {
+                int cap = docCount * 2;
+                messageIds = Arrays.copyOf(messageIds, cap);
+                peerIds = Arrays.copyOf(peerIds, cap);
+                createdAtSeconds = Arrays.copyOf(createdAtSeconds, cap);
+            }
+            int doc = docCount++;
+            messageIds[doc] = messageId;
+            peerIds[doc] = peerId;
+            createdAtSeconds[doc] = createdAt.getEpochSecond();
+            termFreqs.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new Postings()).add(doc, tf));
+        }
+
+        /**
+         * Ranked OR query: messages matching more query terms first, then TF-IDF, then recency.
+         */
+        synchronized List<Hit> search(List<String> terms, int limit) {
+            float[] scores = new float[docCount];
+            byte[] matched = new byte[docCount];
+            for (String term : terms) {
+                Postings p = postings.get(term);
+                if (p == null) continue;
+                double idf = Math.log(1 + (double) docCount / p.docFreq);
+                p.forEach((doc, tf) -> {
+                    scores[doc] += (float) ((1 + Math.log(tf)) * idf);
+                    matched[doc]++;
+                });
+            }
+
+            Comparator<Integer> rank = Comparator.<Integer>comparingInt(d -> matched[d])
+                    .thenComparingDouble(d -> scores[d])
+                    .thenComparingLong(d -> createdAtSeconds[d]);
+            PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, rank);
+            for (int doc = 0; doc < docCount; doc++) {
+                if (matched[doc] == 0) continue;
+                top.add(doc);
+                if (top.size() > limit) top.poll();
+            }
+
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                int doc = top.poll();
+                hits.add(new Hit(messageIds[doc], peerIds[doc],
+                        Instant.ofEpochSecond(createdAtSeconds[doc]), scores[doc]));
+            }
+            Collections.reverse(hits);
+            return hits;
+        }
+    }
+
+    /** Doc-ascending postings list, stored as varint (doc gap, term frequency) pairs. */
+    private static final class Postings {
+
+        interface Visitor {
+            void accept(int doc, int tf);
+        }
+
+        private byte[] data = new byte[8];
+        private int length;
+        private int lastDoc = -1;
+        private int docFreq;
+
+        void add(int doc, int tf) {
+            writeVarInt(doc - lastDoc);
+            writeVarInt(tf);
+            lastDoc = doc;
+            docFreq++;
+        }
+
+        void forEach(Visitor visitor) {
+            int pos = 0;
+            int doc = -1;
+            while (pos < length) {
+                int gap = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    gap |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                int tf = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte b = data[pos++];
+                    tf |= (b & 0x7F) << shift;
+                    if (b >= 0) break;
+                }
+                doc += gap;
+                visitor.accept(doc, tf);
+            }
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.ecoride.messaging.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only, deflate-compressed segment files holding archived messages.
+ *
+ * Block layout: [magic:int][rawLength:int][compressedLength:int][deflate bytes].
+ * Segments are never rewritten; a block only becomes visible once its index row commits,
+ * so bytes from an aborted archival run are simply unreferenced.
+ *
+ * The index rows are shared by every node, so the directory must be a volume every node mounts.
+ * Only one node appends at a time (see {@link MessageArchiveService}), and the appender re-reads
+ * the directory at the start of each run because the previous run may have been on another node.
+ */
+@Slf4j
+@Component
+public class MessageSegmentStore {
+
+    private static final int BLOCK_MAGIC = 0x45434d42;  // "ECMB"
+    private static final int HEADER_BYTES = 12;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{6})\\.dat");
+
+    public record ArchivedMessage(UUID id, UUID senderId, UUID receiverId, String content,
+                                  boolean read, Instant createdAt) {
+    }
+
+    public record BlockRef(int segmentNo, long offset, int length) {
+    }
+
+    private final Path directory;
+    private final long segmentMaxBytes;
+    private final Map<Integer, MappedByteBuffer> mapped = new ConcurrentHashMap<>();
+
+    private FileChannel current;
+    private int currentSegmentNo;
+
+    public MessageSegmentStore(
+            @Value("${ecoride.messaging.archive.directory:./data/message-archive}") String directory,
+            @Value("${ecoride.messaging.archive.segment-max-bytes:268435456}") long segmentMaxBytes) {
+        this.directory = Path.of(directory);
+        // Blocks are addressed through a single mapping per segment, which caps segments at 2 GB
+        this.segmentMaxBytes = Math.min(segmentMaxBytes, Integer.MAX_VALUE);
+    }
+
+    /** Compress and append one block; call {@link #sync()} before publishing its index row. */
+    public synchronized BlockRef append(List<ArchivedMessage> messages) throws IOException {
+        byte[] raw = encode(messages);
+        byte[] compressed = deflate(raw);
+
+        FileChannel channel = openForAppend();
+        if (channel.size() > 0 && channel.size() + HEADER_BYTES + compressed.length > segmentMaxBytes) {
+            channel = roll();
+        }
+
+        long offset = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate(HEADER_BYTES + compressed.length);
+        buf.putInt(BLOCK_MAGIC).putInt(raw.length).putInt(compressed.length).put(compressed).flip();
+        while (buf.hasRemaining()) channel.write(buf, offset + buf.position());
+        return new BlockRef(currentSegmentNo, offset, HEADER_BYTES + compressed.length);
+    }
+
+    /** fsync the segment currently being appended to. */
+    public synchronized void sync() throws IOException {
+        if (current != null) current.force(true);
+    }
+
+    /**
+     * Read one block through a memory-mapped view of its segment. A segment missing from this
+     * node's mount reads as empty with a warning rather than failing the request.
+     */
+    public List<ArchivedMessage> read(int segmentNo, long offset, int length) {
+        try {
+            if (!Files.exists(segmentPath(segmentNo))) {
+                log.warn("Archive segment {} is missing from {}", segmentNo, directory);
+                return List.of();
+            }
+            ByteBuffer view = mappedView(segmentNo, offset + length);
+            view.position((int) offset);
+            int magic = view.getInt();
+            if (magic != BLOCK_MAGIC) {
+                throw new IllegalStateException("Corrupt archive block at segment " + segmentNo + " offset " + offset);
+            }
+            int rawLength = view.getInt();
+            byte[] compressed = new byte[view.getInt()];
+            view.get(compressed);
+            return decode(inflate(compressed, rawLength));
+        } catch (IOException | DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Failed to read archive block", e));
+        }
+    }
+
+    /** fsync and close the segment being appended to; the next append re-reads the directory. */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (current != null) {
+            current.force(true);
+            current.close();
+            current = null;
+        }
+    }
+
+    private ByteBuffer mappedView(int segmentNo, long requiredSize) throws IOException {
+        MappedByteBuffer buffer = mapped.get(segmentNo);
+        if (buffer == null || buffer.capacity() < requiredSize) {
+            // Only the active segment grows, so remapping is rare
+            try (FileChannel ch = FileChannel.open(segmentPath(segmentNo), StandardOpenOption.READ)) {
+                buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            mapped.put(segmentNo, buffer);
+        }
+        return buffer.duplicate();
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        if (current == null) {
+            Files.createDirectories(directory);
+            currentSegmentNo = Math.max(1, latestSegmentNo());
+            current = FileChannel.open(segmentPath(currentSegmentNo),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        }
+        return current;
+    }
+
+    private FileChannel roll() throws IOException {
+        current.force(true);
+        current.close();
+        currentSegmentNo++;
+        current = FileChannel.open(segmentPath(currentSegmentNo),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        log.info("Rolled message archive to segment {}", currentSegmentNo);
+        return current;
+    }
+
+    private int latestSegmentNo() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> SEGMENT_NAME.matcher(p.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToInt(m -> Integer.parseInt(m.group(1)))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private Path segmentPath(int segmentNo) {
+        return directory.resolve(String.format("segment-%06d.dat", segmentNo));
+    }
+
+    private static byte[] encode(List<ArchivedMessage> messages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(messages.size() * 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(messages.size());
+            for (ArchivedMessage m : messages) {
+                writeUuid(out, m.id());
+                writeUuid(out, m.senderId());
+                writeUuid(out, m.receiverId());
+                out.writeBoolean(m.read());
+                out.writeLong(m.createdAt().getEpochSecond());
+                out.writeUTF(m.content());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<ArchivedMessage> decode(byte[] raw) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            int count = in.readInt();
+            List<ArchivedMessage> messages = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                UUID id = readUuid(in);
+                UUID sender = readUuid(in);
+                UUID receiver = readUuid(in);
+                boolean read = in.readBoolean();
+                Instant createdAt = Instant.ofEpochSecond(in.readLong());
+                messages.add(new ArchivedMessage(id, sender, receiver, in.readUTF(), read, createdAt));
+            }
+            return messages;
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, n, rawLength - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    // Truncated or corrupt block: inflate would keep returning 0 forever
+                    throw new DataFormatException("Archive block ends after " + n + " of " + rawLength + " bytes");
+                }
+                n += inflated;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+}
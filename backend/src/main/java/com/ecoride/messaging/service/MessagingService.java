@@ -3,17 +3,26 @@ package com.ecoride.messaging.service;
 import com.ecoride.common.exception.ApiException;
 import com.ecoride.messaging.dto.ConversationDto;
 import com.ecoride.messaging.dto.MessageDto;
+import com.ecoride.messaging.dto.MessageSearchHitDto;
 import com.ecoride.messaging.entity.Message;
 import com.ecoride.messaging.repository.MessageRepository;
 import com.ecoride.ride.repository.RideParticipantRepository;
+import com.ecoride.sync.service.ChangeLog;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +32,18 @@ public class MessagingService {
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
     private final RideParticipantRepository rideParticipantRepository;
+    private final MessageGroupCommitter groupCommitter;
+    private final MessageSearchIndex searchIndex;
+    private final MessageArchiveService archiveService;
+    private final ChangeLog changeLog;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ecoride.messaging.search.max-results:50}")
+    private int maxSearchResults;
+
+    /** Longest a sender waits for its group commit before getting 503. */
+    @Value("${ecoride.messaging.group-commit.wait-timeout-ms:5000}")
+    private long groupCommitWaitMs;
 
     @Transactional(readOnly = true)
     public List<ConversationDto> getConversations(String email) {
@@ -51,51 +72,39 @@ public class MessagingService {
             contactIds.add(peer);
         }
 
+        // Contacts whose whole history has been archived
+        contactIds.addAll(archiveService.archivedPeerIds(me.getId()));
+
         contactIds.remove(me.getId());
 
-        Map<UUID, User> contactMap = userRepository.findAllById(contactIds).stream()
-                .collect(Collectors.toMap(User::getId, u -> u));
+        return getConversationsWith(me, contactIds);
+    }
 
-        return contactIds.stream()
-                .map(peerId -> {
-                    User peer = contactMap.get(peerId);
-                    if (peer == null) return null;
-
-                    Message latestForward = messageRepository
-                            .findTopBySender_IdAndReceiver_IdOrderByCreatedAtDesc(me.getId(), peerId)
-                            .orElse(null);
-                    Message latestBackward = messageRepository
-                            .findTopBySender_IdAndReceiver_IdOrderByCreatedAtDesc(peerId, me.getId())
-                            .orElse(null);
-
-                    Message latest;
-                    if (latestForward == null) {
-                        latest = latestBackward;
-                    } else if (latestBackward == null) {
-                        latest = latestForward;
-                    } else {
-                        latest = latestForward.getCreatedAt().isAfter(latestBackward.getCreatedAt())
-                                ? latestForward
-                                : latestBackward;
-                    }
+    /** Conversation summaries for the given peers only; used by the inbox and delta sync. */
+    @Transactional(readOnly = true)
+    public List<ConversationDto> getConversationsWith(User me, Collection<UUID> peerIds) {
+        if (peerIds.isEmpty()) return List.of();
 
-                    long unread = messageRepository.countUnread(me.getId(), peerId);
+        Map<UUID, User> contactMap = userRepository.findAllById(peerIds).stream()
+                .collect(Collectors.toMap(User::getId, u -> u));
 
-                    return ConversationDto.builder()
-                            .peerId(peer.getId())
-                            .peerName(peer.getName())
-                            .peerDepartment(peer.getDepartment())
-                            .peerYear(peer.getYear())
-                            .lastMessage(latest != null ? latest.getContent() : "Say hello to start chatting")
-                            .lastMessageAt(latest != null ? latest.getCreatedAt() : Instant.EPOCH)
-                            .unreadCount((int) unread)
-                            .build();
-                })
+        return peerIds.stream()
+                .map(contactMap::get)
                 .filter(Objects::nonNull)
+                .map(peer -> toConversation(me, peer))
                 .sorted(Comparator.comparing(ConversationDto::getLastMessageAt).reversed())
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    public List<MessageDto> getMessagesByIds(Collection<UUID> ids) {
+        if (ids.isEmpty()) return List.of();
+        return messageRepository.findAllById(ids).stream()
+                .map(MessageDto::from)
+                .sorted(Comparator.comparing(MessageDto::getCreatedAt))
+                .toList();
+    }
+
     @Transactional
     public List<MessageDto> getConversation(String email, UUID peerId) {
         User me = userRepository.findByEmail(email)
@@ -105,32 +114,216 @@ public class MessagingService {
             throw ApiException.notFound("Peer user not found");
         }
 
-        messageRepository.markAsRead(me.getId(), peerId);
+        if (messageRepository.markAsRead(me.getId(), peerId) > 0) {
+            changeLog.recordConversation(me.getId(), peerId);
+        }
 
-        return messageRepository.findConversation(me.getId(), peerId).stream()
+        // Only read messages are archived, so an old unread message can still be hot while newer
+        // read ones are archived; the two sources interleave and must be merged by time
+        List<MessageDto> history = new ArrayList<>();
+        archiveService.loadConversation(me.getId(), peerId).stream()
+                .map(this::toDto)
+                .forEach(history::add);
+        messageRepository.findConversation(me.getId(), peerId).stream()
                 .map(MessageDto::from)
+                .forEach(history::add);
+        history.sort(Comparator.comparing(MessageDto::getCreatedAt));
+        return history;
+    }
+
+    /**
+     * Ranked full-text search over the caller's own messages, served from the in-process index.
+     * Only the top hits are loaded from the database.
+     */
+    @Transactional(readOnly = true)
+    public List<MessageSearchHitDto> search(String email, String query, int limit) {
+        if (!searchIndex.isEnabled()) {
+            throw ApiException.serviceUnavailable("Message search is disabled");
+        }
+        if (query == null || query.isBlank()) {
+            throw ApiException.badRequest("Search query cannot be empty");
+        }
+        User me = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+
+        List<MessageSearchIndex.Hit> hits = searchIndex.search(
+                me.getId(), query, Math.max(1, Math.min(limit, maxSearchResults)));
+        if (hits.isEmpty()) return List.of();
+
+        Map<UUID, Message> messages = messageRepository.findAllById(
+                        hits.stream().map(MessageSearchIndex.Hit::messageId).toList())
+                .stream()
+                .collect(Collectors.toMap(Message::getId, m -> m));
+
+        // Hits missing from the hot table were archived; read them from their conversations' blocks
+        Map<UUID, MessageSegmentStore.ArchivedMessage> archived = new HashMap<>();
+        hits.stream()
+                .filter(hit -> !messages.containsKey(hit.messageId()))
+                .map(MessageSearchIndex.Hit::peerId)
+                .distinct()
+                .forEach(peerId -> archiveService.loadConversation(me.getId(), peerId)
+                        .forEach(m -> archived.put(m.id(), m)));
+
+        return hits.stream()
+                .map(hit -> {
+                    Message m = messages.get(hit.messageId());
+                    if (m != null) {
+                        return MessageSearchHitDto.builder()
+                                .messageId(m.getId())
+                                .peerId(hit.peerId())
+                                .senderId(m.getSender().getId())
+                                .content(m.getContent())
+                                .createdAt(m.getCreatedAt())
+                                .score(hit.score())
+                                .build();
+                    }
+                    MessageSegmentStore.ArchivedMessage a = archived.get(hit.messageId());
+                    if (a == null) return null;
+                    return MessageSearchHitDto.builder()
+                            .messageId(a.id())
+                            .peerId(hit.peerId())
+                            .senderId(a.senderId())
+                            .content(a.content())
+                            .createdAt(a.createdAt())
+                            .score(hit.score())
+                            .build();
+                })
+                .filter(Objects::nonNull)
                 .toList();
     }
 
-    @Transactional
+    /**
+     * Not transactional on purpose: in group-commit mode the caller must not hold a
+     * connection while it waits for its batch to commit.
+     */
     public MessageDto sendMessage(String email, UUID peerId, String content) {
         User sender = userRepository.findByEmail(email)
                 .orElseThrow(() -> ApiException.notFound("User not found"));
-        User receiver = userRepository.findById(peerId)
-                .orElseThrow(() -> ApiException.notFound("Peer user not found"));
 
-        String trimmed = content == null ? "" : content.trim();
-        if (trimmed.isBlank()) {
-            throw ApiException.badRequest("Message cannot be empty");
+        if (groupCommitter.isEnabled()) {
+            if (!userRepository.existsById(peerId)) {
+                throw ApiException.notFound("Peer user not found");
+            }
+            return sendGrouped(sender.getId(), peerId, trimContent(content));
         }
 
+        User receiver = userRepository.findById(peerId)
+                .orElseThrow(() -> ApiException.notFound("Peer user not found"));
+
         Message message = Message.builder()
                 .sender(sender)
                 .receiver(receiver)
-                .content(trimmed)
+                .content(trimContent(content))
                 .read(false)
                 .build();
 
-        return MessageDto.from(messageRepository.save(message));
+        Message saved = transactionTemplate.execute(status -> {
+            Message m = messageRepository.save(message);
+            changeLog.recordMessage(m.getId(), sender.getId(), receiver.getId());
+            return m;
+        });
+        searchIndex.add(saved.getId(), sender.getId(), receiver.getId(), saved.getContent(), saved.getCreatedAt());
+        return MessageDto.from(saved);
+    }
+
+    private MessageDto sendGrouped(UUID senderId, UUID receiverId, String content) {
+        UUID id = UUID.randomUUID();
+        // DATETIME has second precision; truncate so the response matches the stored row
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        CompletableFuture<Void> committed = groupCommitter.submit(id, senderId, receiverId, content, createdAt);
+        try {
+            try {
+                committed.get(groupCommitWaitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // Only answer "retry" if the message is guaranteed not to be written; once the
+                // writer holds it, its batch is already being committed, so wait for the outcome
+                if (groupCommitter.withdraw(id)) {
+                    throw ApiException.serviceUnavailable("Messaging is busy, please retry");
+                }
+                committed.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (groupCommitter.withdraw(id)) {
+                throw ApiException.serviceUnavailable("Messaging is busy, please retry");
+            }
+            // Already being written; index it if the batch commits
+            committed.thenRun(() -> searchIndex.add(id, senderId, receiverId, content, createdAt));
+            throw new IllegalStateException("Interrupted while message " + id + " was being saved");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Message could not be saved", e.getCause());
+        }
+        searchIndex.add(id, senderId, receiverId, content, createdAt);
+
+        return MessageDto.builder()
+                .id(id)
+                .senderId(senderId)
+                .receiverId(receiverId)
+                .content(content)
+                .read(false)
+                .createdAt(createdAt)
+                .build();
+    }
+
+    private ConversationDto toConversation(User me, User peer) {
+        UUID peerId = peer.getId();
+        Message latestForward = messageRepository
+                .findTopBySender_IdAndReceiver_IdOrderByCreatedAtDesc(me.getId(), peerId)
+                .orElse(null);
+        Message latestBackward = messageRepository
+                .findTopBySender_IdAndReceiver_IdOrderByCreatedAtDesc(peerId, me.getId())
+                .orElse(null);
+
+        Message latest;
+        if (latestForward == null) {
+            latest = latestBackward;
+        } else if (latestBackward == null) {
+            latest = latestForward;
+        } else {
+            latest = latestForward.getCreatedAt().isAfter(latestBackward.getCreatedAt())
+                    ? latestForward
+                    : latestBackward;
+        }
+
+        String lastContent = latest != null ? latest.getContent() : null;
+        Instant lastAt = latest != null ? latest.getCreatedAt() : null;
+        // An old unread message can stay hot while newer read ones are archived, so the
+        // archive's newest message wins whenever it is later than the hot one
+        Optional<MessageSegmentStore.ArchivedMessage> archived = archiveService.latestMessage(me.getId(), peerId);
+        if (archived.isPresent() && (lastAt == null || archived.get().createdAt().isAfter(lastAt))) {
+            lastContent = archived.get().content();
+            lastAt = archived.get().createdAt();
+        }
+
+        long unread = messageRepository.countUnread(me.getId(), peerId);
+
+        return ConversationDto.builder()
+                .peerId(peer.getId())
+                .peerName(peer.getName())
+                .peerDepartment(peer.getDepartment())
+                .peerYear(peer.getYear())
+                .lastMessage(lastContent != null ? lastContent : "Say hello to start chatting")
+                .lastMessageAt(lastAt != null ? lastAt : Instant.EPOCH)
+                .unreadCount((int) unread)
+                .build();
+    }
+
+    private MessageDto toDto(MessageSegmentStore.ArchivedMessage message) {
+        return MessageDto.builder()
+                .id(message.id())
+                .senderId(message.senderId())
+                .receiverId(message.receiverId())
+                .content(message.content())
+                .read(message.read())
+                .createdAt(message.createdAt())
+                .build();
+    }
+
+    private String trimContent(String content) {
+        String trimmed = content == null ? "" : content.trim();
+        if (trimmed.isBlank()) {
+            throw ApiException.badRequest("Message cannot be empty");
+        }
+        return trimmed;
     }
-}
\ No newline at end of file
+}
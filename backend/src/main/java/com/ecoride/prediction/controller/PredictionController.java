@@ -1,7 +1,9 @@
 package com.ecoride.prediction.controller;
 
 import com.ecoride.common.response.ApiResponse;
+import com.ecoride.prediction.dto.DemandHeatmapDto;
 import com.ecoride.prediction.dto.PredictionDto;
+import com.ecoride.prediction.service.DemandForecastService;
 import com.ecoride.prediction.service.PredictionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -16,9 +18,16 @@ import java.util.List;
 public class PredictionController {
 
     private final PredictionService predictionService;
+    private final DemandForecastService demandForecastService;
 
     @GetMapping("/suggestions")
     public ApiResponse<List<PredictionDto>> getSuggestions(@AuthenticationPrincipal UserDetails principal) {
         return ApiResponse.ok(predictionService.getSuggestions(principal.getUsername()));
     }
+
+    /** Forecast riders vs seats per pickup zone, by day of week and hour; omit zone for all zones. */
+    @GetMapping("/heatmap")
+    public ApiResponse<DemandHeatmapDto> getHeatmap(@RequestParam(required = false) String zone) {
+        return ApiResponse.ok(demandForecastService.getHeatmap(zone));
+    }
 }
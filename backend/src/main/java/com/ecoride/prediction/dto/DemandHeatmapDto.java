@@ -0,0 +1,26 @@
+package com.ecoride.prediction.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class DemandHeatmapDto {
+    @Data
+    @Builder
+    public static class Zone {
+        private String pickupZone;
+        // [dayOfWeek 0 = Monday][hour 0-23], campus time
+        private double[][] expectedRiders;
+        private double[][] expectedSeats;
+        private double[][] seatGap;     // expectedRiders - expectedSeats; positive = undersupplied
+    }
+
+    private long runId;
+    private String generatedAt;
+    private int historyWeeks;
+    private long ridesProcessed;
+    private List<Zone> zones;
+}
@@ -0,0 +1,103 @@
+package com.ecoride.prediction.migration;
+
+import com.ecoride.prediction.service.CommutePatterns;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Flyway 21.1: counts every credited ride into commute_patterns (created by V21).
+ *
+ * Done in Java rather than SQL so day and hour use the configured campus time zone with its
+ * DST rules, which CONVERT_TZ cannot do without the server's time zone tables. Spring Boot
+ * registers JavaMigration beans with Flyway, so the zone comes from the application config.
+ */
+@Component
+public class CommutePatternBackfill implements JavaMigration {
+
+    private static final int INSERT_BATCH = 1_000;
+
+    private final ZoneId zone;
+
+    public CommutePatternBackfill(@Value("${ecoride.carbon.rollups.zone-id:Asia/Kolkata}") String zoneId) {
+        this.zone = ZoneId.of(zoneId);
+    }
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("21.1");
+    }
+
+    @Override
+    public String getDescription() {
+        return "backfill commute patterns";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+
+        // Keyed case-insensitively, like the name column's collation that deduplicated them
+        Map<String, Integer> zoneIds = new HashMap<>();
+        jdbc.query("SELECT id, name FROM pickup_zones", rs -> {
+            zoneIds.put(rs.getString(2).toLowerCase(Locale.ROOT), rs.getInt(1));
+        });
+
+        // "user id|pattern key" -> rides; one carbon transaction per rider per completed ride
+        Map<String, Integer> counts = new HashMap<>();
+        jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                            SELECT ct.user_id, r.pickup_zone, r.departure_time
+                            FROM carbon_transactions ct
+                            JOIN rides r ON r.id = ct.ride_id
+                            """,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+            return ps;
+        }, rs -> {
+            Integer zoneId = zoneIds.get(rs.getString(2).trim().toLowerCase(Locale.ROOT));
+            if (zoneId == null) return;
+            int key = zoneId << 8 | CommutePatterns.slotOf(rs.getTimestamp(3).toInstant(), zone);
+            counts.merge(rs.getString(1) + "|" + key, 1, Integer::sum);
+        });
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (Map.Entry<String, Integer> e : counts.entrySet()) {
+            int sep = e.getKey().indexOf('|');
+            batch.add(new Object[]{e.getKey().substring(0, sep), Integer.parseInt(e.getKey().substring(sep + 1)),
+                    e.getValue()});
+            if (batch.size() == INSERT_BATCH) {
+                insert(jdbc, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) insert(jdbc, batch);
+    }
+
+    private static void insert(JdbcTemplate jdbc, List<Object[]> batch) {
+        jdbc.batchUpdate("INSERT INTO commute_patterns (user_id, pattern_key, ride_count) VALUES (?, ?, ?)", batch);
+    }
+}
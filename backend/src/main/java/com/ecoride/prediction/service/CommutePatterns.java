@@ -0,0 +1,139 @@
+package com.ecoride.prediction.service;
+
+import com.ecoride.common.transaction.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user ride counters keyed by a packed (pickup zone id, day of week, hour) int.
+ * Bumped once per rider when a ride completes; read back with a single primary-key range scan.
+ * Zone ids come from the pickup_zones dictionary, mirrored in memory.
+ * Day and hour are in the configured campus time zone.
+ */
+@Component
+public class CommutePatterns {
+
+    public static final int SLOTS_PER_WEEK = 7 * 24;
+
+    /** One counter row, unpacked. dayOfWeek is ISO (1 = Monday). */
+    public record Pattern(int zoneId, int dayOfWeek, int hour, int rideCount) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId zone;
+    private final Map<String, Integer> zoneIds = new ConcurrentHashMap<>();
+    private final Map<Integer, String> zoneNames = new ConcurrentHashMap<>();
+
+    public CommutePatterns(JdbcTemplate jdbcTemplate,
+                           @Value("${ecoride.carbon.rollups.zone-id:Asia/Kolkata}") String zoneId) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.zone = ZoneId.of(zoneId);
+    }
+
+    public static int pack(int zoneId, int dayOfWeek, int hour) {
+        return zoneId << 8 | ((dayOfWeek - 1) * 24 + hour);
+    }
+
+    public static int zoneOf(int key) {
+        return key >>> 8;
+    }
+
+    /** (dow - 1) * 24 + hour, 0..167. */
+    public static int slotOf(int key) {
+        return key & 0xFF;
+    }
+
+    public int slotOf(Instant departure) {
+        return slotOf(departure, zone);
+    }
+
+    public static int slotOf(Instant departure, ZoneId zone) {
+        ZonedDateTime local = departure.atZone(zone);
+        return (local.getDayOfWeek().getValue() - 1) * 24 + local.getHour();
+    }
+
+    /** Must be called inside the transaction that completes the ride. */
+    public void recordRide(String pickupZone, Instant departure, Collection<UUID> riderIds) {
+        if (riderIds.isEmpty()) return;
+        int key = zoneIdFor(pickupZone) << 8 | slotOf(departure);
+        StringBuilder sql = new StringBuilder("INSERT INTO commute_patterns (user_id, pattern_key, ride_count) VALUES ");
+        Object[] args = new Object[riderIds.size() * 2];
+        int i = 0;
+        for (UUID id : new LinkedHashSet<>(riderIds)) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, 1)");
+            args[i++] = id.toString();
+            args[i++] = key;
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE ride_count = ride_count + 1");
+        jdbcTemplate.update(sql.toString(), Arrays.copyOf(args, i));
+    }
+
+    /** The user's patterns seen at least {@code minRides} times, most frequent first. */
+    public List<Pattern> forUser(UUID userId, int minRides) {
+        return jdbcTemplate.query("""
+                        SELECT pattern_key, ride_count FROM commute_patterns
+                        WHERE user_id = ? AND ride_count >= ?
+                        ORDER BY ride_count DESC
+                        """,
+                (rs, n) -> {
+                    int key = rs.getInt(1);
+                    int slot = slotOf(key);
+                    return new Pattern(zoneOf(key), slot / 24 + 1, slot % 24, rs.getInt(2));
+                },
+                userId.toString(), minRides);
+    }
+
+    /**
+     * Dictionary id for a pickup zone, registering it on first use in the caller's transaction.
+     * The id is cached only once that commits, so a rolled-back caller never leaves a cached id
+     * without its row.
+     */
+    public int zoneIdFor(String pickupZone) {
+        String name = pickupZone.trim();
+        Integer cached = zoneIds.get(name);
+        if (cached != null) return cached;
+        jdbcTemplate.update("INSERT IGNORE INTO pickup_zones (name) VALUES (?)", name);
+        int id = jdbcTemplate.queryForObject("SELECT id FROM pickup_zones WHERE name = ?", Integer.class, name);
+        AfterCommit.run(() -> {
+            zoneIds.put(name, id);
+            zoneNames.put(id, name);
+        });
+        return id;
+    }
+
+    /**
+     * Read-only copy of the zone dictionary for bulk readers, keyed by lower-cased name to match
+     * the name column's case-insensitive collation. Unlike zoneIdFor it never registers a zone.
+     */
+    public Map<String, Integer> zoneIdsByName() {
+        Map<String, Integer> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM pickup_zones", rs -> {
+            ids.put(rs.getString(2).toLowerCase(Locale.ROOT), rs.getInt(1));
+        });
+        return ids;
+    }
+
+    public String zoneName(int zoneId) {
+        String name = zoneNames.get(zoneId);
+        if (name == null) {
+            loadZones();
+            name = zoneNames.getOrDefault(zoneId, "?");
+        }
+        return name;
+    }
+
+    private void loadZones() {
+        jdbcTemplate.query("SELECT id, name FROM pickup_zones", rs -> {
+            zoneIds.put(rs.getString(2), rs.getInt(1));
+            zoneNames.put(rs.getInt(1), rs.getString(2));
+        });
+    }
+}
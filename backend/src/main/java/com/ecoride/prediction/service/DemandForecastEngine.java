@@ -0,0 +1,349 @@
+package com.ecoride.prediction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Campus-wide demand/supply forecast per (pickup zone, weekly hour slot).
+ *
+ * Completed rides are streamed from a forward-only cursor and decoded into fixed-size chunks of
+ * primitive columns. The forecast per cell is an exponentially weighted average of the same slot
+ * across weeks; that average is linear in the weekly counts, so each row is weighted by its week
+ * as it is aggregated. Fork-join tasks add weighted rows into per-worker zone × slot arrays, the
+ * arrays are merged in parallel, and the result is published under a new run id. Memory is
+ * proportional to zones × slots per worker, independent of the history length.
+ */
+@Slf4j
+@Component
+public class DemandForecastEngine {
+
+    private static final int CHUNK_ROWS = 16_384;
+    private static final int LEAF_ROWS = 2_048;
+    private static final int MERGE_LEAF = 1 << 16;
+    private static final int INSERT_BATCH = 1_000;
+    /** Cells below this on both series are not published. */
+    private static final double MIN_PUBLISHED = 0.05;
+    private static final int RUNS_KEPT = 3;
+
+    public record RunSummary(long runId, long rides, int zones, int cells, long durationMs) {
+    }
+
+    /** Decoded rows of one streamed chunk. */
+    private static final class Chunk {
+        final int[] zone = new int[CHUNK_ROWS];
+        final int[] week = new int[CHUNK_ROWS];
+        final int[] slot = new int[CHUNK_ROWS];
+        final int[] riders = new int[CHUNK_ROWS];
+        final int[] seats = new int[CHUNK_ROWS];
+        int size;
+    }
+
+    /** One worker's private week-weighted sums, indexed [zone * SLOTS + slot]. */
+    private static final class Accumulator {
+        final double[] riders;
+        final double[] seats;
+
+        Accumulator(int cells) {
+            riders = new double[cells];
+            seats = new double[cells];
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CommutePatterns commutePatterns;
+    private final ZoneId zone;
+    private final int historyWeeks;
+    private final double smoothing;
+    private final int parallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DemandForecastEngine(JdbcTemplate jdbcTemplate,
+                                CommutePatterns commutePatterns,
+                                @Value("${ecoride.carbon.rollups.zone-id:Asia/Kolkata}") String zoneId,
+                                @Value("${ecoride.forecast.history-weeks:52}") int historyWeeks,
+                                @Value("${ecoride.forecast.smoothing:0.3}") double smoothing,
+                                @Value("${ecoride.forecast.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.commutePatterns = commutePatterns;
+        this.zone = ZoneId.of(zoneId);
+        this.historyWeeks = Math.max(1, historyWeeks);
+        this.smoothing = smoothing;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(cron = "${ecoride.forecast.cron:0 30 2 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /** Runs one forecast; returns null if a run is already in progress on this node. */
+    public RunSummary run() {
+        if (!running.compareAndSet(false, true)) return null;
+        long start = System.currentTimeMillis();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Looked up read-only: registering zones here would write in the middle of the cursor
+            Map<String, Integer> zoneIds = commutePatterns.zoneIdsByName();
+            int zones = zoneIds.values().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
+
+            LocalDate thisMonday = LocalDate.now(zone).with(DayOfWeek.MONDAY);
+            LocalDate firstMonday = thisMonday.minusWeeks(historyWeeks);
+            long firstDay = firstMonday.toEpochDay();
+            long endDay = thisMonday.toEpochDay();
+            int cells = zones * CommutePatterns.SLOTS_PER_WEEK;
+
+            Accumulator[] perWorker = new Accumulator[parallelism + 1];
+            long rides = aggregate(pool, perWorker, weekWeights(), cells, zoneIds,
+                    firstMonday.atStartOfDay(zone).toInstant(), thisMonday.atStartOfDay(zone).toInstant(),
+                    firstDay, endDay);
+            Accumulator totals = merge(pool, perWorker, cells);
+
+            RunSummary summary = publish(totals.riders, totals.seats, zones, rides, start);
+            log.info("Demand forecast run {}: {} rides over {} weeks, {} zones, {} cells in {} ms",
+                    summary.runId(), rides, historyWeeks, zones, summary.cells(), summary.durationMs());
+            return summary;
+        } finally {
+            pool.shutdown();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Weight of each week's counts in the seasonal baseline, oldest week first. Unrolling
+     * {@code b(0) = x(0); b(w) = s·x(w) + (1−s)·b(w−1)} gives (1−s)^(W−1) for week 0 and
+     * s·(1−s)^(W−1−w) for every later week, so recent weeks weigh most and quiet weeks still
+     * pull the forecast down.
+     */
+    private double[] weekWeights() {
+        double[] weights = new double[historyWeeks];
+        weights[0] = Math.pow(1 - smoothing, historyWeeks - 1);
+        for (int w = 1; w < historyWeeks; w++) {
+            weights[w] = smoothing * Math.pow(1 - smoothing, historyWeeks - 1 - w);
+        }
+        return weights;
+    }
+
+    /**
+     * Single reader streams rows into chunks; each full chunk is handed to the pool.
+     * A semaphore bounds chunks in flight, so chunk memory is bounded however long the history is.
+     */
+    private long aggregate(ForkJoinPool pool, Accumulator[] perWorker, double[] weights, int cells,
+                           Map<String, Integer> zoneIds, Instant from, Instant to, long firstDay, long endDay) {
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        Chunk[] current = {new Chunk()};
+        long[] rows = {0};
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                            SELECT r.pickup_zone, r.departure_time, r.available_seats,
+                                   (SELECT COUNT(*) FROM ride_participants p
+                                    WHERE p.ride_id = r.id AND p.status = 'CONFIRMED') AS riders
+                            FROM rides r
+                            WHERE r.status = 'COMPLETED' AND r.departure_time >= ? AND r.departure_time < ?
+                            """,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+            ps.setTimestamp(1, Timestamp.from(from));
+            ps.setTimestamp(2, Timestamp.from(to));
+            return ps;
+        }, rs -> {
+            Integer zoneId = zoneIds.get(rs.getString(1).trim().toLowerCase(Locale.ROOT));
+            if (zoneId == null) return;  // registered after this run started
+            ZonedDateTime local = rs.getTimestamp(2).toInstant().atZone(zone);
+            long day = local.toLocalDate().toEpochDay();
+            if (day < firstDay || day >= endDay) return;
+
+            Chunk c = current[0];
+            int riders = rs.getInt(4);
+            c.zone[c.size] = zoneId;
+            c.week[c.size] = (int) ((day - firstDay) / 7);
+            c.slot[c.size] = (local.getDayOfWeek().getValue() - 1) * 24 + local.getHour();
+            c.riders[c.size] = riders;
+            c.seats[c.size] = riders + rs.getInt(3);
+            c.size++;
+            rows[0]++;
+            if (c.size == CHUNK_ROWS) {
+                tasks.add(submit(pool, inFlight, c, perWorker, weights, cells));
+                current[0] = new Chunk();
+            }
+        });
+        if (current[0].size > 0) tasks.add(submit(pool, inFlight, current[0], perWorker, weights, cells));
+        tasks.forEach(ForkJoinTask::join);
+        return rows[0];
+    }
+
+    private ForkJoinTask<?> submit(ForkJoinPool pool, Semaphore inFlight, Chunk chunk,
+                                   Accumulator[] perWorker, double[] weights, int cells) {
+        inFlight.acquireUninterruptibly();
+        return pool.submit(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                try {
+                    new Aggregate(chunk, perWorker, weights, cells, 0, chunk.size).invoke();
+                } finally {
+                    inFlight.release();
+                }
+            }
+        });
+    }
+
+    /** Adds a row range of a chunk, weighted by week, into the running worker's private accumulator. */
+    private static final class Aggregate extends RecursiveAction {
+        private final Chunk chunk;
+        private final Accumulator[] perWorker;
+        private final double[] weights;
+        private final int cells;
+        private final int from;
+        private final int to;
+
+        Aggregate(Chunk chunk, Accumulator[] perWorker, double[] weights, int cells, int from, int to) {
+            this.chunk = chunk;
+            this.perWorker = perWorker;
+            this.weights = weights;
+            this.cells = cells;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Aggregate(chunk, perWorker, weights, cells, from, mid),
+                          new Aggregate(chunk, perWorker, weights, cells, mid, to));
+                return;
+            }
+            // A worker only ever touches its own slot. Joins from outside the pool may run a task
+            // on the calling thread (as may compensation workers), so those share the last slot.
+            int shared = perWorker.length - 1;
+            int worker = Thread.currentThread() instanceof ForkJoinWorkerThread w && w.getPoolIndex() < shared
+                    ? w.getPoolIndex() : shared;
+            if (worker < shared) {
+                add(accumulator(worker));
+            } else {
+                synchronized (perWorker) {
+                    add(accumulator(worker));
+                }
+            }
+        }
+
+        private Accumulator accumulator(int worker) {
+            Accumulator acc = perWorker[worker];
+            if (acc == null) acc = perWorker[worker] = new Accumulator(cells);
+            return acc;
+        }
+
+        private void add(Accumulator acc) {
+            for (int i = from; i < to; i++) {
+                int cell = chunk.zone[i] * CommutePatterns.SLOTS_PER_WEEK + chunk.slot[i];
+                double weight = weights[chunk.week[i]];
+                acc.riders[cell] += weight * chunk.riders[i];
+                acc.seats[cell] += weight * chunk.seats[i];
+            }
+        }
+    }
+
+    /** Sums the per-worker accumulators, splitting the cell range across the pool. */
+    private Accumulator merge(ForkJoinPool pool, Accumulator[] perWorker, int cells) {
+        Accumulator totals = new Accumulator(cells);
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                mergeRange(0, cells);
+            }
+
+            private void mergeRange(int from, int to) {
+                if (to - from > MERGE_LEAF) {
+                    int mid = (from + to) >>> 1;
+                    invokeAll(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            mergeRange(from, mid);
+                        }
+                    }, new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            mergeRange(mid, to);
+                        }
+                    });
+                    return;
+                }
+                for (Accumulator acc : perWorker) {
+                    if (acc == null) continue;
+                    for (int i = from; i < to; i++) {
+                        totals.riders[i] += acc.riders[i];
+                        totals.seats[i] += acc.seats[i];
+                    }
+                }
+            }
+        });
+        return totals;
+    }
+
+    private RunSummary publish(double[] riders, double[] seats, int zones, long rides, long start) {
+        GeneratedKeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO demand_forecast_runs (history_weeks, rides_processed) VALUES (?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, historyWeeks);
+            ps.setLong(2, rides);
+            return ps;
+        }, key);
+        long runId = key.getKey().longValue();
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        int cells = 0;
+        for (int z = 0; z < zones; z++) {
+            for (int slot = 0; slot < CommutePatterns.SLOTS_PER_WEEK; slot++) {
+                int cell = z * CommutePatterns.SLOTS_PER_WEEK + slot;
+                if (riders[cell] < MIN_PUBLISHED && seats[cell] < MIN_PUBLISHED) continue;
+                batch.add(new Object[]{runId, z, slot, riders[cell], seats[cell]});
+                cells++;
+                if (batch.size() == INSERT_BATCH) {
+                    insertCells(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) insertCells(batch);
+
+        long duration = System.currentTimeMillis() - start;
+        jdbcTemplate.update("UPDATE demand_forecast_runs SET finished = TRUE, duration_ms = ? WHERE id = ?",
+                duration, runId);
+        jdbcTemplate.update("""
+                DELETE FROM demand_forecast_runs
+                WHERE id < (SELECT min_id FROM (SELECT MIN(id) AS min_id FROM
+                            (SELECT id FROM demand_forecast_runs WHERE finished ORDER BY id DESC LIMIT ?) t) m)
+                """, RUNS_KEPT);
+        return new RunSummary(runId, rides, zones, cells, duration);
+    }
+
+    private void insertCells(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO demand_forecasts (run_id, zone_id, slot, expected_riders, expected_seats)
+                VALUES (?, ?, ?, ?, ?)
+                """, batch);
+    }
+}
@@ -0,0 +1,94 @@
+package com.ecoride.prediction.service;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.prediction.dto.DemandHeatmapDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Read side of the demand forecast. A published run never changes, so the decoded heatmap is
+ * cached until a newer finished run appears.
+ */
+@Service
+@RequiredArgsConstructor
+public class DemandForecastService {
+
+    private record Run(long id, String generatedAt, int historyWeeks, long ridesProcessed) {
+    }
+
+    private record Cached(Run run, Map<String, DemandHeatmapDto.Zone> zones) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CommutePatterns commutePatterns;
+    private final AtomicReference<Cached> cache = new AtomicReference<>();
+
+    public DemandHeatmapDto getHeatmap(String zone) {
+        List<Run> latest = jdbcTemplate.query("""
+                        SELECT id, generated_at, history_weeks, rides_processed
+                        FROM demand_forecast_runs WHERE finished ORDER BY id DESC LIMIT 1
+                        """,
+                (rs, i) -> new Run(rs.getLong(1), rs.getTimestamp(2).toInstant().toString(), rs.getInt(3), rs.getLong(4)));
+        if (latest.isEmpty()) {
+            throw ApiException.serviceUnavailable("No demand forecast has been generated yet");
+        }
+        Run run = latest.get(0);
+
+        Cached cached = cache.get();
+        if (cached == null || cached.run().id() != run.id()) {
+            cached = new Cached(run, load(run.id()));
+            cache.set(cached);
+        }
+
+        List<DemandHeatmapDto.Zone> zones;
+        if (zone == null || zone.isBlank()) {
+            zones = new ArrayList<>(cached.zones().values());
+        } else {
+            DemandHeatmapDto.Zone z = cached.zones().get(zone.trim());
+            if (z == null) throw ApiException.notFound("No forecast for pickup zone " + zone.trim());
+            zones = List.of(z);
+        }
+        return DemandHeatmapDto.builder()
+                .runId(run.id())
+                .generatedAt(run.generatedAt())
+                .historyWeeks(run.historyWeeks())
+                .ridesProcessed(run.ridesProcessed())
+                .zones(zones)
+                .build();
+    }
+
+    private Map<String, DemandHeatmapDto.Zone> load(long runId) {
+        Map<Integer, double[][][]> grids = new TreeMap<>();
+        jdbcTemplate.query("SELECT zone_id, slot, expected_riders, expected_seats FROM demand_forecasts WHERE run_id = ?",
+                rs -> {
+                    double[][][] g = grids.computeIfAbsent(rs.getInt(1), z -> new double[2][7][24]);
+                    int slot = rs.getInt(2);
+                    g[0][slot / 24][slot % 24] = round(rs.getDouble(3));
+                    g[1][slot / 24][slot % 24] = round(rs.getDouble(4));
+                }, runId);
+
+        Map<String, DemandHeatmapDto.Zone> zones = new TreeMap<>();
+        grids.forEach((zoneId, g) -> {
+            double[][] gap = new double[7][24];
+            for (int d = 0; d < 7; d++) {
+                for (int h = 0; h < 24; h++) gap[d][h] = round(g[0][d][h] - g[1][d][h]);
+            }
+            String name = commutePatterns.zoneName(zoneId);
+            zones.put(name, DemandHeatmapDto.Zone.builder()
+                    .pickupZone(name)
+                    .expectedRiders(g[0])
+                    .expectedSeats(g[1])
+                    .seatGap(gap)
+                    .build());
+        });
+        return zones;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 100) / 100.0;
+    }
+}
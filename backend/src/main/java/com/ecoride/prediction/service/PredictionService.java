@@ -1,10 +1,7 @@
 package com.ecoride.prediction.service;
 
-import com.ecoride.carbon.entity.CarbonTransaction;
-import com.ecoride.carbon.repository.CarbonTransactionRepository;
 import com.ecoride.common.exception.ApiException;
 import com.ecoride.prediction.dto.PredictionDto;
-import com.ecoride.ride.entity.Ride;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -12,8 +9,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,43 +16,26 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PredictionService {
 
-    private static final ZoneId IST = ZoneId.of("Asia/Kolkata");
     private static final int MIN_RIDES_FOR_PATTERN = 2;
 
-    private final CarbonTransactionRepository carbonTransactionRepository;
+    private final CommutePatterns commutePatterns;
     private final UserRepository userRepository;
 
     /**
-     * Analyze past ride history to detect recurring patterns.
-     * Groups rides by (zone, dayOfWeek, hourSlot) and surfaces patterns
-     * that appear at least MIN_RIDES_FOR_PATTERN times.
+     * Surface recurring (zone, dayOfWeek, hourSlot) patterns seen at least MIN_RIDES_FOR_PATTERN
+     * times. Counters are maintained on ride completion, so this is one indexed read.
      */
     @Transactional(readOnly = true)
     public List<PredictionDto> getSuggestions(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> ApiException.notFound("User not found"));
 
-        List<CarbonTransaction> history = carbonTransactionRepository.findByUserId(user.getId());
-
-        // Group by (zone, dayOfWeek, hour)
-        Map<String, List<Ride>> patterns = new LinkedHashMap<>();
-        for (CarbonTransaction tx : history) {
-            Ride ride = tx.getRide();
-            ZonedDateTime zdt = ride.getDepartureTime().atZone(IST);
-            int hour = zdt.getHour();
-            DayOfWeek dow = zdt.getDayOfWeek();
-            String key = ride.getPickupZone() + "|" + dow.name() + "|" + hour;
-            patterns.computeIfAbsent(key, k -> new ArrayList<>()).add(ride);
-        }
-
-        return patterns.entrySet().stream()
-                .filter(e -> e.getValue().size() >= MIN_RIDES_FOR_PATTERN)
-                .map(e -> {
-                    String[] parts = e.getKey().split("\\|");
-                    String zone = parts[0];
-                    String dow  = parts[1];
-                    String time = String.format("%02d:00", Integer.parseInt(parts[2]));
-                    int count = e.getValue().size();
+        return commutePatterns.forUser(user.getId(), MIN_RIDES_FOR_PATTERN).stream()
+                .map(p -> {
+                    String zone = commutePatterns.zoneName(p.zoneId());
+                    String dow  = DayOfWeek.of(p.dayOfWeek()).name();
+                    String time = String.format("%02d:00", p.hour());
+                    int count = p.rideCount();
                     return PredictionDto.builder()
                             .pickupZone(zone)
                             .dayOfWeek(dow)
@@ -68,7 +46,6 @@ public class PredictionService {
                                     zone, capitalize(dow), time, count))
                             .build();
                 })
-                .sorted(Comparator.comparingInt(PredictionDto::getRideCount).reversed())
                 .collect(Collectors.toList());
     }
 
@@ -0,0 +1,37 @@
+package com.ecoride.reward.controller;
+
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.reward.dto.RedemptionDto;
+import com.ecoride.reward.dto.RewardDto;
+import com.ecoride.reward.service.RewardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/rewards")
+@RequiredArgsConstructor
+public class RewardController {
+
+    private final RewardService rewardService;
+
+    @GetMapping
+    public ApiResponse<List<RewardDto>> getCatalogue() {
+        return ApiResponse.ok(rewardService.getCatalogue());
+    }
+
+    @PostMapping("/{rewardId}/redeem")
+    public ApiResponse<RedemptionDto> redeem(@AuthenticationPrincipal UserDetails principal,
+                                             @PathVariable UUID rewardId) {
+        return ApiResponse.ok("Reward redeemed", rewardService.redeem(principal.getUsername(), rewardId));
+    }
+
+    @GetMapping("/redemptions")
+    public ApiResponse<List<RedemptionDto>> getMyRedemptions(@AuthenticationPrincipal UserDetails principal) {
+        return ApiResponse.ok(rewardService.getMyRedemptions(principal.getUsername()));
+    }
+}
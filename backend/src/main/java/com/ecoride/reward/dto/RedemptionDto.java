@@ -0,0 +1,21 @@
+package com.ecoride.reward.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+public class RedemptionDto {
+    private UUID id;
+    private UUID rewardId;
+    private String brand;
+    private String name;
+    private int faceValue;
+    private int costCredits;
+    private String voucherCode;
+    private Instant createdAt;
+    private Long remainingCredits;  // only set on the redeem response
+}
@@ -0,0 +1,18 @@
+package com.ecoride.reward.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class RewardDto {
+    private UUID id;
+    private String brand;
+    private String name;
+    private String category;
+    private int faceValue;          // rupees
+    private int costCredits;
+    private int available;
+}
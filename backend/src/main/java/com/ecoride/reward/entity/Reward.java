@@ -0,0 +1,52 @@
+package com.ecoride.reward.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Entity
+@Table(name = "rewards")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Reward {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false, length = 50)
+    private String brand;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(length = 50)
+    private String category;
+
+    @Column(name = "face_value", nullable = false)
+    private int faceValue;
+
+    @Column(name = "cost_credits", nullable = false)
+    private int costCredits;
+
+    @Column(name = "total_stock", nullable = false)
+    private int totalStock;
+
+    // Only changed by the conditional stock UPDATE in RewardService, never through the entity
+    @Column(name = "redeemed_count", nullable = false, insertable = false, updatable = false)
+    private int redeemedCount;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private boolean active = true;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,11 @@
+package com.ecoride.reward.repository;
+
+import com.ecoride.reward.entity.Redemption;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RedemptionRepository extends JpaRepository<Redemption, UUID> {
+    List<Redemption> findByUserIdOrderByCreatedAtDesc(UUID userId);
+}
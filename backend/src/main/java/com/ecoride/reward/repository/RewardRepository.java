@@ -0,0 +1,11 @@
+package com.ecoride.reward.repository;
+
+import com.ecoride.reward.entity.Reward;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface RewardRepository extends JpaRepository<Reward, UUID> {
+    List<Reward> findByActiveTrueOrderByBrandAscCostCreditsAsc();
+}
@@ -0,0 +1,154 @@
+package com.ecoride.reward.service;
+
+import com.ecoride.carbon.service.CreditLedger;
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.leaderboard.service.LeaderboardService;
+import com.ecoride.reward.dto.RedemptionDto;
+import com.ecoride.reward.dto.RewardDto;
+import com.ecoride.reward.entity.Redemption;
+import com.ecoride.reward.entity.Reward;
+import com.ecoride.reward.repository.RedemptionRepository;
+import com.ecoride.reward.repository.RewardRepository;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class RewardService {
+
+    private static final char[] VOUCHER_ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789".toCharArray();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RewardRepository rewardRepository;
+    private final RedemptionRepository redemptionRepository;
+    private final UserRepository userRepository;
+    private final RewardStock rewardStock;
+    private final CreditLedger creditLedger;
+    private final LeaderboardService leaderboardService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional(readOnly = true)
+    public List<RewardDto> getCatalogue() {
+        return rewardRepository.findByActiveTrueOrderByBrandAscCostCreditsAsc().stream()
+                .map(r -> RewardDto.builder()
+                        .id(r.getId())
+                        .brand(r.getBrand())
+                        .name(r.getName())
+                        .category(r.getCategory())
+                        .faceValue(r.getFaceValue())
+                        .costCredits(r.getCostCredits())
+                        .available(rewardStock.available(r.getId(), r.getTotalStock() - r.getRedeemedCount()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Redeem one unit of a reward for the caller's credits.
+     *
+     * A unit is taken from the in-memory counter first, so sold-out requests fail fast without
+     * touching the database. The transaction then locks the caller's credit balance, takes the
+     * unit with a conditional UPDATE (never below zero), records the redemption and appends the
+     * debit. The stock row is updated first so the foreign-key checks of the later inserts reuse
+     * its lock instead of upgrading a shared lock.
+     */
+    public RedemptionDto redeem(String email, UUID rewardId) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+        Reward reward = rewardRepository.findById(rewardId)
+                .filter(Reward::isActive)
+                .orElseThrow(() -> ApiException.notFound("Reward not found"));
+
+        if (!rewardStock.tryReserve(rewardId)) {
+            throw ApiException.conflict("Reward is sold out");
+        }
+        boolean committed = false;
+        boolean soldOut = false;
+        try {
+            Redemption redemption = transactionTemplate.execute(status -> {
+                long balance = creditLedger.lockBalance(user.getId());
+                if (balance < reward.getCostCredits()) {
+                    throw ApiException.conflict("Not enough credits");
+                }
+                int taken = jdbcTemplate.update("""
+                        UPDATE rewards SET redeemed_count = redeemed_count + 1
+                        WHERE id = ? AND active AND redeemed_count < total_stock
+                        """, rewardId.toString());
+                if (taken == 0) {
+                    return null;
+                }
+                Redemption saved = redemptionRepository.save(Redemption.builder()
+                        .rewardId(rewardId)
+                        .userId(user.getId())
+                        .costCredits(reward.getCostCredits())
+                        .voucherCode(voucherCode())
+                        .build());
+                creditLedger.append(user.getId(), CreditLedger.EntryType.REDEEM, -reward.getCostCredits(), saved.getId());
+                leaderboardService.update(user);
+                return saved;
+            });
+            if (redemption == null) {
+                soldOut = true;
+                throw ApiException.conflict("Reward is sold out");
+            }
+            committed = true;
+            RedemptionDto dto = toDto(redemption, reward);
+            dto.setRemainingCredits(creditLedger.balance(user.getId()));
+            return dto;
+        } finally {
+            if (soldOut) {
+                rewardStock.markSoldOut(rewardId);
+            } else if (!committed) {
+                rewardStock.release(rewardId);
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<RedemptionDto> getMyRedemptions(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+        List<Redemption> redemptions = redemptionRepository.findByUserIdOrderByCreatedAtDesc(user.getId());
+        Map<UUID, Reward> rewards = rewardRepository.findAllById(
+                        redemptions.stream().map(Redemption::getRewardId).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Reward::getId, Function.identity()));
+        return redemptions.stream()
+                .map(r -> toDto(r, rewards.get(r.getRewardId())))
+                .collect(Collectors.toList());
+    }
+
+    private RedemptionDto toDto(Redemption redemption, Reward reward) {
+        return RedemptionDto.builder()
+                .id(redemption.getId())
+                .rewardId(redemption.getRewardId())
+                .brand(reward != null ? reward.getBrand() : null)
+                .name(reward != null ? reward.getName() : null)
+                .faceValue(reward != null ? reward.getFaceValue() : 0)
+                .costCredits(redemption.getCostCredits())
+                .voucherCode(redemption.getVoucherCode())
+                .createdAt(redemption.getCreatedAt())
+                .build();
+    }
+
+    /** 16 unambiguous characters in groups of four, e.g. K7QM-2XPA-9RTE-H4WC. */
+    private static String voucherCode() {
+        StringBuilder sb = new StringBuilder(19);
+        for (int i = 0; i < 16; i++) {
+            if (i > 0 && i % 4 == 0) sb.append('-');
+            sb.append(VOUCHER_ALPHABET[RANDOM.nextInt(VOUCHER_ALPHABET.length)]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecoride.reward.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory stock counters that admit redemptions before they reach the database.
+ *
+ * A redeemer first takes a unit here with a CAS; only holders of a unit open a transaction, so a
+ * rush on one item turns into at most "remaining stock" row updates instead of hundreds of
+ * requests queueing on the reward row. The counters are a gate, not the record: the conditional
+ * UPDATE on rewards.redeemed_count stays authoritative, and a periodic refresh resyncs with
+ * sales made on other nodes.
+ */
+@Component
+@RequiredArgsConstructor
+public class RewardStock {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<UUID, AtomicInteger> available = new ConcurrentHashMap<>();
+
+    /** Take one unit; false when sold out. Unknown rewards are left to the database to decide. */
+    public boolean tryReserve(UUID rewardId) {
+        AtomicInteger counter = available.get(rewardId);
+        if (counter == null) return true;
+        while (true) {
+            int n = counter.get();
+            if (n <= 0) return false;
+            if (counter.compareAndSet(n, n - 1)) return true;
+        }
+    }
+
+    /** Return a unit whose redemption did not commit. */
+    public void release(UUID rewardId) {
+        AtomicInteger counter = available.get(rewardId);
+        if (counter != null) counter.incrementAndGet();
+    }
+
+    /** The database refused the unit: another node sold the rest. */
+    public void markSoldOut(UUID rewardId) {
+        AtomicInteger counter = available.get(rewardId);
+        if (counter != null) counter.set(0);
+    }
+
+    public int available(UUID rewardId, int fallback) {
+        AtomicInteger counter = available.get(rewardId);
+        return counter == null ? fallback : Math.max(0, counter.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ecoride.rewards.stock-refresh-ms:30000}",
+               initialDelayString = "${ecoride.rewards.stock-refresh-ms:30000}")
+    public void refresh() {
+        jdbcTemplate.query("SELECT id, total_stock - redeemed_count FROM rewards WHERE active", rs -> {
+            UUID id = UUID.fromString(rs.getString(1));
+            int remaining = rs.getInt(2);
+            available.computeIfAbsent(id, k -> new AtomicInteger()).set(remaining);
+        });
+    }
+}
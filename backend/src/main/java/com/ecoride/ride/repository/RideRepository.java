@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -29,4 +30,6 @@ public interface RideRepository extends JpaRepository<Ride, UUID> {
     List<Ride> findByDriver_Id(UUID driverId);
 
     List<Ride> findByDriver_IdOrderByDepartureTimeAsc(UUID driverId);
+
+    List<Ride> findByDriver_IdAndIdIn(UUID driverId, Collection<UUID> ids);
 }
@@ -2,6 +2,8 @@ package com.ecoride.ride.service;
 
 import com.ecoride.carbon.service.CarbonService;
 import com.ecoride.common.exception.ApiException;
+import com.ecoride.leaderboard.service.LeaderboardService;
+import com.ecoride.prediction.service.CommutePatterns;
 import com.ecoride.ride.dto.CreateRideRequest;
 import com.ecoride.ride.dto.MyRideDto;
 import com.ecoride.ride.dto.RideDto;
@@ -9,6 +11,7 @@ import com.ecoride.ride.entity.Ride;
 import com.ecoride.ride.entity.RideParticipant;
 import com.ecoride.ride.repository.RideParticipantRepository;
 import com.ecoride.ride.repository.RideRepository;
+import com.ecoride.sync.service.ChangeLog;
 import com.ecoride.trust.service.TrustService;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
@@ -16,6 +19,9 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Stream;
@@ -29,6 +35,9 @@ public class RideService {
     private final UserRepository userRepository;
     private final TrustService trustService;
     private final CarbonService carbonService;
+    private final ChangeLog changeLog;
+    private final LeaderboardService leaderboardService;
+    private final CommutePatterns commutePatterns;
 
     @Transactional
     public RideDto createRide(String driverEmail, CreateRideRequest req) {
@@ -45,7 +54,9 @@ public class RideService {
                 .pricePerSeat(req.getPricePerSeat())
                 .build();
 
-        return RideDto.from(rideRepository.save(ride));
+        Ride saved = rideRepository.save(ride);
+        changeLog.recordRide(saved.getId(), List.of(driver.getId()));
+        return RideDto.from(saved);
     }
 
     @Transactional
@@ -77,6 +88,7 @@ public class RideService {
             ride.setStatus(Ride.Status.FULL);
             rideRepository.save(ride);
         }
+        recordRideChange(ride);
     }
 
     @Transactional
@@ -97,6 +109,7 @@ public class RideService {
 
         rp.setStatus(RideParticipant.Status.CONFIRMED);
         participantRepository.save(rp);
+        recordRideChange(ride);
     }
 
     /**
@@ -121,6 +134,7 @@ public class RideService {
 
         ride.setStatus(Ride.Status.COMPLETED);
         rideRepository.save(ride);
+        carbonService.recordRideCompleted();
 
         List<RideParticipant> confirmed = participantRepository.findByRideAndStatus(
                 ride, RideParticipant.Status.CONFIRMED);
@@ -129,15 +143,14 @@ public class RideService {
         driver.setRidesCompleted(driver.getRidesCompleted() + 1);
         driver.setTrustScore(driver.getTrustScore() + 5);
         userRepository.save(driver);
+        leaderboardService.update(driver);
 
         for (RideParticipant rp : confirmed) {
             User participant = rp.getUser();
             participant.setRidesCompleted(participant.getRidesCompleted() + 1);
             participant.setTrustScore(participant.getTrustScore() + 3);
             userRepository.save(participant);
-
-            // Trust connection
-            trustService.recordSharedRide(driver.getId(), participant.getId());
+            leaderboardService.update(participant);
 
             // Carbon credits for passenger
             carbonService.recordCarbonSaving(participant, ride);
@@ -145,6 +158,16 @@ public class RideService {
 
         // Carbon for driver too
         carbonService.recordCarbonSaving(driver, ride);
+
+        // Trust connections, driver to each participant
+        List<UUID> riders = new ArrayList<>(confirmed.size() + 1);
+        confirmed.forEach(rp -> riders.add(rp.getUser().getId()));
+        trustService.recordSharedRides(driver.getId(), riders);
+
+        riders.add(driver.getId());
+        commutePatterns.recordRide(ride.getPickupZone(), ride.getDepartureTime(), riders);
+
+        recordRideChange(ride);
     }
 
     @Transactional
@@ -162,6 +185,7 @@ public class RideService {
 
         ride.setStatus(Ride.Status.CANCELLED);
         rideRepository.save(ride);
+        recordRideChange(ride);
     }
 
     @Transactional(readOnly = true)
@@ -190,6 +214,32 @@ public class RideService {
             .toList();
         }
 
+    /** The caller's view of specific rides, as driver or passenger; used by delta sync. */
+    @Transactional(readOnly = true)
+    public List<MyRideDto> getMyRides(User user, Collection<UUID> rideIds) {
+        if (rideIds.isEmpty()) return List.of();
+
+        List<MyRideDto> driving = rideRepository.findByDriver_IdAndIdIn(user.getId(), rideIds).stream()
+                .map(MyRideDto::fromDriverRide)
+                .toList();
+
+        List<MyRideDto> passenger = participantRepository.findByUser_IdAndRide_IdIn(user.getId(), rideIds).stream()
+                .map(rp -> MyRideDto.fromParticipantRide(rp.getRide(), rp))
+                .toList();
+
+        return Stream.concat(driving.stream(), passenger.stream())
+                .sorted(Comparator.comparing(MyRideDto::getDepartureTime))
+                .toList();
+    }
+
+    /** Append a sync change for the driver and everyone who has a participant row on the ride. */
+    private void recordRideChange(Ride ride) {
+        List<UUID> userIds = new ArrayList<>();
+        userIds.add(ride.getDriver().getId());
+        participantRepository.findByRide(ride).forEach(rp -> userIds.add(rp.getUser().getId()));
+        changeLog.recordRide(ride.getId(), userIds);
+    }
+
     private Ride getRideOrThrow(UUID rideId) {
         return rideRepository.findById(rideId)
                 .orElseThrow(() -> ApiException.notFound("Ride not found"));
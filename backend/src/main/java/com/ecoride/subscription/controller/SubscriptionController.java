@@ -2,7 +2,9 @@ package com.ecoride.subscription.controller;
 
 import com.ecoride.common.response.ApiResponse;
 import com.ecoride.subscription.dto.CreateSubscriptionRequest;
+import com.ecoride.subscription.dto.PoolProposalDto;
 import com.ecoride.subscription.dto.SubscriptionDto;
+import com.ecoride.subscription.service.PoolProposalService;
 import com.ecoride.subscription.service.SubscriptionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,7 @@ import java.util.UUID;
 public class SubscriptionController {
 
     private final SubscriptionService subscriptionService;
+    private final PoolProposalService poolProposalService;
 
     /** POST /subscription — create a new recurring ride pool */
     @PostMapping
@@ -36,8 +39,30 @@ public class SubscriptionController {
     public ApiResponse<SubscriptionDto> join(
             @AuthenticationPrincipal UserDetails principal,
             @PathVariable UUID id) {
-        return ApiResponse.ok("Joined subscription pool",
-                subscriptionService.joinPool(principal.getUsername(), id));
+        SubscriptionDto pool = subscriptionService.joinPool(principal.getUsername(), id);
+        return ApiResponse.ok(pool.getWaitlistPosition() == null
+                ? "Joined subscription pool"
+                : "Pool is full, added to waitlist at position " + pool.getWaitlistPosition(), pool);
+    }
+
+    /** POST /subscription/{id}/leave — leave a pool (or its waitlist); the next waitlisted user takes the place */
+    @PostMapping("/{id}/leave")
+    public ApiResponse<Void> leave(
+            @AuthenticationPrincipal UserDetails principal,
+            @PathVariable UUID id) {
+        subscriptionService.leavePool(principal.getUsername(), id);
+        return ApiResponse.ok("Left subscription pool");
+    }
+
+    /** GET /subscription/search?zone=A&dayOfWeek=1&from=07:30&to=09:00 — discover pools to join */
+    @GetMapping("/search")
+    public ApiResponse<List<SubscriptionDto>> search(
+            @RequestParam String zone,
+            @RequestParam int dayOfWeek,
+            @RequestParam(defaultValue = "00:00") String from,
+            @RequestParam(defaultValue = "23:59") String to,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ApiResponse.ok(subscriptionService.search(zone, dayOfWeek, from, to, limit));
     }
 
     /** GET /subscription/my — get all pools the current user is a member of */
@@ -46,4 +71,20 @@ public class SubscriptionController {
             @AuthenticationPrincipal UserDetails principal) {
         return ApiResponse.ok(subscriptionService.getMyPools(principal.getUsername()));
     }
+
+    /** GET /subscription/proposals — suggested pools with commuters who share your schedule */
+    @GetMapping("/proposals")
+    public ApiResponse<List<PoolProposalDto>> proposals(
+            @AuthenticationPrincipal UserDetails principal) {
+        return ApiResponse.ok(poolProposalService.getMyProposals(principal.getUsername()));
+    }
+
+    /** POST /subscription/proposals/{id}/accept — create the proposed pool, or join it if already created */
+    @PostMapping("/proposals/{id}/accept")
+    public ApiResponse<SubscriptionDto> acceptProposal(
+            @AuthenticationPrincipal UserDetails principal,
+            @PathVariable UUID id) {
+        return ApiResponse.ok("Pool proposal accepted",
+                poolProposalService.accept(principal.getUsername(), id));
+    }
 }
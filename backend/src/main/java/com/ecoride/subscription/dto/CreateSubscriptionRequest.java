@@ -15,4 +15,8 @@ public class CreateSubscriptionRequest {
     /** 0=Sun, 6=Sat */
     @Min(0) @Max(6)
     private int dayOfWeek;
+
+    /** Optional maximum members including the creator; omitted = unlimited */
+    @Min(1) @Max(20)
+    private Integer capacity;
 }
@@ -0,0 +1,29 @@
+package com.ecoride.subscription.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+public class PoolProposalDto {
+    @Data
+    @Builder
+    public static class Member {
+        private UUID userId;
+        private String name;
+        private String department;
+        private int rideCount;          // the member's past rides in this zone/day/hour
+    }
+
+    private UUID id;
+    private String pickupZone;
+    private String departureTime;       // "HH:mm"
+    private int dayOfWeek;              // 0=Sun, 6=Sat
+    private String dayName;
+    private double similarity;          // 0-1, how alike the members' weekly patterns are
+    private UUID poolId;                // set once a member has accepted
+    private List<Member> members;
+}
@@ -15,4 +15,6 @@ public class SubscriptionDto {
     private String dayName;
     private UUID createdBy;
     private long memberCount;
+    private Integer capacity;           // null = unlimited
+    private Integer waitlistPosition;   // only set when a join was waitlisted (1 = next in line)
 }
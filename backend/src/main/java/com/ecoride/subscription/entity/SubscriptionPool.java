@@ -31,6 +31,15 @@ public class SubscriptionPool {
     @Column(name = "day_of_week", nullable = false)
     private int dayOfWeek;  // 0=Sun, 6=Sat
 
+    /** Maintained by SubscriptionService with atomic increments; never written through the entity after insert. */
+    @Column(name = "member_count", nullable = false, updatable = false)
+    @Builder.Default
+    private int memberCount = 1;
+
+    /** Maximum members including the creator; null means unlimited. */
+    @Column(name = "capacity")
+    private Integer capacity;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "created_by", nullable = false)
     private User createdBy;
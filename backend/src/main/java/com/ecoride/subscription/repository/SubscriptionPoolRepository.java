@@ -2,17 +2,42 @@ package com.ecoride.subscription.repository;
 
 import com.ecoride.subscription.entity.SubscriptionPool;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalTime;
 import java.util.List;
 import java.util.UUID;
 
 public interface SubscriptionPoolRepository extends JpaRepository<SubscriptionPool, UUID> {
 
-    @Query("SELECT sp FROM SubscriptionPool sp " +
-           "WHERE sp.id IN (SELECT sm.poolId FROM SubscriptionMember sm WHERE sm.userId = :userId)")
-    List<SubscriptionPool> findPoolsByMember(@Param("userId") UUID userId);
+    /** Pool columns needed for a SubscriptionDto, without loading the creator. */
+    record PoolSummary(UUID id, String pickupZone, LocalTime departureTime, int dayOfWeek,
+                       UUID createdBy, int memberCount, Integer capacity) {
+    }
+
+    @Query("SELECT new com.ecoride.subscription.repository.SubscriptionPoolRepository$PoolSummary(" +
+           "sp.id, sp.pickupZone, sp.departureTime, sp.dayOfWeek, sp.createdBy.id, sp.memberCount, sp.capacity) " +
+           "FROM SubscriptionPool sp, SubscriptionMember sm " +
+           "WHERE sm.poolId = sp.id AND sm.userId = :userId " +
+           "ORDER BY sp.dayOfWeek, sp.departureTime")
+    List<PoolSummary> findPoolSummariesByMember(@Param("userId") UUID userId);
+
+    /** Takes a place if the pool has room; returns 0 when it is full. */
+    @Modifying
+    @Query(value = "UPDATE subscription_pools SET member_count = member_count + 1 " +
+                   "WHERE id = :id AND (capacity IS NULL OR member_count < capacity)", nativeQuery = true)
+    int admitMember(@Param("id") String id);
+
+    /** Gives a place back; also locks the pool row so promotions from the waitlist serialize. */
+    @Modifying
+    @Query(value = "UPDATE subscription_pools SET member_count = member_count - 1 " +
+                   "WHERE id = :id AND member_count > 0", nativeQuery = true)
+    int releaseMember(@Param("id") String id);
+
+    @Query(value = "SELECT member_count FROM subscription_pools WHERE id = :id", nativeQuery = true)
+    int findMemberCount(@Param("id") String id);
 
     List<SubscriptionPool> findByPickupZoneAndDayOfWeek(String pickupZone, int dayOfWeek);
 }
@@ -0,0 +1,272 @@
+package com.ecoride.subscription.service;
+
+import com.ecoride.prediction.service.CommutePatterns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Batch job that groups commuters with matching recurring patterns into pool proposals.
+ *
+ * Every user's commute_patterns rows form a sparse vector over packed (zone, day, hour) keys.
+ * Instead of comparing users pairwise, the (key, user) entries are sorted by key so each key
+ * becomes a bucket of candidate poolmates. Inside a bucket users are ordered by a MinHash
+ * signature of their whole pattern set, so commuters with similar weeks land next to each other
+ * before the bucket is cut into pool-sized groups. Cost is one streamed scan plus two sorts.
+ */
+@Slf4j
+@Component
+public class PoolProposalJob {
+
+    private static final int SIGNATURE_SIZE = 16;
+    private static final int INSERT_BATCH = 1_000;
+
+    public record RunSummary(int users, int proposals, int members, long durationMs) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CommutePatterns commutePatterns;
+    private final int minRides;
+    private final int maxGroupSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PoolProposalJob(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           CommutePatterns commutePatterns,
+                           @Value("${ecoride.subscription.proposals.min-rides:2}") int minRides,
+                           @Value("${ecoride.subscription.proposals.max-group-size:4}") int maxGroupSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.commutePatterns = commutePatterns;
+        this.minRides = Math.max(1, minRides);
+        this.maxGroupSize = Math.max(2, maxGroupSize);
+    }
+
+    @Scheduled(cron = "${ecoride.subscription.proposals.cron:0 0 3 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /** Replaces all open proposals; returns null if a run is already in progress on this node. */
+    public RunSummary run() {
+        if (!running.compareAndSet(false, true)) return null;
+        long start = System.currentTimeMillis();
+        try {
+            Vectors v = loadVectors();
+            int[] signatures = minHash(v);
+            Set<Long> covered = loadCovered(v.userIndex);
+
+            // Sort (key, entry) pairs so every pattern key is one contiguous bucket
+            long[] byKey = new long[v.entries];
+            int n = 0;
+            for (int e = 0; e < v.entries; e++) {
+                if (covered.contains((long) v.entryUser[e] << 32 | v.entryKey[e])) continue;
+                byKey[n++] = (long) v.entryKey[e] << 32 | e;
+            }
+            byKey = Arrays.copyOf(byKey, n);
+            Arrays.parallelSort(byKey);
+
+            List<Proposal> proposals = new ArrayList<>();
+            for (int from = 0; from < n; ) {
+                int key = (int) (byKey[from] >>> 32);
+                int to = from + 1;
+                while (to < n && (int) (byKey[to] >>> 32) == key) to++;
+                if (to - from >= 2) group(v, signatures, byKey, from, to, key, proposals);
+                from = to;
+            }
+
+            int members = publish(v, proposals);
+            RunSummary summary = new RunSummary(v.userIds.size(), proposals.size(), members,
+                    System.currentTimeMillis() - start);
+            log.info("Pool proposals: {} users, {} proposals with {} members in {} ms",
+                    summary.users(), summary.proposals(), summary.members(), summary.durationMs());
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** Users' sparse pattern vectors in CSR-like form; entries of one user are contiguous. */
+    private static final class Vectors {
+        final List<String> userIds = new ArrayList<>();
+        final Map<String, Integer> userIndex = new HashMap<>();
+        int[] userStart = new int[1024];
+        int[] entryUser = new int[4096];
+        int[] entryKey = new int[4096];
+        int[] entryCount = new int[4096];
+        int entries;
+
+        void add(String userId, int key, int count) {
+            if (userIds.isEmpty() || !userIds.get(userIds.size() - 1).equals(userId)) {
+                int u = userIds.size();
+                if (u + 1 >= userStart.length) userStart = Arrays.copyOf(userStart, userStart.length * 2);
+                userStart[u] = entries;
+                userIds.add(userId);
+                userIndex.put(userId, u);
+            }
+            if (entries == entryKey.length) {
+                int cap = entries * 2;
+                entryUser = Arrays.copyOf(entryUser, cap);
+                entryKey = Arrays.copyOf(entryKey, cap);
+                entryCount = Arrays.copyOf(entryCount, cap);
+            }
+            entryUser[entries] = userIds.size() - 1;
+            entryKey[entries] = key;
+            entryCount[entries] = count;
+            entries++;
+            userStart[userIds.size()] = entries;
+        }
+    }
+
+    private record Proposal(int key, double similarity, int[] entries) {
+    }
+
+    private Vectors loadVectors() {
+        Vectors v = new Vectors();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("""
+                            SELECT user_id, pattern_key, ride_count FROM commute_patterns
+                            WHERE ride_count >= ?
+                            ORDER BY user_id, pattern_key
+                            """,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+            ps.setInt(1, minRides);
+            return ps;
+        }, rs -> {
+            v.add(rs.getString(1), rs.getInt(2), rs.getInt(3));
+        });
+        return v;
+    }
+
+    /** SIGNATURE_SIZE MinHash values per user over the set of their pattern keys. */
+    private static int[] minHash(Vectors v) {
+        int users = v.userIds.size();
+        int[] sig = new int[users * SIGNATURE_SIZE];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        for (int u = 0; u < users; u++) {
+            for (int e = v.userStart[u]; e < v.userStart[u + 1]; e++) {
+                for (int h = 0; h < SIGNATURE_SIZE; h++) {
+                    int hash = mix(v.entryKey[e] * 0x9E3779B9 + h * 0x85EBCA6B);
+                    if (hash < sig[u * SIGNATURE_SIZE + h]) sig[u * SIGNATURE_SIZE + h] = hash;
+                }
+            }
+        }
+        return sig;
+    }
+
+    private static int mix(int x) {
+        x ^= x >>> 16;
+        x *= 0x7FEB352D;
+        x ^= x >>> 15;
+        x *= 0x846CA68B;
+        x ^= x >>> 16;
+        return x;
+    }
+
+    /**
+     * (user, key) pairs already covered by a pool membership or by an accepted proposal the
+     * user has not joined yet, so they are not proposed again.
+     */
+    private Set<Long> loadCovered(Map<String, Integer> userIndex) {
+        Set<Long> covered = new HashSet<>();
+        jdbcTemplate.query("""
+                SELECT sm.user_id, sp.pickup_zone, sp.day_of_week, HOUR(sp.departure_time)
+                FROM subscription_members sm
+                JOIN subscription_pools sp ON sp.id = sm.pool_id
+                UNION ALL
+                SELECT m.user_id, p.pickup_zone, p.day_of_week, HOUR(p.departure_time)
+                FROM pool_proposal_members m
+                JOIN pool_proposals p ON p.id = m.proposal_id
+                WHERE p.status = 'ACCEPTED'
+                """, rs -> {
+            Integer u = userIndex.get(rs.getString(1));
+            if (u == null) return;
+            int isoDow = rs.getInt(3) == 0 ? 7 : rs.getInt(3);
+            int key = CommutePatterns.pack(commutePatterns.zoneIdFor(rs.getString(2)), isoDow, rs.getInt(4));
+            covered.add((long) u << 32 | key);
+        });
+        return covered;
+    }
+
+    /**
+     * Cuts one key bucket into near-equal groups of at most maxGroupSize, after ordering members
+     * by their first MinHash value so users whose weeks look alike share a group.
+     */
+    private void group(Vectors v, int[] sig, long[] byKey, int from, int to, int key, List<Proposal> out) {
+        int size = to - from;
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            int u = v.entryUser[(int) byKey[from + i]];
+            order[i] = (long) sig[u * SIGNATURE_SIZE] << 32 | i;
+        }
+        Arrays.sort(order);
+
+        int groups = (size + maxGroupSize - 1) / maxGroupSize;
+        for (int g = 0, pos = 0; g < groups; g++) {
+            int len = size / groups + (g < size % groups ? 1 : 0);
+            int[] entries = new int[len];
+            for (int i = 0; i < len; i++) entries[i] = (int) byKey[from + (int) order[pos++]];
+            if (len >= 2) out.add(new Proposal(key, similarity(v, sig, entries), entries));
+        }
+    }
+
+    /** Mean pairwise MinHash agreement, an estimate of the members' mean Jaccard similarity. */
+    private static double similarity(Vectors v, int[] sig, int[] entries) {
+        int agree = 0;
+        int pairs = 0;
+        for (int a = 0; a < entries.length; a++) {
+            int ua = v.entryUser[entries[a]] * SIGNATURE_SIZE;
+            for (int b = a + 1; b < entries.length; b++) {
+                int ub = v.entryUser[entries[b]] * SIGNATURE_SIZE;
+                for (int h = 0; h < SIGNATURE_SIZE; h++) {
+                    if (sig[ua + h] == sig[ub + h]) agree++;
+                }
+                pairs++;
+            }
+        }
+        return Math.round(1000.0 * agree / (pairs * SIGNATURE_SIZE)) / 1000.0;
+    }
+
+    /** Swaps the open proposals for the new set in one transaction; accepted ones are kept. */
+    private int publish(Vectors v, List<Proposal> proposals) {
+        List<Object[]> proposalRows = new ArrayList<>(proposals.size());
+        List<Object[]> memberRows = new ArrayList<>();
+        for (Proposal p : proposals) {
+            String id = UUID.randomUUID().toString();
+            int slot = CommutePatterns.slotOf(p.key());
+            int isoDow = slot / 24 + 1;
+            proposalRows.add(new Object[]{id, commutePatterns.zoneName(CommutePatterns.zoneOf(p.key())),
+                    Time.valueOf(LocalTime.of(slot % 24, 0)), isoDow % 7, p.similarity()});
+            for (int e : p.entries()) {
+                memberRows.add(new Object[]{id, v.userIds.get(v.entryUser[e]), v.entryCount[e]});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM pool_proposals WHERE status = 'OPEN'");
+            for (int i = 0; i < proposalRows.size(); i += INSERT_BATCH) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO pool_proposals (id, pickup_zone, departure_time, day_of_week, similarity)
+                        VALUES (?, ?, ?, ?, ?)
+                        """, proposalRows.subList(i, Math.min(i + INSERT_BATCH, proposalRows.size())));
+            }
+            for (int i = 0; i < memberRows.size(); i += INSERT_BATCH) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO pool_proposal_members (proposal_id, user_id, ride_count) VALUES (?, ?, ?)",
+                        memberRows.subList(i, Math.min(i + INSERT_BATCH, memberRows.size())));
+            }
+        });
+        return memberRows.size();
+    }
+}
@@ -0,0 +1,119 @@
+package com.ecoride.subscription.service;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.subscription.dto.CreateSubscriptionRequest;
+import com.ecoride.subscription.dto.PoolProposalDto;
+import com.ecoride.subscription.dto.SubscriptionDto;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
+import java.util.*;
+
+@Service
+@RequiredArgsConstructor
+public class PoolProposalService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final SubscriptionService subscriptionService;
+
+    /** Proposals the caller is part of and has not yet acted on, best matches first. */
+    @Transactional(readOnly = true)
+    public List<PoolProposalDto> getMyProposals(String email) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+        String userId = user.getId().toString();
+
+        Map<String, PoolProposalDto> proposals = new LinkedHashMap<>();
+        jdbcTemplate.query("""
+                        SELECT p.id, p.pickup_zone, TIME_FORMAT(p.departure_time, '%H:%i'), p.day_of_week,
+                               p.similarity, p.pool_id
+                        FROM pool_proposal_members m
+                        JOIN pool_proposals p ON p.id = m.proposal_id
+                        WHERE m.user_id = ?
+                          AND (p.pool_id IS NULL OR NOT EXISTS (
+                               SELECT 1 FROM subscription_members sm WHERE sm.pool_id = p.pool_id AND sm.user_id = ?))
+                        ORDER BY p.similarity DESC
+                        """,
+                rs -> {
+                    String poolId = rs.getString(6);
+                    int dow = rs.getInt(4);
+                    proposals.put(rs.getString(1), PoolProposalDto.builder()
+                            .id(UUID.fromString(rs.getString(1)))
+                            .pickupZone(rs.getString(2))
+                            .departureTime(rs.getString(3))
+                            .dayOfWeek(dow)
+                            .dayName(DayOfWeek.of(dow == 0 ? 7 : dow).getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+                            .similarity(rs.getDouble(5))
+                            .poolId(poolId == null ? null : UUID.fromString(poolId))
+                            .members(new ArrayList<>())
+                            .build());
+                },
+                userId, userId);
+        if (proposals.isEmpty()) return List.of();
+
+        String placeholders = String.join(", ", Collections.nCopies(proposals.size(), "?"));
+        jdbcTemplate.query("""
+                        SELECT m.proposal_id, u.id, u.name, u.department, m.ride_count
+                        FROM pool_proposal_members m
+                        JOIN users u ON u.id = m.user_id
+                        WHERE m.proposal_id IN (%s)
+                        ORDER BY m.ride_count DESC
+                        """.formatted(placeholders),
+                rs -> {
+                    proposals.get(rs.getString(1)).getMembers().add(PoolProposalDto.Member.builder()
+                            .userId(UUID.fromString(rs.getString(2)))
+                            .name(rs.getString(3))
+                            .department(rs.getString(4))
+                            .rideCount(rs.getInt(5))
+                            .build());
+                },
+                proposals.keySet().toArray());
+        return new ArrayList<>(proposals.values());
+    }
+
+    /**
+     * Accept a proposal: the first member to accept creates the pool from it, later members join
+     * that pool. The proposal row is locked so two first accepts cannot create two pools.
+     */
+    @Transactional
+    public SubscriptionDto accept(String email, UUID proposalId) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                        SELECT p.pickup_zone, TIME_FORMAT(p.departure_time, '%H:%i') AS departure_time,
+                               p.day_of_week, p.pool_id,
+                               EXISTS (SELECT 1 FROM pool_proposal_members m
+                                       WHERE m.proposal_id = p.id AND m.user_id = ?) AS is_member
+                        FROM pool_proposals p WHERE p.id = ? FOR UPDATE
+                        """,
+                user.getId().toString(), proposalId.toString());
+        if (rows.isEmpty() || !toBoolean(rows.get(0).get("is_member"))) {
+            throw ApiException.notFound("Pool proposal not found");
+        }
+        Map<String, Object> row = rows.get(0);
+
+        if (row.get("pool_id") != null) {
+            return subscriptionService.joinPool(email, UUID.fromString((String) row.get("pool_id")));
+        }
+        CreateSubscriptionRequest req = new CreateSubscriptionRequest();
+        req.setPickupZone((String) row.get("pickup_zone"));
+        req.setDepartureTime((String) row.get("departure_time"));
+        req.setDayOfWeek(((Number) row.get("day_of_week")).intValue());
+        SubscriptionDto pool = subscriptionService.createPool(email, req);
+        jdbcTemplate.update("UPDATE pool_proposals SET status = 'ACCEPTED', pool_id = ? WHERE id = ?",
+                pool.getId().toString(), proposalId.toString());
+        return pool;
+    }
+
+    private static boolean toBoolean(Object value) {
+        return value instanceof Boolean b ? b : value instanceof Number n && n.intValue() != 0;
+    }
+}
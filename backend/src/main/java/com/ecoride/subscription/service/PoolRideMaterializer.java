@@ -0,0 +1,280 @@
+package com.ecoride.subscription.service;
+
+import com.ecoride.sync.service.ChangeLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns subscription pools into concrete rides for the coming weeks.
+ *
+ * Pools are walked in id order, a chunk at a time; each chunk is one transaction on one
+ * connection that batch-inserts the missing (pool, date) rides with the creator as driver, then
+ * confirms current members on every upcoming ride in the horizon while it has free seats, so
+ * members who joined after a ride was created are added to it too. Each confirmation takes its
+ * seat in the same statement that checks for one, so a pool larger than the car never overbooks
+ * it. rides(subscription_pool_id, subscription_date) is unique and a rider already on a ride is
+ * skipped, so re-running, overlapping horizons or another node running the same pass never
+ * creates a second ride or takes a seat twice.
+ */
+@Slf4j
+@Component
+public class PoolRideMaterializer {
+
+    public record RunSummary(int pools, int ridesCreated, int participantsAdded, long durationMs) {
+    }
+
+    private record PoolRow(String id, String pickupZone, LocalTime departureTime, int dayOfWeek, String createdBy) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChangeLog changeLog;
+    private final ZoneId zone;
+    private final int weeksAhead;
+    private final int seatsPerRide;
+    private final int chunkSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PoolRideMaterializer(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ChangeLog changeLog,
+                                @Value("${ecoride.carbon.rollups.zone-id:Asia/Kolkata}") String zoneId,
+                                @Value("${ecoride.subscription.materialize.weeks-ahead:2}") int weeksAhead,
+                                @Value("${ecoride.subscription.materialize.seats-per-ride:4}") int seatsPerRide,
+                                @Value("${ecoride.subscription.materialize.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLog = changeLog;
+        this.zone = ZoneId.of(zoneId);
+        this.weeksAhead = Math.max(1, weeksAhead);
+        this.seatsPerRide = seatsPerRide;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    @Scheduled(cron = "${ecoride.subscription.materialize.cron:0 0 1 * * MON}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /** Materializes rides for every pool; returns null if a run is already in progress. */
+    public RunSummary run() {
+        if (!running.compareAndSet(false, true)) return null;
+        long start = System.currentTimeMillis();
+        try {
+            Instant now = Instant.now();
+            LocalDate today = LocalDate.now(zone);
+            LocalDate last = today.plusWeeks(weeksAhead);
+            int pools = 0, rides = 0, participants = 0;
+
+            String after = "";
+            while (true) {
+                List<PoolRow> chunk = jdbcTemplate.query("""
+                                SELECT id, pickup_zone, departure_time, day_of_week, created_by
+                                FROM subscription_pools WHERE id > ? ORDER BY id LIMIT ?
+                                """,
+                        (rs, i) -> new PoolRow(rs.getString(1), rs.getString(2), rs.getTime(3).toLocalTime(),
+                                rs.getInt(4), rs.getString(5)),
+                        after, chunkSize);
+                if (chunk.isEmpty()) break;
+                int[] created = transactionTemplate.execute(status -> materialize(chunk, now, today, last));
+                pools += chunk.size();
+                rides += created[0];
+                participants += created[1];
+                after = chunk.get(chunk.size() - 1).id();
+            }
+
+            RunSummary summary = new RunSummary(pools, rides, participants, System.currentTimeMillis() - start);
+            log.info("Materialized {} rides with {} participants for {} pools through {} in {} ms",
+                    rides, participants, pools, last, summary.durationMs());
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Brings one pool's upcoming rides up to date in the caller's transaction, e.g. right after
+     * a member joins, instead of leaving them for the next scheduled run.
+     */
+    public void materializePool(UUID poolId) {
+        List<PoolRow> pool = jdbcTemplate.query(
+                "SELECT id, pickup_zone, departure_time, day_of_week, created_by FROM subscription_pools WHERE id = ?",
+                (rs, i) -> new PoolRow(rs.getString(1), rs.getString(2), rs.getTime(3).toLocalTime(),
+                        rs.getInt(4), rs.getString(5)),
+                poolId.toString());
+        if (pool.isEmpty()) return;
+        LocalDate today = LocalDate.now(zone);
+        materialize(pool, Instant.now(), today, today.plusWeeks(weeksAhead));
+    }
+
+    /**
+     * Takes a member who left the pool off its rides that have not departed yet, in the caller's
+     * transaction, giving each seat back.
+     */
+    public void removeFromUpcomingRides(UUID poolId, UUID userId) {
+        List<String> rideIds = jdbcTemplate.queryForList("""
+                        SELECT r.id FROM rides r
+                        JOIN ride_participants p ON p.ride_id = r.id AND p.user_id = ? AND p.status = 'CONFIRMED'
+                        WHERE r.subscription_pool_id = ? AND r.departure_time > ? AND r.status IN ('OPEN', 'FULL')
+                        FOR UPDATE
+                        """,
+                String.class, userId.toString(), poolId.toString(), Timestamp.from(Instant.now()));
+        if (rideIds.isEmpty()) return;
+
+        List<Object[]> rows = rideIds.stream().map(id -> new Object[]{id, userId.toString()}).toList();
+        jdbcTemplate.batchUpdate("DELETE FROM ride_participants WHERE ride_id = ? AND user_id = ?", rows);
+        jdbcTemplate.batchUpdate("""
+                UPDATE rides SET available_seats = available_seats + 1,
+                                 status = CASE WHEN status = 'FULL' THEN 'OPEN' ELSE status END
+                WHERE id = ?
+                """, rideIds.stream().map(id -> new Object[]{id}).toList());
+        changeLog.record(rideIds.stream()
+                .map(id -> new ChangeLog.Change(userId, ChangeLog.Type.RIDE, UUID.fromString(id)))
+                .toList());
+    }
+
+    /** One chunk of pools in the caller's transaction; returns {rides, participants} inserted. */
+    private int[] materialize(List<PoolRow> chunk, Instant now, LocalDate today, LocalDate last) {
+        String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+        Object[] poolIds = chunk.stream().map(PoolRow::id).toArray();
+
+        Map<String, List<String>> members = new HashMap<>();
+        jdbcTemplate.query("SELECT pool_id, user_id FROM subscription_members WHERE pool_id IN (" + placeholders + ")",
+                rs -> {
+                    members.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }, poolIds);
+
+        Set<String> existing = resolveRides(placeholders, poolIds, today, last).keySet();
+
+        // Every upcoming (pool, date) in the horizon; only the missing ones need a ride insert
+        List<String> keys = new ArrayList<>();
+        List<PoolRow> keyPools = new ArrayList<>();
+        List<Object[]> rideRows = new ArrayList<>();
+        List<String> rideKeys = new ArrayList<>();
+        List<Object[]> participantRows = new ArrayList<>();
+        List<String> participantKeys = new ArrayList<>();
+        for (PoolRow pool : chunk) {
+            DayOfWeek dow = pool.dayOfWeek() == 0 ? DayOfWeek.SUNDAY : DayOfWeek.of(pool.dayOfWeek());
+            List<String> riders = riders(members, pool);
+
+            for (LocalDate date = today.with(TemporalAdjusters.nextOrSame(dow));
+                 !date.isAfter(last); date = date.plusWeeks(1)) {
+                Instant departure = date.atTime(pool.departureTime()).atZone(zone).toInstant();
+                if (departure.isBefore(now)) continue;
+                String key = pool.id() + "|" + date;
+                keys.add(key);
+                keyPools.add(pool);
+                if (!existing.contains(key)) {
+                    // All seats free; they are taken below as participants are actually added
+                    rideRows.add(new Object[]{UUID.randomUUID().toString(), pool.createdBy(), pool.pickupZone(),
+                            Timestamp.from(departure), Math.max(0, seatsPerRide), seatsPerRide > 0 ? "OPEN" : "FULL",
+                            pool.id(), Date.valueOf(date)});
+                    rideKeys.add(key);
+                }
+                for (String rider : riders) {
+                    participantRows.add(new Object[]{pool.id(), Date.valueOf(date), rider});
+                    participantKeys.add(key);
+                }
+            }
+        }
+        if (keys.isEmpty()) return new int[]{0, 0};
+
+        // IGNORE: a concurrent run may have inserted the same (pool, date) since the read above
+        Set<String> created = new HashSet<>();
+        if (!rideRows.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate("""
+                    INSERT IGNORE INTO rides (id, driver_id, pickup_zone, departure_time, available_seats, status,
+                                              is_subscription, subscription_pool_id, subscription_date)
+                    VALUES (?, ?, ?, ?, ?, ?, TRUE, ?, ?)
+                    """, rideRows);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) created.add(rideKeys.get(i));
+            }
+        }
+
+        // Seat check and participant insert are one step per rider: the UPDATE takes a seat only
+        // while one is free and the rider is not on the ride yet, and it keeps the ride row locked
+        // until the insert below commits with it. Members beyond the car's seats stay off that ride.
+        Map<String, Integer> seatsTaken = new HashMap<>();
+        List<Object[]> confirmed = new ArrayList<>();
+        if (!participantRows.isEmpty()) {
+            // status is assigned first because MySQL evaluates SET left to right on the updated row
+            int[] counts = jdbcTemplate.batchUpdate("""
+                    UPDATE rides r
+                    SET r.status = CASE WHEN r.status = 'OPEN' AND r.available_seats <= 1 THEN 'FULL' ELSE r.status END,
+                        r.available_seats = r.available_seats - 1
+                    WHERE r.subscription_pool_id = ? AND r.subscription_date = ? AND r.status IN ('OPEN', 'FULL')
+                      AND r.available_seats > 0
+                      AND NOT EXISTS (SELECT 1 FROM ride_participants p WHERE p.ride_id = r.id AND p.user_id = ?)
+                    """, participantRows);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    Object[] row = participantRows.get(i);
+                    confirmed.add(new Object[]{row[2], row[0], row[1]});
+                    seatsTaken.merge(participantKeys.get(i), 1, Integer::sum);
+                }
+            }
+        }
+        if (!confirmed.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    INSERT INTO ride_participants (ride_id, user_id, status)
+                    SELECT r.id, ?, 'CONFIRMED' FROM rides r
+                    WHERE r.subscription_pool_id = ? AND r.subscription_date = ?
+                    """, confirmed);
+        }
+
+        // Changes go against the stored ride ids, not ids generated above
+        Map<String, String> rideIds = created.isEmpty() && seatsTaken.isEmpty()
+                ? Map.of() : resolveRides(placeholders, poolIds, today, last);
+        List<ChangeLog.Change> changes = new ArrayList<>();
+        for (int k = 0; k < keys.size(); k++) {
+            String key = keys.get(k);
+            int taken = seatsTaken.getOrDefault(key, 0);
+            String rideId = rideIds.get(key);
+            if (rideId == null || (taken == 0 && !created.contains(key))) continue;
+
+            PoolRow pool = keyPools.get(k);
+            UUID ride = UUID.fromString(rideId);
+            changes.add(new ChangeLog.Change(UUID.fromString(pool.createdBy()), ChangeLog.Type.RIDE, ride));
+            for (String rider : riders(members, pool)) {
+                changes.add(new ChangeLog.Change(UUID.fromString(rider), ChangeLog.Type.RIDE, ride));
+            }
+        }
+        changeLog.record(changes);
+        return new int[]{created.size(), confirmed.size()};
+    }
+
+    private static List<String> riders(Map<String, List<String>> members, PoolRow pool) {
+        return members.getOrDefault(pool.id(), List.of()).stream()
+                .filter(u -> !u.equals(pool.createdBy()))
+                .toList();
+    }
+
+    /** Stored ride id per "poolId|date" for the chunk's rides dated within [today, last]. */
+    private Map<String, String> resolveRides(String placeholders, Object[] poolIds, LocalDate today, LocalDate last) {
+        Object[] args = Arrays.copyOf(poolIds, poolIds.length + 2);
+        args[poolIds.length] = Date.valueOf(today);
+        args[poolIds.length + 1] = Date.valueOf(last);
+        Map<String, String> rides = new HashMap<>();
+        jdbcTemplate.query("""
+                        SELECT subscription_pool_id, subscription_date, id FROM rides
+                        WHERE subscription_pool_id IN (%s) AND subscription_date BETWEEN ? AND ?
+                        """.formatted(placeholders),
+                rs -> {
+                    rides.put(rs.getString(1) + "|" + rs.getDate(2).toLocalDate(), rs.getString(3));
+                }, args);
+        return rides;
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecoride.subscription.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory pool discovery index keyed by (pickup zone, day of week).
+ *
+ * Each bucket holds its pools' departure minutes in a sorted int array with parallel id/creator
+ * arrays, so a time-window query is two binary searches. Buckets are copy-on-write: creating a
+ * pool swaps in a new bucket, readers never lock. Member counts are shared counters bumped on
+ * join. A periodic reload picks up pools and joins from other nodes.
+ */
+@Slf4j
+@Component
+public class PoolSearchIndex {
+
+    public record Hit(UUID poolId, String pickupZone, int departureMinute, int dayOfWeek,
+                      UUID createdBy, int memberCount, Integer capacity) {
+    }
+
+    private record Pool(UUID id, String zone, int minute, int dayOfWeek, UUID createdBy, Integer capacity) {
+    }
+
+    /** Immutable apart from the shared count objects; arrays sorted by departure minute. */
+    private record Bucket(String zone, int[] minutes, UUID[] ids, UUID[] creators, AtomicInteger[] counts,
+                          Integer[] capacities) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<UUID, AtomicInteger> memberCounts = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+
+    private volatile Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile Queue<Pool> addedDuringReload;
+
+    public PoolSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Index a newly committed pool; its creator is the first member. */
+    public void add(UUID id, String zone, int departureMinute, int dayOfWeek, UUID createdBy, Integer capacity) {
+        Pool pool = new Pool(id, zone.trim(), departureMinute, dayOfWeek, createdBy, capacity);
+        memberCounts.computeIfAbsent(id, k -> new AtomicInteger(1));
+        Queue<Pool> pending = addedDuringReload;
+        if (pending != null) pending.add(pool);
+        addTo(buckets, List.of(pool));
+    }
+
+    /** A member joined (after commit). */
+    public void memberJoined(UUID poolId) {
+        AtomicInteger count = memberCounts.get(poolId);
+        if (count != null) count.incrementAndGet();
+    }
+
+    /** A member left (after commit). */
+    public void memberLeft(UUID poolId) {
+        AtomicInteger count = memberCounts.get(poolId);
+        if (count != null) count.decrementAndGet();
+    }
+
+    /**
+     * Pools in the zone on the day departing within [fromMinute, toMinute] (wrapping past
+     * midnight when from > to), closest to the middle of the window first, then fuller pools.
+     */
+    public List<Hit> search(String zone, int dayOfWeek, int fromMinute, int toMinute, int limit) {
+        Bucket b = buckets.get(key(zone, dayOfWeek));
+        if (b == null) return List.of();
+
+        int window = Math.floorMod(toMinute - fromMinute, 24 * 60);
+        int center = (fromMinute + window / 2) % (24 * 60);
+        List<Integer> matches = new ArrayList<>();
+        if (fromMinute <= toMinute) {
+            collect(b, fromMinute, toMinute, matches);
+        } else {
+            collect(b, fromMinute, 24 * 60 - 1, matches);
+            collect(b, 0, toMinute, matches);
+        }
+
+        matches.sort(Comparator.<Integer>comparingInt(i -> circularDistance(b.minutes()[i], center))
+                .thenComparingInt(i -> -b.counts()[i].get()));
+        List<Hit> hits = new ArrayList<>(Math.min(limit, matches.size()));
+        for (int i : matches.subList(0, Math.min(limit, matches.size()))) {
+            hits.add(new Hit(b.ids()[i], b.zone(), b.minutes()[i], dayOfWeek, b.creators()[i], b.counts()[i].get(),
+                    b.capacities()[i]));
+        }
+        return hits;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ecoride.subscription.search.reload-ms:60000}",
+               initialDelayString = "${ecoride.subscription.search.reload-ms:60000}")
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        addedDuringReload = new ConcurrentLinkedQueue<>();
+        Map<String, Bucket> fresh = new ConcurrentHashMap<>();
+        try {
+            List<Pool> pools = new ArrayList<>();
+            jdbcTemplate.query("""
+                    SELECT id, pickup_zone, TIME_TO_SEC(departure_time) DIV 60, day_of_week, created_by, member_count,
+                           capacity
+                    FROM subscription_pools
+                    """, rs -> {
+                UUID id = UUID.fromString(rs.getString(1));
+                pools.add(new Pool(id, rs.getString(2).trim(), rs.getInt(3), rs.getInt(4),
+                        UUID.fromString(rs.getString(5)), rs.getObject(7, Integer.class)));
+                memberCounts.computeIfAbsent(id, k -> new AtomicInteger()).set(rs.getInt(6));
+            });
+            addTo(fresh, pools);
+            buckets = fresh;
+        } finally {
+            Queue<Pool> pending = addedDuringReload;
+            addedDuringReload = null;
+            if (buckets == fresh) addTo(fresh, new ArrayList<>(pending));
+        }
+        log.debug("Pool search index reloaded: {} buckets in {} ms", fresh.size(), System.currentTimeMillis() - start);
+    }
+
+    /** Merges pools into their buckets, skipping ids already indexed. */
+    private void addTo(Map<String, Bucket> target, List<Pool> pools) {
+        synchronized (writeLock) {
+            merge(target, pools);
+        }
+    }
+
+    private void merge(Map<String, Bucket> target, List<Pool> pools) {
+        Map<String, List<Pool>> byKey = new HashMap<>();
+        for (Pool p : pools) byKey.computeIfAbsent(key(p.zone(), p.dayOfWeek()), k -> new ArrayList<>()).add(p);
+
+        byKey.forEach((key, added) -> {
+            Bucket old = target.get(key);
+            List<Pool> all = new ArrayList<>();
+            Set<UUID> seen = new HashSet<>();
+            if (old != null) {
+                for (int i = 0; i < old.ids().length; i++) {
+                    seen.add(old.ids()[i]);
+                    all.add(new Pool(old.ids()[i], old.zone(), old.minutes()[i], added.get(0).dayOfWeek(),
+                            old.creators()[i], old.capacities()[i]));
+                }
+            }
+            for (Pool p : added) {
+                if (seen.add(p.id())) all.add(p);
+            }
+            all.sort(Comparator.comparingInt(Pool::minute));
+
+            int n = all.size();
+            int[] minutes = new int[n];
+            UUID[] ids = new UUID[n];
+            UUID[] creators = new UUID[n];
+            AtomicInteger[] counts = new AtomicInteger[n];
+            Integer[] capacities = new Integer[n];
+            for (int i = 0; i < n; i++) {
+                Pool p = all.get(i);
+                minutes[i] = p.minute();
+                ids[i] = p.id();
+                creators[i] = p.createdBy();
+                counts[i] = memberCounts.computeIfAbsent(p.id(), k -> new AtomicInteger(1));
+                capacities[i] = p.capacity();
+            }
+            String zone = old != null ? old.zone() : added.get(0).zone();
+            target.put(key, new Bucket(zone, minutes, ids, creators, counts, capacities));
+        });
+    }
+
+    private static void collect(Bucket b, int from, int to, List<Integer> out) {
+        for (int i = lowerBound(b.minutes(), from); i < b.minutes().length && b.minutes()[i] <= to; i++) {
+            out.add(i);
+        }
+    }
+
+    private static int lowerBound(int[] sorted, int value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int circularDistance(int a, int b) {
+        int d = Math.abs(a - b);
+        return Math.min(d, 24 * 60 - d);
+    }
+
+    private static String key(String zone, int dayOfWeek) {
+        return zone.trim().toLowerCase(Locale.ROOT) + "|" + dayOfWeek;
+    }
+}
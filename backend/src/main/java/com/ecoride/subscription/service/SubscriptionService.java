@@ -1,6 +1,7 @@
 package com.ecoride.subscription.service;
 
 import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.transaction.AfterCommit;
 import com.ecoride.subscription.dto.CreateSubscriptionRequest;
 import com.ecoride.subscription.dto.SubscriptionDto;
 import com.ecoride.subscription.entity.SubscriptionMember;
@@ -10,11 +11,13 @@ import com.ecoride.subscription.repository.SubscriptionPoolRepository;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -24,11 +27,15 @@ import java.util.stream.Collectors;
 public class SubscriptionService {
 
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final int MAX_SEARCH_RESULTS = 50;
     private static final String[] DAY_NAMES = {"Sunday","Monday","Tuesday","Wednesday","Thursday","Friday","Saturday"};
 
     private final SubscriptionPoolRepository poolRepository;
     private final SubscriptionMemberRepository memberRepository;
     private final UserRepository userRepository;
+    private final PoolSearchIndex searchIndex;
+    private final PoolRideMaterializer rideMaterializer;
+    private final JdbcTemplate jdbcTemplate;
 
     @Transactional
     public SubscriptionDto createPool(String creatorEmail, CreateSubscriptionRequest req) {
@@ -41,18 +48,32 @@ public class SubscriptionService {
                 .pickupZone(req.getPickupZone())
                 .departureTime(time)
                 .dayOfWeek(req.getDayOfWeek())
+                .capacity(req.getCapacity())
                 .createdBy(creator)
                 .build();
 
         pool = poolRepository.save(pool);
 
-        // Creator is automatically a member
+        // Creator is automatically a member (member_count starts at 1)
         SubscriptionMember member = new SubscriptionMember(pool.getId(), creator.getId());
         memberRepository.save(member);
 
-        return toDto(pool, 1);
+        SubscriptionPool created = pool;
+        AfterCommit.run(() -> searchIndex.add(created.getId(), created.getPickupZone(),
+                created.getDepartureTime().toSecondOfDay() / 60, created.getDayOfWeek(), creator.getId(),
+                created.getCapacity()));
+
+        return toDto(pool.getId(), pool.getPickupZone(), pool.getDepartureTime(), pool.getDayOfWeek(),
+                creator.getId(), pool.getMemberCount(), pool.getCapacity());
     }
 
+    /**
+     * Join a pool. A place is taken with one conditional UPDATE (room left or no capacity), so
+     * concurrent joins can never admit more members than the capacity; that UPDATE also locks
+     * the pool row before the member insert's foreign-key check needs it. When the pool is full
+     * the caller is queued on the waitlist instead and gets their position. A duplicate join
+     * that slips past the exists check fails on the primary key and rolls the increment back.
+     */
     @Transactional
     public SubscriptionDto joinPool(String userEmail, UUID poolId) {
         User user = userRepository.findByEmail(userEmail)
@@ -64,32 +85,129 @@ public class SubscriptionService {
             throw ApiException.conflict("Already a member of this pool");
         }
 
-        memberRepository.save(new SubscriptionMember(poolId, user.getId()));
+        Integer waitlistPosition = null;
+        if (poolRepository.admitMember(poolId.toString()) == 1) {
+            memberRepository.saveAndFlush(new SubscriptionMember(poolId, user.getId()));
+            // Put the new member on rides already materialized for this pool
+            rideMaterializer.materializePool(poolId);
+            AfterCommit.run(() -> searchIndex.memberJoined(poolId));
+        } else {
+            waitlistPosition = joinWaitlist(poolId, user.getId());
+        }
 
-        long count = memberRepository.countByPoolId(poolId);
-        return toDto(pool, count);
+        SubscriptionDto dto = toDto(pool.getId(), pool.getPickupZone(), pool.getDepartureTime(), pool.getDayOfWeek(),
+                pool.getCreatedBy().getId(), poolRepository.findMemberCount(poolId.toString()), pool.getCapacity());
+        dto.setWaitlistPosition(waitlistPosition);
+        return dto;
     }
 
+    /**
+     * Leave a pool, or its waitlist when not a member yet. A leaving member is taken off the
+     * pool's upcoming rides, and the freed place goes to the head of the waitlist in the same
+     * transaction. releaseMember locks the pool row first, so this serializes with joins.
+     */
+    @Transactional
+    public void leavePool(String userEmail, UUID poolId) {
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+        SubscriptionPool pool = poolRepository.findById(poolId)
+                .orElseThrow(() -> ApiException.notFound("Subscription pool not found"));
+
+        if (!memberRepository.existsByPoolIdAndUserId(poolId, user.getId())) {
+            int removed = jdbcTemplate.update("DELETE FROM pool_waitlist WHERE pool_id = ? AND user_id = ?",
+                    poolId.toString(), user.getId().toString());
+            if (removed == 0) throw ApiException.notFound("Not a member of this pool");
+            return;
+        }
+        if (pool.getCreatedBy().getId().equals(user.getId())) {
+            throw ApiException.badRequest("The pool creator drives its rides and cannot leave");
+        }
+
+        poolRepository.releaseMember(poolId.toString());
+        memberRepository.deleteById(new SubscriptionMember.SubscriptionMemberId(poolId, user.getId()));
+        rideMaterializer.removeFromUpcomingRides(poolId, user.getId());
+        AfterCommit.run(() -> searchIndex.memberLeft(poolId));
+
+        promoteFromWaitlist(poolId);
+    }
+
+    /** Admit waitlisted users in queue order while the pool has room. */
+    private void promoteFromWaitlist(UUID poolId) {
+        int promoted = 0;
+        while (true) {
+            List<String[]> head = jdbcTemplate.query(
+                    "SELECT seq, user_id FROM pool_waitlist WHERE pool_id = ? ORDER BY seq LIMIT 1 FOR UPDATE",
+                    (rs, i) -> new String[]{rs.getString(1), rs.getString(2)}, poolId.toString());
+            if (head.isEmpty() || poolRepository.admitMember(poolId.toString()) != 1) break;
+            jdbcTemplate.update("DELETE FROM pool_waitlist WHERE seq = ?", Long.parseLong(head.get(0)[0]));
+            memberRepository.saveAndFlush(new SubscriptionMember(poolId, UUID.fromString(head.get(0)[1])));
+            AfterCommit.run(() -> searchIndex.memberJoined(poolId));
+            promoted++;
+        }
+        if (promoted > 0) rideMaterializer.materializePool(poolId);
+    }
+
+    /** Queue the user (idempotently) and return their 1-based position. */
+    private int joinWaitlist(UUID poolId, UUID userId) {
+        jdbcTemplate.update("INSERT IGNORE INTO pool_waitlist (pool_id, user_id) VALUES (?, ?)",
+                poolId.toString(), userId.toString());
+        Integer position = jdbcTemplate.queryForObject("""
+                        SELECT COUNT(*) FROM pool_waitlist
+                        WHERE pool_id = ?
+                          AND seq <= (SELECT seq FROM pool_waitlist WHERE pool_id = ? AND user_id = ?)
+                        """,
+                Integer.class, poolId.toString(), poolId.toString(), userId.toString());
+        return position == null ? 1 : position;
+    }
+
+    /** One projection query: pool columns, creator id and the denormalized member count. */
     @Transactional(readOnly = true)
     public List<SubscriptionDto> getMyPools(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> ApiException.notFound("User not found"));
 
-        return poolRepository.findPoolsByMember(user.getId()).stream()
-                .map(pool -> toDto(pool, memberRepository.countByPoolId(pool.getId())))
+        return poolRepository.findPoolSummariesByMember(user.getId()).stream()
+                .map(p -> toDto(p.id(), p.pickupZone(), p.departureTime(), p.dayOfWeek(), p.createdBy(),
+                        p.memberCount(), p.capacity()))
                 .collect(Collectors.toList());
     }
 
-    private SubscriptionDto toDto(SubscriptionPool pool, long memberCount) {
-        int dow = pool.getDayOfWeek();
+    /**
+     * Discover pools by zone, day (0=Sun) and an "HH:mm" departure window, answered from the
+     * in-memory index without touching subscription_pools.
+     */
+    public List<SubscriptionDto> search(String zone, int dayOfWeek, String from, String to, int limit) {
+        if (zone == null || zone.isBlank()) throw ApiException.badRequest("zone is required");
+        if (dayOfWeek < 0 || dayOfWeek > 6) throw ApiException.badRequest("dayOfWeek must be 0 (Sun) to 6 (Sat)");
+        int fromMinute = parseMinute(from, "from");
+        int toMinute = parseMinute(to, "to");
+        int capped = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+
+        return searchIndex.search(zone, dayOfWeek, fromMinute, toMinute, capped).stream()
+                .map(h -> toDto(h.poolId(), h.pickupZone(), LocalTime.ofSecondOfDay(h.departureMinute() * 60L),
+                        h.dayOfWeek(), h.createdBy(), h.memberCount(), h.capacity()))
+                .collect(Collectors.toList());
+    }
+
+    private int parseMinute(String value, String name) {
+        try {
+            return LocalTime.parse(value, TIME_FMT).toSecondOfDay() / 60;
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw ApiException.badRequest(name + " must be HH:mm");
+        }
+    }
+
+    private SubscriptionDto toDto(UUID id, String pickupZone, LocalTime departureTime, int dow,
+                                  UUID createdBy, long memberCount, Integer capacity) {
         return SubscriptionDto.builder()
-                .id(pool.getId())
-                .pickupZone(pool.getPickupZone())
-                .departureTime(pool.getDepartureTime().format(TIME_FMT))
+                .id(id)
+                .pickupZone(pickupZone)
+                .departureTime(departureTime.format(TIME_FMT))
                 .dayOfWeek(dow)
                 .dayName(DOW_SAFE(dow))
-                .createdBy(pool.getCreatedBy().getId())
+                .createdBy(createdBy)
                 .memberCount(memberCount)
+                .capacity(capacity)
                 .build();
     }
 
@@ -0,0 +1,28 @@
+package com.ecoride.sync.controller;
+
+import com.ecoride.common.response.ApiResponse;
+import com.ecoride.sync.dto.SyncDto;
+import com.ecoride.sync.service.SyncService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/sync")
+@RequiredArgsConstructor
+public class SyncController {
+
+    private final SyncService syncService;
+
+    /**
+     * GET /sync?since=<token>
+     * Returns only conversations, messages and rides that changed since the token.
+     * Without a token (or with an expired one) returns resetRequired=true and a fresh baseline token.
+     */
+    @GetMapping
+    public ApiResponse<SyncDto> sync(@AuthenticationPrincipal UserDetails principal,
+                                     @RequestParam(required = false) String since) {
+        return ApiResponse.ok(syncService.getChanges(principal.getUsername(), since));
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecoride.sync.dto;
+
+import com.ecoride.messaging.dto.ConversationDto;
+import com.ecoride.messaging.dto.MessageDto;
+import com.ecoride.ride.dto.MyRideDto;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class SyncDto {
+    /** Pass back as ?since= on the next call */
+    private String token;
+    /** True when the client must reload full lists (no token, or token older than retention) */
+    private boolean resetRequired;
+    /** True when more changes are pending; call again immediately with the new token */
+    private boolean hasMore;
+    private List<ConversationDto> conversations;
+    private List<MessageDto> messages;
+    private List<MyRideDto> rides;
+}
@@ -0,0 +1,155 @@
+package com.ecoride.sync.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Write side of the delta sync feed. Callers append change rows inside their own transaction,
+ * so a change becomes visible exactly when the data it points at commits.
+ *
+ * Auto-increment seqs are handed out at insert time, not commit time. So that every user's
+ * visible change rows are a prefix of their seqs, the rows are written just before commit while
+ * holding each affected user's sync_heads row. The heads are locked in user id order, once per
+ * transaction, so writers cannot deadlock on each other and only hold them until the commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChangeLog {
+
+    public enum Type { MESSAGE, CONVERSATION, RIDE }
+
+    public record Change(UUID userId, Type type, UUID entityId) {
+    }
+
+    private static final String INSERT_PREFIX = "INSERT INTO sync_changes (user_id, entity_type, entity_id) VALUES ";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${ecoride.sync.retention-days:30}")
+    private int retentionDays;
+
+    /**
+     * Queues the changes on the caller's transaction; they are written as one multi-row INSERT
+     * right before it commits. Without a transaction they are written in one of their own.
+     */
+    @SuppressWarnings("unchecked")
+    public void record(Collection<Change> changes) {
+        if (changes.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTemplate.executeWithoutResult(status -> write(changes));
+            return;
+        }
+        List<Change> pending = (List<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Change> queued = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, queued);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(queued);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeLog.this);
+                }
+            });
+            pending = queued;
+        }
+        pending.addAll(changes);
+    }
+
+    private void write(Collection<Change> changes) {
+        if (changes.isEmpty()) return;
+        lockHeads(changes.stream().map(c -> c.userId().toString()).distinct().sorted().toList());
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX);
+        Object[] args = new Object[changes.size() * 3];
+        int i = 0;
+        for (Change c : changes) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, ?)");
+            args[i++] = c.userId().toString();
+            args[i++] = c.type().name();
+            args[i++] = c.entityId().toString();
+        }
+        jdbcTemplate.update(sql.toString(), args);
+    }
+
+    public void recordMessage(UUID messageId, UUID senderId, UUID receiverId) {
+        record(List.of(
+                new Change(senderId, Type.MESSAGE, messageId),
+                new Change(receiverId, Type.MESSAGE, messageId)));
+    }
+
+    /** Read state of a conversation changed; both sides see updated unread counts/read flags. */
+    public void recordConversation(UUID userId, UUID peerId) {
+        record(List.of(
+                new Change(userId, Type.CONVERSATION, peerId),
+                new Change(peerId, Type.CONVERSATION, userId)));
+    }
+
+    /** A ride or one of its participant rows changed; notify everyone on the ride. */
+    public void recordRide(UUID rideId, Collection<UUID> userIds) {
+        record(new LinkedHashSet<>(userIds).stream()
+                .map(userId -> new Change(userId, Type.RIDE, rideId))
+                .toList());
+    }
+
+    /**
+     * Locks the users' heads in id order, creating missing ones. Existing heads are locked before
+     * any insert is tried: INSERT IGNORE on an existing row takes a shared lock, and two writers
+     * upgrading shared locks to exclusive would deadlock.
+     */
+    private void lockHeads(List<String> userIds) {
+        Set<String> present = new HashSet<>(selectHeadsForUpdate(userIds));
+        if (present.size() == userIds.size()) return;
+        List<Object[]> missing = userIds.stream()
+                .filter(id -> !present.contains(id))
+                .map(id -> new Object[]{id})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT IGNORE INTO sync_heads (user_id) VALUES (?)", missing);
+        selectHeadsForUpdate(userIds);
+    }
+
+    private List<String> selectHeadsForUpdate(List<String> userIds) {
+        String placeholders = String.join(", ", Collections.nCopies(userIds.size(), "?"));
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM sync_heads WHERE user_id IN (" + placeholders + ") ORDER BY user_id FOR UPDATE",
+                String.class, userIds.toArray());
+    }
+
+    /**
+     * Highest pruned seq; tokens below it can no longer be served incrementally. Read from the
+     * database on every call so a prune run on any node is seen by all of them.
+     */
+    public long prunedThroughSeq() {
+        Long seq = jdbcTemplate.queryForObject(
+                "SELECT pruned_through_seq FROM sync_prune_mark WHERE id = 1", Long.class);
+        return seq == null ? 0 : seq;
+    }
+
+    @Scheduled(cron = "${ecoride.sync.prune-cron:0 15 4 * * *}")
+    public void prune() {
+        Long maxExpired = jdbcTemplate.queryForObject(
+                "SELECT MAX(seq) FROM sync_changes WHERE created_at < CURRENT_TIMESTAMP - INTERVAL ? DAY",
+                Long.class, retentionDays);
+        if (maxExpired == null) return;
+        // Mark first: a reader that sees rows missing must also see the mark and reset
+        jdbcTemplate.update(
+                "UPDATE sync_prune_mark SET pruned_through_seq = GREATEST(pruned_through_seq, ?) WHERE id = 1",
+                maxExpired);
+        int deleted = jdbcTemplate.update("DELETE FROM sync_changes WHERE seq <= ?", maxExpired);
+        log.info("Pruned {} sync changes through seq {}", deleted, maxExpired);
+    }
+}
@@ -0,0 +1,118 @@
+package com.ecoride.sync.service;
+
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.messaging.service.MessagingService;
+import com.ecoride.ride.service.RideService;
+import com.ecoride.sync.dto.SyncDto;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Read side of the delta sync feed: turns a user's change rows since a token into
+ * current-state DTOs for just the conversations, messages and rides that changed.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private static final int MAX_CHANGES_PER_CALL = 500;
+
+    private record ChangeRow(long seq, ChangeLog.Type type, UUID entityId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeLog changeLog;
+    private final UserRepository userRepository;
+    private final MessagingService messagingService;
+    private final RideService rideService;
+
+    @Transactional(readOnly = true)
+    public SyncDto getChanges(String email, String since) {
+        User me = userRepository.findByEmail(email)
+                .orElseThrow(() -> ApiException.notFound("User not found"));
+
+        if (since == null || since.isBlank()) {
+            return reset(me);
+        }
+        long sinceSeq = parseToken(since);
+        if (sinceSeq < changeLog.prunedThroughSeq()) {
+            return reset(me);
+        }
+
+        List<ChangeRow> rows = jdbcTemplate.query("""
+                        SELECT seq, entity_type, entity_id
+                        FROM sync_changes
+                        WHERE user_id = ? AND seq > ?
+                        ORDER BY seq
+                        LIMIT ?
+                        """,
+                (rs, i) -> new ChangeRow(
+                        rs.getLong("seq"),
+                        ChangeLog.Type.valueOf(rs.getString("entity_type")),
+                        UUID.fromString(rs.getString("entity_id"))),
+                me.getId().toString(), sinceSeq, MAX_CHANGES_PER_CALL);
+
+        if (rows.isEmpty()) {
+            return SyncDto.builder()
+                    .token(since)
+                    .conversations(List.of())
+                    .messages(List.of())
+                    .rides(List.of())
+                    .build();
+        }
+
+        // A user's visible rows are a prefix of their seqs (see ChangeLog), so no later
+        // commit can land below the last row returned here
+        long token = rows.get(rows.size() - 1).seq();
+        Set<UUID> messageIds = new LinkedHashSet<>();
+        Set<UUID> peerIds = new LinkedHashSet<>();
+        Set<UUID> rideIds = new LinkedHashSet<>();
+        for (ChangeRow row : rows) {
+            switch (row.type()) {
+                case MESSAGE -> messageIds.add(row.entityId());
+                case CONVERSATION -> peerIds.add(row.entityId());
+                case RIDE -> rideIds.add(row.entityId());
+            }
+        }
+
+        var messages = messagingService.getMessagesByIds(messageIds);
+        messages.forEach(m -> peerIds.add(m.getSenderId().equals(me.getId()) ? m.getReceiverId() : m.getSenderId()));
+
+        return SyncDto.builder()
+                .token(Long.toString(token))
+                .hasMore(rows.size() == MAX_CHANGES_PER_CALL)
+                .messages(messages)
+                .conversations(messagingService.getConversationsWith(me, peerIds))
+                .rides(rideService.getMyRides(me, rideIds))
+                .build();
+    }
+
+    private SyncDto reset(User me) {
+        Long latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(seq) FROM sync_changes WHERE user_id = ?", Long.class, me.getId().toString());
+        long baseline = Math.max(latest == null ? 0 : latest, changeLog.prunedThroughSeq());
+        return SyncDto.builder()
+                .token(Long.toString(baseline))
+                .resetRequired(true)
+                .conversations(List.of())
+                .messages(List.of())
+                .rides(List.of())
+                .build();
+    }
+
+    private long parseToken(String token) {
+        try {
+            long seq = Long.parseLong(token);
+            if (seq < 0) throw new NumberFormatException();
+            return seq;
+        } catch (NumberFormatException e) {
+            throw ApiException.badRequest("Invalid sync token");
+        }
+    }
+}
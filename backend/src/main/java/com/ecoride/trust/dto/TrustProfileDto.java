@@ -21,6 +21,8 @@ public class TrustProfileDto {
     private String name;
     private int trustScore;
     private String badge;           // BRONZE, SILVER, GOLD, PLATINUM
+    private Double trustRank;       // graph trust rank, 1.0 = campus mean; null until first computed
+    private Integer trustPercentile;
     private int ridesCompleted;
     private int uniqueRidePartners;
     private List<TopConnectionDto> topConnections;
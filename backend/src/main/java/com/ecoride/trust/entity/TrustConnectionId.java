@@ -1,5 +1,7 @@
 package com.ecoride.trust.entity;
 
+import com.ecoride.common.util.UuidOrder;
+
 import java.io.Serializable;
 import java.util.UUID;
 import lombok.*;
@@ -12,4 +14,9 @@ import lombok.*;
 public class TrustConnectionId implements Serializable {
     private UUID user1Id;
     private UUID user2Id;
+
+    /** Key for the pair in the stored order, user1_id < user2_id (see {@link UuidOrder}). */
+    public static TrustConnectionId canonical(UUID a, UUID b) {
+        return new TrustConnectionId(UuidOrder.lower(a, b), UuidOrder.higher(a, b));
+    }
 }
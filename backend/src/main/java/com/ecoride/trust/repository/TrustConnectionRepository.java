@@ -13,14 +13,11 @@ import java.util.UUID;
 public interface TrustConnectionRepository extends JpaRepository<TrustConnection, TrustConnectionId> {
 
     /**
-     * Find trust connection regardless of canonical ordering.
+     * Find trust connection regardless of argument order: a primary-key lookup on the canonical pair.
      */
-    @Query("""
-            SELECT t FROM TrustConnection t
-            WHERE (t.user1Id = :a AND t.user2Id = :b)
-               OR (t.user1Id = :b AND t.user2Id = :a)
-            """)
-    Optional<TrustConnection> findBetween(@Param("a") UUID a, @Param("b") UUID b);
+    default Optional<TrustConnection> findBetween(UUID a, UUID b) {
+        return findById(TrustConnectionId.canonical(a, b));
+    }
 
     @Query("""
             SELECT t FROM TrustConnection t
@@ -0,0 +1,319 @@
+package com.ecoride.trust.service;
+
+import com.ecoride.common.lock.ClusterLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Graph trust rank over the shared-ride graph (TrustRank: personalized PageRank).
+ *
+ * Random-walk restarts go only to users whose identity an admin has verified (users.identity_verified;
+ * the phone and licence flags are self-declared on the profile), so rank has to flow in through
+ * real rides with verified riders. A ring of accounts that only ride with each other
+ * keeps recycling the little rank it receives and stays near the bottom, however many rides it
+ * logs. Edge weights grow with the log of mutual rides for the same reason.
+ *
+ * The graph is held as CSR primitive arrays and iterated in parallel until the L1 change drops
+ * below the tolerance. Each run starts from the previous result, so nightly runs over a slowly
+ * changing graph converge in a few iterations. Only the node holding the trust-rank lock computes;
+ * every node reloads the stored ranks periodically.
+ */
+@Slf4j
+@Component
+public class TrustRankEngine {
+
+    private static final int INSERT_BATCH = 1_000;
+
+    public record Rank(double score, int percentile) {
+    }
+
+    public record RunSummary(int users, long edges, int iterations, double delta, long durationMs) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterLock clusterLock;
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final ForkJoinPool pool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Map<UUID, Rank> ranks = Map.of();
+
+    public TrustRankEngine(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           ClusterLock clusterLock,
+                           @Value("${ecoride.trust.rank.damping:0.85}") double damping,
+                           @Value("${ecoride.trust.rank.tolerance:1e-6}") double tolerance,
+                           @Value("${ecoride.trust.rank.max-iterations:100}") int maxIterations,
+                           @Value("${ecoride.trust.rank.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.clusterLock = clusterLock;
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /** The user's rank from the latest run, or null if they were not ranked yet. */
+    public Rank get(UUID userId) {
+        return ranks.get(userId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+        if (ranks.isEmpty()) {
+            // First start after the migration: compute now rather than wait for the nightly run
+            Thread t = new Thread(this::run, "trust-rank-initial");
+            t.setDaemon(true);
+            t.start();
+        }
+    }
+
+    /** Picks up ranks stored by whichever node ran the computation. */
+    @Scheduled(fixedDelayString = "${ecoride.trust.rank.reload-ms:3600000}",
+               initialDelayString = "${ecoride.trust.rank.reload-ms:3600000}")
+    public void reload() {
+        Map<UUID, Rank> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, score, percentile FROM trust_ranks", rs -> {
+            loaded.put(UUID.fromString(rs.getString(1)), new Rank(rs.getDouble(2), rs.getInt(3)));
+        });
+        ranks = loaded;
+    }
+
+    @Scheduled(cron = "${ecoride.trust.rank.cron:0 15 2 * * *}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Recomputes and stores every user's rank; returns null if a run is already in progress
+     * here or on another node.
+     */
+    public RunSummary run() {
+        if (!running.compareAndSet(false, true)) return null;
+        try {
+            RunSummary[] summary = new RunSummary[1];
+            clusterLock.runExclusively("ecoride.trust-rank", () -> summary[0] = compute());
+            return summary[0];
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private RunSummary compute() {
+        long start = System.currentTimeMillis();
+        Graph g = loadGraph();
+        double[] rank = initialRank(g);
+        int iterations = 0;
+        double delta = Double.MAX_VALUE;
+        while (iterations < maxIterations && delta > tolerance) {
+            delta = iterate(g, rank);
+            iterations++;
+        }
+        store(g, rank);
+        RunSummary summary = new RunSummary(g.n, g.neighbors.length / 2, iterations, delta,
+                System.currentTimeMillis() - start);
+        log.info("Trust rank: {} users, {} edges, {} iterations (L1 delta {}) in {} ms",
+                summary.users(), summary.edges(), iterations, delta, summary.durationMs());
+        return summary;
+    }
+
+    /** Undirected weighted graph in CSR form, plus the restart distribution. */
+    private static final class Graph {
+        int n;
+        String[] userIds;
+        UUID[] uuids;
+        int[] offsets;          // neighbors of v: neighbors[offsets[v] .. offsets[v + 1])
+        int[] neighbors;
+        float[] weights;
+        double[] outWeight;
+        double[] restart;       // sums to 1
+    }
+
+    private Graph loadGraph() {
+        Graph g = new Graph();
+        List<String> ids = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        List<Boolean> verified = new ArrayList<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, identity_verified FROM users",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+            return ps;
+        }, rs -> {
+            index.put(rs.getString(1), ids.size());
+            ids.add(rs.getString(1));
+            verified.add(rs.getBoolean(2));
+        });
+        int n = g.n = ids.size();
+        g.userIds = ids.toArray(new String[0]);
+        g.uuids = new UUID[n];
+        for (int i = 0; i < n; i++) g.uuids[i] = UUID.fromString(g.userIds[i]);
+
+        // Edge list, then a counting sort into CSR with both directions
+        int[][] src = {new int[1 << 16]};
+        int[][] dst = {new int[1 << 16]};
+        float[][] w = {new float[1 << 16]};
+        int[] m = {0};
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT user1_id, user2_id, mutual_ride_count FROM trust_connections",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);  // MySQL row streaming
+            return ps;
+        }, rs -> {
+            Integer a = index.get(rs.getString(1));
+            Integer b = index.get(rs.getString(2));
+            if (a == null || b == null) return;  // user created after the scan above
+            if (m[0] == src[0].length) {
+                src[0] = Arrays.copyOf(src[0], m[0] * 2);
+                dst[0] = Arrays.copyOf(dst[0], m[0] * 2);
+                w[0] = Arrays.copyOf(w[0], m[0] * 2);
+            }
+            src[0][m[0]] = a;
+            dst[0][m[0]] = b;
+            w[0][m[0]] = (float) (1 + Math.log(Math.max(1, rs.getInt(3))));
+            m[0]++;
+        });
+
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m[0]; e++) {
+            offsets[src[0][e] + 1]++;
+            offsets[dst[0][e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+        int[] fill = Arrays.copyOf(offsets, n);
+        int[] neighbors = new int[m[0] * 2];
+        float[] weights = new float[m[0] * 2];
+        for (int e = 0; e < m[0]; e++) {
+            int a = src[0][e], b = dst[0][e];
+            neighbors[fill[a]] = b;
+            weights[fill[a]++] = w[0][e];
+            neighbors[fill[b]] = a;
+            weights[fill[b]++] = w[0][e];
+        }
+        double[] outWeight = new double[n];
+        for (int v = 0; v < n; v++) {
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) outWeight[v] += weights[i];
+        }
+        g.offsets = offsets;
+        g.neighbors = neighbors;
+        g.weights = weights;
+        g.outWeight = outWeight;
+
+        // Restart at admin-verified users; with none verified yet fall back to plain PageRank
+        long seeds = verified.stream().filter(Boolean::booleanValue).count();
+        g.restart = new double[n];
+        for (int v = 0; v < n; v++) {
+            g.restart[v] = seeds == 0 ? 1.0 / n : verified.get(v) ? 1.0 / seeds : 0;
+        }
+        return g;
+    }
+
+    /** Previous run's ranks where known, restart probability elsewhere; normalised to sum 1. */
+    private double[] initialRank(Graph g) {
+        double[] rank = new double[g.n];
+        Map<UUID, Rank> previous = ranks;
+        double sum = 0;
+        for (int v = 0; v < g.n; v++) {
+            Rank r = previous.get(g.uuids[v]);
+            rank[v] = r != null ? r.score() / Math.max(1, g.n) : g.restart[v];
+            sum += rank[v];
+        }
+        if (sum > 0) {
+            for (int v = 0; v < g.n; v++) rank[v] /= sum;
+        }
+        return rank;
+    }
+
+    /**
+     * One pull-based power iteration in place: every node sums its neighbours' shares of the
+     * previous vector. Mass from isolated nodes and from the damping restarts goes back to the
+     * restart distribution. Returns the L1 change.
+     */
+    private double iterate(Graph g, double[] rank) {
+        int n = g.n;
+        int chunks = Math.max(1, Math.min(n, pool.getParallelism() * 8));
+        double[] share = new double[n];
+        double[] dangling = new double[chunks];
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            double lost = 0;
+            for (int v = c * n / chunks, end = (c + 1) * n / chunks; v < end; v++) {
+                if (g.outWeight[v] > 0) share[v] = rank[v] / g.outWeight[v];
+                else lost += rank[v];
+            }
+            dangling[c] = lost;
+        })).join();
+        double restartMass = 1 - damping + damping * Arrays.stream(dangling).sum();
+
+        double[] next = new double[n];
+        double[] deltas = new double[chunks];
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            double d = 0;
+            for (int v = c * n / chunks, end = (c + 1) * n / chunks; v < end; v++) {
+                double sum = 0;
+                for (int i = g.offsets[v]; i < g.offsets[v + 1]; i++) {
+                    sum += share[g.neighbors[i]] * g.weights[i];
+                }
+                next[v] = damping * sum + restartMass * g.restart[v];
+                d += Math.abs(next[v] - rank[v]);
+            }
+            deltas[c] = d;
+        })).join();
+        System.arraycopy(next, 0, rank, 0, n);
+        return Arrays.stream(deltas).sum();
+    }
+
+    /** Scales ranks so 1.0 is the campus mean, derives percentiles, and persists both. */
+    private void store(Graph g, double[] rank) {
+        int n = g.n;
+        long[] order = new long[n];
+        for (int v = 0; v < n; v++) {
+            // Non-negative floats sort like their bit patterns
+            order[v] = (long) Float.floatToIntBits((float) rank[v]) << 32 | v;
+        }
+        Arrays.sort(order);
+        int[] percentile = new int[n];
+        int tieStart = 0;
+        for (int i = 0; i < n; i++) {
+            // Equal ranks (e.g. every isolated account) share the percentile of the lowest of them
+            if (i > 0 && (order[i] >>> 32) != (order[i - 1] >>> 32)) tieStart = i;
+            percentile[(int) order[i]] = n == 1 ? 100 : (int) (100L * tieStart / (n - 1));
+        }
+
+        Map<UUID, Rank> fresh = new HashMap<>(n * 2);
+        List<Object[]> rows = new ArrayList<>(n);
+        for (int v = 0; v < n; v++) {
+            Rank r = new Rank(Math.round(rank[v] * n * 1000) / 1000.0, percentile[v]);
+            fresh.put(g.uuids[v], r);
+            rows.add(new Object[]{g.userIds[v], r.score(), r.percentile()});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < rows.size(); i += INSERT_BATCH) {
+                jdbcTemplate.batchUpdate("""
+                        INSERT INTO trust_ranks (user_id, score, percentile) VALUES (?, ?, ?)
+                        ON DUPLICATE KEY UPDATE score = VALUES(score), percentile = VALUES(percentile)
+                        """, rows.subList(i, Math.min(i + INSERT_BATCH, rows.size())));
+            }
+        });
+        ranks = fresh;
+    }
+}
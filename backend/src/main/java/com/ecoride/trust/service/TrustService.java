@@ -1,90 +1,154 @@
 package com.ecoride.trust.service;
 
 import com.ecoride.common.exception.ApiException;
+import com.ecoride.common.transaction.AfterCommit;
 import com.ecoride.trust.dto.TrustProfileDto;
-import com.ecoride.trust.entity.TrustConnection;
 import com.ecoride.trust.entity.TrustConnectionId;
-import com.ecoride.trust.repository.TrustConnectionRepository;
 import com.ecoride.user.entity.User;
 import com.ecoride.user.repository.UserRepository;
 import com.ecoride.user.service.UserService;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
-@RequiredArgsConstructor
 public class TrustService {
 
-    private final TrustConnectionRepository trustConnectionRepository;
+    private static final int TOP_CONNECTIONS = 4;
+
+    private record CachedProfile(TrustProfileDto profile, long loadedAt) {
+    }
+
     private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TrustRankEngine trustRankEngine;
+    private final long profileTtlMs;
+    private final Map<UUID, CachedProfile> profiles;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TrustService(UserRepository userRepository,
+                        JdbcTemplate jdbcTemplate,
+                        TrustRankEngine trustRankEngine,
+                        @Value("${ecoride.trust.profile-cache.size:5000}") int cacheSize,
+                        @Value("${ecoride.trust.profile-cache.ttl-ms:300000}") long profileTtlMs) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.trustRankEngine = trustRankEngine;
+        this.profileTtlMs = profileTtlMs;
+        this.profiles = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedProfile> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
 
     /**
-     * Called after a ride completes — updates or creates the mutual connection row.
-     * Enforces canonical ordering: user1_id < user2_id.
+     * Called after a ride completes — bumps the mutual connection row for every
+     * (driver, participant) pair, creating missing rows, in one multi-row upsert.
+     * Pairs are canonicalized (user1_id < user2_id) and sent in key order, so concurrent
+     * completions sharing riders lock rows in the same order and never race on the insert.
      */
     @Transactional
-    public void recordSharedRide(UUID a, UUID b) {
-        UUID lo = a.compareTo(b) < 0 ? a : b;
-        UUID hi = a.compareTo(b) < 0 ? b : a;
-
-        trustConnectionRepository.findBetween(lo, hi).ifPresentOrElse(tc -> {
-            tc.setMutualRideCount(tc.getMutualRideCount() + 1);
-            trustConnectionRepository.save(tc);
-        }, () -> {
-            TrustConnection tc = TrustConnection.builder()
-                    .user1Id(lo)
-                    .user2Id(hi)
-                    .mutualRideCount(1)
-                    .build();
-            trustConnectionRepository.save(tc);
-        });
+    public void recordSharedRides(UUID driverId, Collection<UUID> participantIds) {
+        // The ride also changed everyone's trust score and ride count
+        evictProfile(driverId);
+        participantIds.forEach(this::evictProfile);
+
+        List<TrustConnectionId> pairs = participantIds.stream()
+                .filter(id -> !id.equals(driverId))
+                .map(id -> TrustConnectionId.canonical(driverId, id))
+                .distinct()
+                .sorted(Comparator.comparing((TrustConnectionId id) -> id.getUser1Id().toString())
+                        .thenComparing(id -> id.getUser2Id().toString()))
+                .toList();
+        if (pairs.isEmpty()) return;
+
+        StringBuilder sql = new StringBuilder(
+                "INSERT INTO trust_connections (user1_id, user2_id, mutual_ride_count) VALUES ");
+        Object[] args = new Object[pairs.size() * 2];
+        int i = 0;
+        for (TrustConnectionId pair : pairs) {
+            if (i > 0) sql.append(", ");
+            sql.append("(?, ?, 1)");
+            args[i++] = pair.getUser1Id().toString();
+            args[i++] = pair.getUser2Id().toString();
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE mutual_ride_count = mutual_ride_count + 1");
+        jdbcTemplate.update(sql.toString(), args);
     }
 
+    /**
+     * Profile with the top connections by mutual rides. Each side of the pair is read from its
+     * (userN_id, mutual_ride_count) index, most rides first, and only the top rows are
+     * joined to users for names. Assembled profiles are cached; recordSharedRides evicts the
+     * users it touches and entries expire after a while to pick up renames and rank runs.
+     */
     @Transactional(readOnly = true)
     public TrustProfileDto getTrustProfile(UUID userId) {
+        CachedProfile cached = profiles.get(userId);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt() < profileTtlMs) {
+            return cached.profile();
+        }
+        long generation = evictions.get();
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> ApiException.notFound("User not found"));
+        String id = userId.toString();
+
+        List<TrustProfileDto.TopConnectionDto> topConnections = jdbcTemplate.query("""
+                        SELECT c.partner_id, u.name, c.mutual_ride_count
+                        FROM ((SELECT user2_id AS partner_id, mutual_ride_count FROM trust_connections
+                               WHERE user1_id = ? ORDER BY mutual_ride_count DESC LIMIT ?)
+                              UNION ALL
+                              (SELECT user1_id, mutual_ride_count FROM trust_connections
+                               WHERE user2_id = ? ORDER BY mutual_ride_count DESC LIMIT ?)) c
+                        JOIN users u ON u.id = c.partner_id
+                        ORDER BY c.mutual_ride_count DESC
+                        LIMIT ?
+                        """,
+                (rs, i) -> TrustProfileDto.TopConnectionDto.builder()
+                        .userId(UUID.fromString(rs.getString(1)))
+                        .name(rs.getString(2))
+                        .mutualRides(rs.getInt(3))
+                        .build(),
+                id, TOP_CONNECTIONS, id, TOP_CONNECTIONS, TOP_CONNECTIONS);
+
+        Integer partners = jdbcTemplate.queryForObject("""
+                        SELECT (SELECT COUNT(*) FROM trust_connections WHERE user1_id = ?)
+                             + (SELECT COUNT(*) FROM trust_connections WHERE user2_id = ?)
+                        """,
+                Integer.class, id, id);
 
-        List<TrustConnection> connections = trustConnectionRepository.findAllForUser(userId);
-
-        Map<UUID, String> userNames = userRepository.findAllById(
-                connections.stream()
-                    .map(connection -> connection.getUser1Id().equals(userId)
-                        ? connection.getUser2Id()
-                        : connection.getUser1Id())
-                    .toList())
-            .stream()
-            .collect(Collectors.toMap(User::getId, User::getName));
-
-        List<TrustProfileDto.TopConnectionDto> topConnections = connections.stream()
-            .sorted((a, b) -> Integer.compare(b.getMutualRideCount(), a.getMutualRideCount()))
-            .limit(4)
-            .map(connection -> {
-                UUID partnerId = connection.getUser1Id().equals(userId)
-                    ? connection.getUser2Id()
-                    : connection.getUser1Id();
-                return TrustProfileDto.TopConnectionDto.builder()
-                    .userId(partnerId)
-                    .name(userNames.getOrDefault(partnerId, "Campus Rider"))
-                    .mutualRides(connection.getMutualRideCount())
-                    .build();
-            })
-            .toList();
-
-        return TrustProfileDto.builder()
+        TrustRankEngine.Rank rank = trustRankEngine.get(userId);
+        TrustProfileDto profile = TrustProfileDto.builder()
                 .userId(user.getId())
                 .name(user.getName())
                 .trustScore(user.getTrustScore())
                 .badge(UserService.resolveBadge(user.getTrustScore()))
+                .trustRank(rank != null ? rank.score() : null)
+                .trustPercentile(rank != null ? rank.percentile() : null)
                 .ridesCompleted(user.getRidesCompleted())
-                .uniqueRidePartners(connections.size())
-            .topConnections(topConnections)
+                .uniqueRidePartners(partners == null ? 0 : partners)
+                .topConnections(topConnections)
                 .build();
+
+        // Skip caching if anything was evicted meanwhile; the read may predate that commit
+        if (evictions.get() == generation) {
+            profiles.put(userId, new CachedProfile(profile, System.currentTimeMillis()));
+        }
+        return profile;
+    }
+
+    /** Drop a cached profile once the caller's transaction commits. */
+    public void evictProfile(UUID userId) {
+        AfterCommit.run(() -> {
+            evictions.incrementAndGet();
+            profiles.remove(userId);
+        });
     }
 }
@@ -16,8 +16,10 @@ public class UserProfileDto {
     private Integer year;
     private int trustScore;
     private String trustBadge;   // BRONZE, SILVER, GOLD, PLATINUM
+    private Double trustRank;        // graph trust rank, 1.0 = campus mean; null until first computed
+    private Integer trustPercentile; // 0-100
     private int ridesCompleted;
-    private int carbonCredits;
+    private long carbonCredits;
     private String vehicleModel;
     private String vehicleNumber;
     private String bio;
@@ -42,9 +42,10 @@ public class User {
     @Builder.Default
     private int ridesCompleted = 0;
 
-    @Column(name = "carbon_credits", nullable = false)
+    /** Written only by atomic increments (CarbonService.addCarbonSaved), never by an entity save. */
+    @Column(name = "carbon_saved_grams", nullable = false, updatable = false)
     @Builder.Default
-    private int carbonCredits = 0;
+    private long carbonSavedGrams = 0;
 
     @Column(name = "vehicle_model", length = 100)
     private String vehicleModel;
@@ -70,6 +71,10 @@ public class User {
     @Builder.Default
     private boolean licenseVerified = false;
 
+    /** Read-only here; changed through AdminUserService so a stale entity save cannot undo it. */
+    @Column(name = "disabled", nullable = false, insertable = false, updatable = false)
+    private boolean disabled;
+
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private Instant createdAt;
@@ -2,6 +2,10 @@ package com.ecoride.user.repository;
 
 import com.ecoride.user.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -9,4 +13,11 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    /** Swaps in a rehashed password unless the password changed since it was read. */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE users SET password_hash = :newHash WHERE id = :id AND password_hash = :oldHash",
+           nativeQuery = true)
+    int replacePasswordHash(@Param("id") String id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
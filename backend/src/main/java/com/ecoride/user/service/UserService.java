@@ -1,6 +1,10 @@
 package com.ecoride.user.service;
 
+import com.ecoride.carbon.service.CreditLedger;
 import com.ecoride.common.exception.ApiException;
+import com.ecoride.leaderboard.service.LeaderboardService;
+import com.ecoride.trust.service.TrustRankEngine;
+import com.ecoride.trust.service.TrustService;
 import com.ecoride.user.dto.UpdateUserRequest;
 import com.ecoride.user.dto.UserProfileDto;
 import com.ecoride.user.entity.User;
@@ -16,6 +20,10 @@ import java.util.UUID;
 public class UserService {
 
     private final UserRepository userRepository;
+    private final LeaderboardService leaderboardService;
+    private final CreditLedger creditLedger;
+    private final TrustRankEngine trustRankEngine;
+    private final TrustService trustService;
 
     @Transactional(readOnly = true)
     public UserProfileDto getByEmail(String email) {
@@ -50,10 +58,13 @@ public class UserService {
         if (req.getPhoneVerified() != null) user.setPhoneVerified(req.getPhoneVerified());
         if (req.getLicenseVerified() != null) user.setLicenseVerified(req.getLicenseVerified());
         userRepository.save(user);
+        leaderboardService.update(user);
+        trustService.evictProfile(user.getId());
         return toDto(user);
     }
 
     private UserProfileDto toDto(User user) {
+        TrustRankEngine.Rank rank = trustRankEngine.get(user.getId());
         return UserProfileDto.builder()
                 .id(user.getId())
                 .name(user.getName())
@@ -62,8 +73,10 @@ public class UserService {
                 .year(user.getYear())
                 .trustScore(user.getTrustScore())
                 .trustBadge(resolveBadge(user.getTrustScore()))
+                .trustRank(rank != null ? rank.score() : null)
+                .trustPercentile(rank != null ? rank.percentile() : null)
                 .ridesCompleted(user.getRidesCompleted())
-                .carbonCredits(user.getCarbonCredits())
+                .carbonCredits(creditLedger.balance(user.getId()))
                 .vehicleModel(user.getVehicleModel())
                 .vehicleNumber(user.getVehicleNumber())
                 .bio(user.getBio())
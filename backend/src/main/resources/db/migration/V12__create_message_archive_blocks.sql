@@ -0,0 +1,17 @@
+-- V12: Sparse per-conversation index into the on-disk message archive segments.
+-- One row per compressed block; each block holds consecutive messages of one conversation.
+CREATE TABLE message_archive_blocks (
+    id                BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    user1_id          VARCHAR(36)  NOT NULL,
+    user2_id          VARCHAR(36)  NOT NULL,
+    segment_no        INT          NOT NULL,
+    file_offset       BIGINT       NOT NULL,
+    block_length      INT          NOT NULL,
+    message_count     INT          NOT NULL,
+    first_created_at  DATETIME     NOT NULL,
+    last_created_at   DATETIME     NOT NULL,
+    CHECK (user1_id < user2_id)
+);
+
+CREATE INDEX idx_mab_conversation ON message_archive_blocks(user1_id, user2_id, first_created_at);
+CREATE INDEX idx_mab_user2 ON message_archive_blocks(user2_id);
@@ -0,0 +1,26 @@
+-- V13: Per-user change feed backing the delta sync API.
+-- seq is the monotonic sync token; entity_id is a message id, peer user id or ride id.
+CREATE TABLE sync_changes (
+    seq          BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    user_id      VARCHAR(36)  NOT NULL,
+    entity_type  ENUM('MESSAGE','CONVERSATION','RIDE') NOT NULL,
+    entity_id    VARCHAR(36)  NOT NULL,
+    created_at   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_sync_user_seq ON sync_changes(user_id, seq);
+CREATE INDEX idx_sync_created_at ON sync_changes(created_at);
+
+-- One row per user with changes; writers lock it while inserting, so one user's change rows
+-- commit in seq order and a token can advance to the last visible row.
+CREATE TABLE sync_heads (
+    user_id  VARCHAR(36)  PRIMARY KEY
+);
+
+-- Highest seq deleted by retention pruning, shared by every node; tokens below it must reset.
+CREATE TABLE sync_prune_mark (
+    id                  TINYINT  PRIMARY KEY,
+    pruned_through_seq  BIGINT   NOT NULL
+);
+
+INSERT INTO sync_prune_mark (id, pruned_through_seq) VALUES (1, 0);
@@ -0,0 +1,20 @@
+-- V14: Running campus-wide carbon aggregates, spread over 16 slot rows (slot 0..15).
+-- Writers increment one slot so concurrent ride completions rarely wait on the same row lock;
+-- readers sum the slots. Incremented in the same transaction that records carbon; reconciled periodically.
+CREATE TABLE campus_carbon_totals (
+    slot                TINYINT   PRIMARY KEY,
+    carbon_saved_grams  BIGINT    NOT NULL DEFAULT 0,
+    rides_completed     BIGINT    NOT NULL DEFAULT 0,
+    credits_issued      BIGINT    NOT NULL DEFAULT 0,
+    updated_at          DATETIME  NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CHECK (slot BETWEEN 0 AND 15)
+);
+
+INSERT INTO campus_carbon_totals (slot)
+VALUES (1), (2), (3), (4), (5), (6), (7), (8), (9), (10), (11), (12), (13), (14), (15);
+
+INSERT INTO campus_carbon_totals (slot, carbon_saved_grams, rides_completed, credits_issued)
+SELECT 0,
+       (SELECT COALESCE(SUM(carbon_saved_grams), 0) FROM carbon_transactions),
+       (SELECT COUNT(*) FROM rides WHERE status = 'COMPLETED'),
+       (SELECT COALESCE(SUM(credits_earned), 0) FROM carbon_transactions);
@@ -0,0 +1,12 @@
+-- V15: Materialized per-user carbon total next to carbon_credits, and a keyset index for the wallet feed
+ALTER TABLE users
+    ADD COLUMN carbon_saved_grams BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users u
+SET carbon_saved_grams = (
+    SELECT COALESCE(SUM(c.carbon_saved_grams), 0)
+    FROM carbon_transactions c
+    WHERE c.user_id = u.id
+);
+
+CREATE INDEX idx_carbon_user_created ON carbon_transactions(user_id, created_at, id);
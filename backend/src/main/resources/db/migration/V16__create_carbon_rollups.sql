@@ -0,0 +1,28 @@
+-- V16: Time-series rollups of carbon savings by department and pickup zone.
+-- Carbon crediting upserts MINUTE buckets; a compaction job folds them into HOUR and DAY buckets
+-- (aligned to the campus timezone) and deletes them. bucket_start is the UTC start of the bucket.
+CREATE TABLE carbon_rollups (
+    granularity         ENUM('MINUTE','HOUR','DAY') NOT NULL,
+    bucket_start        DATETIME     NOT NULL,
+    department          VARCHAR(100) NOT NULL DEFAULT '',
+    pickup_zone         VARCHAR(50)  NOT NULL DEFAULT '',
+    carbon_saved_grams  BIGINT       NOT NULL DEFAULT 0,
+    credits_earned      BIGINT       NOT NULL DEFAULT 0,
+    transactions        INT          NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularity, bucket_start, department, pickup_zone)
+);
+
+-- Seed history as minute buckets; the first compaction run rolls them up
+INSERT INTO carbon_rollups (granularity, bucket_start, department, pickup_zone,
+                            carbon_saved_grams, credits_earned, transactions)
+SELECT 'MINUTE',
+       DATE_FORMAT(ct.created_at, '%Y-%m-%d %H:%i:00'),
+       COALESCE(u.department, ''),
+       r.pickup_zone,
+       SUM(ct.carbon_saved_grams),
+       SUM(ct.credits_earned),
+       COUNT(*)
+FROM carbon_transactions ct
+JOIN users u ON u.id = ct.user_id
+JOIN rides r ON r.id = ct.ride_id
+GROUP BY DATE_FORMAT(ct.created_at, '%Y-%m-%d %H:%i:00'), COALESCE(u.department, ''), r.pickup_zone;
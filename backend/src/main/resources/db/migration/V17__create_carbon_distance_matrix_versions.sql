@@ -0,0 +1,7 @@
+-- V17: Distance matrix versions whose carbon recompute has completed.
+-- On startup the current matrix version is looked up here; if missing, historical carbon is recomputed.
+CREATE TABLE carbon_distance_matrix_versions (
+    version                  VARCHAR(64)  PRIMARY KEY,
+    recomputed_transactions  BIGINT       NOT NULL,
+    applied_at               DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
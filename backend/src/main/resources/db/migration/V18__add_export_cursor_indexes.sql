@@ -0,0 +1,3 @@
+-- V18: (created_at, id) indexes so admin exports stream in cursor order without a filesort.
+CREATE INDEX idx_carbon_created_id ON carbon_transactions(created_at, id);
+CREATE INDEX idx_rides_created_id ON rides(created_at, id);
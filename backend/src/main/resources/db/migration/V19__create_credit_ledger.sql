@@ -0,0 +1,44 @@
+-- V19: Append-only carbon credit ledger with periodic per-user snapshots.
+-- The ledger replaces users.carbon_credits as the source of truth for credit balances:
+-- balance = snapshot.balance + SUM(amount) of ledger rows after snapshot.through_seq.
+CREATE TABLE credit_ledger (
+    seq           BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    user_id       VARCHAR(36)  NOT NULL,
+    entry_type    ENUM('EARN','REDEEM','ADJUST') NOT NULL,
+    amount        INT          NOT NULL,            -- positive credit, negative debit
+    reference_id  VARCHAR(36)  NULL,                -- ride for EARN, redemption for REDEEM
+    created_at    DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uq_ledger_reference (user_id, entry_type, reference_id),
+    CONSTRAINT fk_ledger_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX idx_ledger_user_seq ON credit_ledger(user_id, seq);
+
+CREATE TABLE credit_snapshots (
+    user_id      VARCHAR(36)  PRIMARY KEY,
+    balance      BIGINT       NOT NULL,
+    through_seq  BIGINT       NOT NULL,
+    updated_at   DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_snapshot_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Earnings from existing carbon transactions
+INSERT INTO credit_ledger (user_id, entry_type, amount, reference_id, created_at)
+SELECT user_id, 'EARN', credits_earned, ride_id, created_at
+FROM carbon_transactions
+ORDER BY created_at;
+
+-- Anything the mutable counter held beyond recorded earnings (e.g. V11) becomes an adjustment
+INSERT INTO credit_ledger (user_id, entry_type, amount, reference_id)
+SELECT u.id, 'ADJUST', u.carbon_credits - COALESCE(e.earned, 0), NULL
+FROM users u
+LEFT JOIN (SELECT user_id, SUM(credits_earned) AS earned FROM carbon_transactions GROUP BY user_id) e
+       ON e.user_id = u.id
+WHERE u.carbon_credits <> COALESCE(e.earned, 0);
+
+INSERT INTO credit_snapshots (user_id, balance, through_seq)
+SELECT user_id, SUM(amount), MAX(seq)
+FROM credit_ledger
+GROUP BY user_id;
+
+ALTER TABLE users DROP COLUMN carbon_credits;
@@ -0,0 +1,50 @@
+-- V20: Reward catalogue and credit redemptions.
+-- redeemed_count is guarded by a conditional UPDATE (redeemed_count < total_stock), so stock never goes negative.
+CREATE TABLE rewards (
+    id              VARCHAR(36)   PRIMARY KEY,
+    brand           VARCHAR(50)   NOT NULL,
+    name            VARCHAR(100)  NOT NULL,
+    category        VARCHAR(50)   NULL,
+    face_value      INT           NOT NULL,            -- rupees
+    cost_credits    INT           NOT NULL CHECK (cost_credits > 0),
+    total_stock     INT           NOT NULL CHECK (total_stock >= 0),
+    redeemed_count  INT           NOT NULL DEFAULT 0,
+    active          BOOLEAN       NOT NULL DEFAULT TRUE,
+    created_at      DATETIME      NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CHECK (redeemed_count <= total_stock)
+);
+
+CREATE TABLE redemptions (
+    id            VARCHAR(36)  PRIMARY KEY,
+    reward_id     VARCHAR(36)  NOT NULL,
+    user_id       VARCHAR(36)  NOT NULL,
+    cost_credits  INT          NOT NULL,
+    voucher_code  VARCHAR(32)  NOT NULL,
+    created_at    DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_redemption_reward FOREIGN KEY (reward_id) REFERENCES rewards(id),
+    CONSTRAINT fk_redemption_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX idx_redemptions_user_created ON redemptions(user_id, created_at);
+CREATE INDEX idx_redemptions_reward ON redemptions(reward_id);
+
+-- Launch catalogue: the gift cards on the redeem page. 1 display point = 10 credits, Rs 1 = 0.5 points.
+INSERT INTO rewards (id, brand, name, category, face_value, cost_credits, total_stock) VALUES
+  (UUID(), 'amazon',     'Amazon Gift Card',     'Shopping',      100,  500, 200),
+  (UUID(), 'amazon',     'Amazon Gift Card',     'Shopping',      250, 1250, 100),
+  (UUID(), 'amazon',     'Amazon Gift Card',     'Shopping',      500, 2500,  50),
+  (UUID(), 'flipkart',   'Flipkart Gift Card',   'Shopping',      100,  500, 200),
+  (UUID(), 'flipkart',   'Flipkart Gift Card',   'Shopping',      250, 1250, 100),
+  (UUID(), 'flipkart',   'Flipkart Gift Card',   'Shopping',      500, 2500,  50),
+  (UUID(), 'myntra',     'Myntra Gift Card',     'Fashion',       100,  500, 100),
+  (UUID(), 'myntra',     'Myntra Gift Card',     'Fashion',       250, 1250,  50),
+  (UUID(), 'myntra',     'Myntra Gift Card',     'Fashion',       500, 2500,  25),
+  (UUID(), 'ajio',       'Ajio Gift Card',       'Fashion',       100,  500, 100),
+  (UUID(), 'ajio',       'Ajio Gift Card',       'Fashion',       250, 1250,  50),
+  (UUID(), 'ajio',       'Ajio Gift Card',       'Fashion',       500, 2500,  25),
+  (UUID(), 'zomato',     'Zomato Gift Card',     'Food',          100,  500, 200),
+  (UUID(), 'zomato',     'Zomato Gift Card',     'Food',          250, 1250, 100),
+  (UUID(), 'zomato',     'Zomato Gift Card',     'Food',          500, 2500,  50),
+  (UUID(), 'bookmyshow', 'BookMyShow Gift Card', 'Entertainment', 100,  500, 100),
+  (UUID(), 'bookmyshow', 'BookMyShow Gift Card', 'Entertainment', 250, 1250,  50),
+  (UUID(), 'bookmyshow', 'BookMyShow Gift Card', 'Entertainment', 500, 2500,  25);
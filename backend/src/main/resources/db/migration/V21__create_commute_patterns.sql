@@ -0,0 +1,22 @@
+-- V21: Per-user commute pattern counters for ride suggestions.
+-- pattern_key packs (pickup zone id, day of week, hour) into one INT:
+--   zone_id << 8 | ((iso_dow - 1) * 24 + hour), with day/hour in the configured campus time zone.
+-- Existing rides are counted by the Java migration 21.1 (CommutePatternBackfill), which knows
+-- ecoride.carbon.rollups.zone-id.
+CREATE TABLE pickup_zones (
+    id    INT          AUTO_INCREMENT PRIMARY KEY,
+    name  VARCHAR(50)  NOT NULL,
+    UNIQUE KEY uq_pickup_zone_name (name)
+);
+
+CREATE TABLE commute_patterns (
+    user_id      VARCHAR(36)  NOT NULL,
+    pattern_key  INT          NOT NULL,
+    ride_count   INT          NOT NULL,
+    PRIMARY KEY (user_id, pattern_key),
+    CONSTRAINT fk_pattern_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+INSERT INTO pickup_zones (name)
+SELECT DISTINCT TRIM(pickup_zone) FROM rides;
+
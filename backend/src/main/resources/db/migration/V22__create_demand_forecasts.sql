@@ -0,0 +1,22 @@
+-- V22: Published campus demand/supply forecasts per pickup zone and weekly hour slot.
+-- Each batch run writes a full set of cells under a new run id; readers use the latest finished run.
+CREATE TABLE demand_forecast_runs (
+    id               BIGINT    AUTO_INCREMENT PRIMARY KEY,
+    history_weeks    INT       NOT NULL,
+    rides_processed  BIGINT    NOT NULL DEFAULT 0,
+    duration_ms      BIGINT    NOT NULL DEFAULT 0,
+    finished         BOOLEAN   NOT NULL DEFAULT FALSE,
+    generated_at     DATETIME  NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE demand_forecasts (
+    run_id           BIGINT    NOT NULL,
+    zone_id          INT       NOT NULL,
+    slot             SMALLINT  NOT NULL,             -- (iso_dow - 1) * 24 + hour, campus time
+    expected_riders  DOUBLE    NOT NULL,
+    expected_seats   DOUBLE    NOT NULL,
+    PRIMARY KEY (run_id, zone_id, slot),
+    CONSTRAINT fk_forecast_run FOREIGN KEY (run_id) REFERENCES demand_forecast_runs(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_rides_status_departure ON rides(status, departure_time);
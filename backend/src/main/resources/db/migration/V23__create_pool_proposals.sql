@@ -0,0 +1,27 @@
+-- V23: Subscription pool proposals produced by the commuter clustering job.
+-- Each proposal groups users who share a recurring (zone, day, hour) commute; accepting one
+-- creates the pool on first accept and joins it on later ones.
+CREATE TABLE pool_proposals (
+    id              VARCHAR(36)  PRIMARY KEY,
+    pickup_zone     VARCHAR(50)  NOT NULL,
+    departure_time  TIME         NOT NULL,
+    day_of_week     INT          NOT NULL CHECK (day_of_week BETWEEN 0 AND 6),   -- 0=Sun, as pools
+    similarity      DOUBLE       NOT NULL,          -- estimated mean pairwise Jaccard of members' patterns
+    status          ENUM('OPEN', 'ACCEPTED') NOT NULL DEFAULT 'OPEN',
+    pool_id         VARCHAR(36)  NULL,
+    created_at      DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_proposal_pool FOREIGN KEY (pool_id) REFERENCES subscription_pools(id)
+);
+
+CREATE INDEX idx_proposal_status ON pool_proposals(status);
+
+CREATE TABLE pool_proposal_members (
+    proposal_id  VARCHAR(36)  NOT NULL,
+    user_id      VARCHAR(36)  NOT NULL,
+    ride_count   INT          NOT NULL,             -- the member's rides in this slot
+    PRIMARY KEY (proposal_id, user_id),
+    CONSTRAINT fk_ppm_proposal FOREIGN KEY (proposal_id) REFERENCES pool_proposals(id) ON DELETE CASCADE,
+    CONSTRAINT fk_ppm_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+CREATE INDEX idx_ppm_user ON pool_proposal_members(user_id);
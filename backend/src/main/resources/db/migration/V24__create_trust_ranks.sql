@@ -0,0 +1,12 @@
+-- V24: Graph trust rank per user, computed over trust_connections by the nightly rank job.
+-- score is relative to the campus mean (1.0 = average); percentile is 0-100.
+CREATE TABLE trust_ranks (
+    user_id      VARCHAR(36)  PRIMARY KEY,
+    score        DOUBLE       NOT NULL,
+    percentile   INT          NOT NULL,
+    computed_at  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    CONSTRAINT fk_trust_rank_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- Identity checked by an admin; unlike the self-declared phone/licence flags it seeds the rank.
+ALTER TABLE users ADD COLUMN identity_verified BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,3 @@
+-- V25: Let top-K trust connections be read straight off an index from either side of the pair.
+CREATE INDEX idx_tc_user1_rides ON trust_connections(user1_id, mutual_ride_count);
+CREATE INDEX idx_tc_user2_rides ON trust_connections(user2_id, mutual_ride_count);
@@ -0,0 +1,5 @@
+-- V26: Denormalized member count on subscription pools, kept in step by create/join.
+ALTER TABLE subscription_pools ADD COLUMN member_count INT NOT NULL DEFAULT 0;
+
+UPDATE subscription_pools sp
+SET member_count = (SELECT COUNT(*) FROM subscription_members sm WHERE sm.pool_id = sp.id);
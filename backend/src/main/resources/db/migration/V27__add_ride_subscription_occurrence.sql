@@ -0,0 +1,7 @@
+-- V27: Link rides materialized from a subscription pool to the pool and the campus date they
+-- run on. The unique key makes materialization idempotent per (pool, date).
+ALTER TABLE rides
+    ADD COLUMN subscription_pool_id VARCHAR(36) NULL,
+    ADD COLUMN subscription_date    DATE        NULL,
+    ADD CONSTRAINT fk_rides_subscription_pool FOREIGN KEY (subscription_pool_id) REFERENCES subscription_pools(id),
+    ADD UNIQUE KEY uq_rides_pool_date (subscription_pool_id, subscription_date);
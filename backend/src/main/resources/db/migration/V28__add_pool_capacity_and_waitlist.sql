@@ -0,0 +1,13 @@
+-- V28: Optional pool capacity (NULL = unlimited) and a FIFO waitlist for joins past it.
+ALTER TABLE subscription_pools ADD COLUMN capacity INT NULL CHECK (capacity IS NULL OR capacity >= 1);
+
+CREATE TABLE pool_waitlist (
+    seq         BIGINT       AUTO_INCREMENT PRIMARY KEY,
+    pool_id     VARCHAR(36)  NOT NULL,
+    user_id     VARCHAR(36)  NOT NULL,
+    created_at  DATETIME     NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uq_waitlist_pool_user (pool_id, user_id),
+    INDEX idx_waitlist_pool_seq (pool_id, seq),
+    CONSTRAINT fk_waitlist_pool FOREIGN KEY (pool_id) REFERENCES subscription_pools(id),
+    CONSTRAINT fk_waitlist_user FOREIGN KEY (user_id) REFERENCES users(id)
+);
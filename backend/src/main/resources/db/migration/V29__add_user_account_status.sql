@@ -0,0 +1,5 @@
+-- V29: Account status checked by the stateless JWT filter.
+-- Tokens issued before tokens_valid_after are rejected (disable, forced sign-out).
+ALTER TABLE users
+    ADD COLUMN disabled           BOOLEAN   NOT NULL DEFAULT FALSE,
+    ADD COLUMN tokens_valid_after DATETIME  NULL;
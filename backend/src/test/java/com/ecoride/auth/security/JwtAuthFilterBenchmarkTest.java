@@ -0,0 +1,114 @@
+package com.ecoride.auth.security;
+
+import jakarta.servlet.FilterChain;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Microbenchmark of the JWT filter's CPU time per request, measured with thread CPU time so
+ * scheduling noise does not count. Compares a session's repeat requests (verified-token cache
+ * hit) with first requests (full HMAC check and claims parse). Account status comes from an
+ * in-memory JdbcTemplate, so no database is involved.
+ */
+@Slf4j
+class JwtAuthFilterBenchmarkTest {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-of-material";
+    private static final int WARMUP = 10_000;
+    private static final int REQUESTS = 100_000;
+    private static final int FRESH_TOKENS = 10_000;
+
+    /** Every account is active and was never revoked. */
+    private static class ActiveAccounts extends JdbcTemplate {
+        @Override
+        public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+            ResultSet rs = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, a) -> method.getName().equals("getBoolean") ? false : null);
+            try {
+                return List.of(rowMapper.mapRow(rs, 0));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final JwtUtil jwtUtil = new JwtUtil(SECRET, 3_600_000, 10_000);
+    private final JwtAuthFilter filter = new JwtAuthFilter(jwtUtil, null,
+            new UserStatusCache(new ActiveAccounts(), 10_000, 60_000), null);
+    private int authenticated;
+    private final FilterChain chain = (req, res) -> {
+        if (SecurityContextHolder.getContext().getAuthentication() != null) authenticated++;
+    };
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private String token() {
+        return jwtUtil.generateToken(UUID.randomUUID(), "bench-" + UUID.randomUUID() + "@test.local", List.of("USER"));
+    }
+
+    private MockHttpServletRequest request(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/rides");
+        request.addHeader("Authorization", "Bearer " + token);
+        return request;
+    }
+
+    /** CPU nanoseconds per request for filtering each request once, in order. */
+    private long cpuNanosPerRequest(List<MockHttpServletRequest> requests) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long start = threads.getCurrentThreadCpuTime();
+        for (MockHttpServletRequest request : requests) {
+            filter.doFilterInternal(request, response, chain);
+            SecurityContextHolder.clearContext();
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / requests.size();
+    }
+
+    @Test
+    void filterCpuPerRequest() throws Exception {
+        assertThat(threads.isCurrentThreadCpuTimeSupported()).isTrue();
+
+        String session = token();
+        List<MockHttpServletRequest> repeat = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) repeat.add(request(session));
+        List<MockHttpServletRequest> warmup = new ArrayList<>(WARMUP);
+        for (int i = 0; i < WARMUP; i++) warmup.add(request(token()));
+        List<MockHttpServletRequest> fresh = new ArrayList<>(FRESH_TOKENS);
+        for (int i = 0; i < FRESH_TOKENS; i++) fresh.add(request(token()));
+
+        cpuNanosPerRequest(warmup);
+        cpuNanosPerRequest(repeat.subList(0, WARMUP));
+        authenticated = 0;
+
+        long cachedNs = cpuNanosPerRequest(repeat);
+        long firstNs = cpuNanosPerRequest(fresh);
+
+        log.info("JWT filter CPU per request: {} ns with a cached verification, {} ns for a first request",
+                cachedNs, firstNs);
+        assertThat(authenticated).isEqualTo(REQUESTS + FRESH_TOKENS);
+        assertThat(cachedNs).isLessThan(firstNs);
+        // Loose bound so slow CI machines pass; the logged numbers are what to compare
+        assertThat(cachedNs).isLessThan(50_000);
+    }
+}
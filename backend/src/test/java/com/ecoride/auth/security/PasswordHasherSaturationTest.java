@@ -0,0 +1,156 @@
+package com.ecoride.auth.security;
+
+import com.ecoride.common.exception.GlobalExceptionHandler;
+import com.ecoride.common.response.ApiResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Saturates the hashing pool through the MVC stack: sign-ins beyond the pool and its queue must
+ * be turned away at once with 503 and Retry-After, while an endpoint that does not hash keeps
+ * answering quickly even with every hashing thread busy.
+ */
+class PasswordHasherSaturationTest {
+
+    private static final int THREADS = 2;
+    private static final int QUEUE = 2;
+    private static final long RETRY_AFTER = 3;
+
+    /** Real bcrypt, but each check first waits until the test opens the gate. */
+    private static class GatedEncoder extends BCryptPasswordEncoder {
+        final CountDownLatch gate = new CountDownLatch(1);
+        final Semaphore started = new Semaphore(0);
+
+        GatedEncoder() {
+            super(12);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            started.release();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.matches(rawPassword, encodedPassword);
+        }
+    }
+
+    @RestController
+    static class TestController {
+        private final PasswordHasher hasher;
+        private final String storedHash;
+
+        TestController(PasswordHasher hasher, String storedHash) {
+            this.hasher = hasher;
+            this.storedHash = storedHash;
+        }
+
+        @PostMapping("/login")
+        ApiResponse<Boolean> login(@RequestParam String password) {
+            return ApiResponse.ok(hasher.verify(password, storedHash).matches());
+        }
+
+        @GetMapping("/ping")
+        ApiResponse<Void> ping() {
+            return ApiResponse.ok("pong");
+        }
+    }
+
+    private final GatedEncoder encoder = new GatedEncoder();
+    private final String storedHash = new BCryptPasswordEncoder(12).encode("secret");
+    private final ExecutorService clients = Executors.newFixedThreadPool(THREADS + QUEUE);
+
+    @AfterEach
+    void tearDown() {
+        encoder.gate.countDown();
+        clients.shutdownNow();
+    }
+
+    @Test
+    void saturatedPoolAnswers503WithRetryAfterWhileOtherEndpointsStayFast() throws Exception {
+        // Only matches() is gated, so the dummy hash made by the constructor goes through
+        PasswordHasher gated = new PasswordHasher(encoder, 12, THREADS, QUEUE, 30_000, RETRY_AFTER);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new TestController(gated, storedHash))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        try {
+            // Fill both hashing threads, then the queue
+            List<Future<MvcResult>> admitted = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) admitted.add(clients.submit(() -> login(mvc)));
+            assertThat(encoder.started.tryAcquire(THREADS, 10, TimeUnit.SECONDS)).isTrue();
+            List<Thread> waiting = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < QUEUE; i++) {
+                admitted.add(clients.submit(() -> {
+                    waiting.add(Thread.currentThread());
+                    return login(mvc);
+                }));
+            }
+            awaitBlocked(waiting, QUEUE);
+
+            // Every further sign-in is refused immediately, not after the 30 s timeout
+            for (int i = 0; i < 10; i++) {
+                long start = System.nanoTime();
+                MvcResult refused = login(mvc);
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+                assertThat(refused.getResponse().getStatus()).isEqualTo(503);
+                assertThat(refused.getResponse().getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo(Long.toString(RETRY_AFTER));
+            }
+
+            // Let the hashing threads burn CPU on cost-12 bcrypt while another endpoint is called
+            encoder.gate.countDown();
+            long[] pings = new long[50];
+            for (int i = 0; i < pings.length; i++) {
+                long start = System.nanoTime();
+                MvcResult pong = mvc.perform(get("/ping")).andReturn();
+                pings[i] = System.nanoTime() - start;
+                assertThat(pong.getResponse().getStatus()).isEqualTo(200);
+            }
+            Arrays.sort(pings);
+            assertThat(Duration.ofNanos(pings[pings.length - 1])).isLessThan(Duration.ofMillis(500));
+
+            for (Future<MvcResult> f : admitted) {
+                assertThat(f.get(60, TimeUnit.SECONDS).getResponse().getStatus()).isEqualTo(200);
+            }
+        } finally {
+            gated.stop();
+        }
+    }
+
+    private static MvcResult login(MockMvc mvc) throws Exception {
+        return mvc.perform(post("/login").param("password", "secret")).andReturn();
+    }
+
+    /** Waits until the given client threads are parked waiting for their queued hash. */
+    private static void awaitBlocked(List<Thread> threads, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            if (threads.size() == count
+                    && threads.stream().allMatch(t -> t.getState() == Thread.State.TIMED_WAITING)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Queued sign-ins did not reach the pool");
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecoride.auth.security;
+
+import com.ecoride.common.exception.ApiException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PasswordHasherTest {
+
+    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(4);
+
+    @Test
+    void costReadsTheModularCryptField() {
+        assertThat(PasswordHasher.cost("$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234")).isEqualTo(10);
+        assertThat(PasswordHasher.cost(encoder.encode("pw"))).isEqualTo(4);
+        assertThat(PasswordHasher.cost("$2b$12$")).isEqualTo(12);
+        assertThat(PasswordHasher.cost("plain")).isEqualTo(-1);
+        assertThat(PasswordHasher.cost("$2a$xx$")).isEqualTo(-1);
+    }
+
+    @Test
+    void rehashesOnlyWhenTheStoredCostDiffers() {
+        String stored = encoder.encode("secret");
+
+        PasswordHasher same = new PasswordHasher(encoder, 4, 1, 4, 5000, 2);
+        assertThat(same.verify("secret", stored)).isEqualTo(new PasswordHasher.Verification(true, null));
+
+        PasswordHasher stronger = new PasswordHasher(encoder, 5, 1, 4, 5000, 2);
+        PasswordHasher.Verification v = stronger.verify("secret", stored);
+        assertThat(v.matches()).isTrue();
+        assertThat(v.rehash()).isNotNull();
+        assertThat(encoder.matches("secret", v.rehash())).isTrue();
+
+        assertThat(stronger.verify("wrong", stored)).isEqualTo(new PasswordHasher.Verification(false, null));
+        same.stop();
+        stronger.stop();
+    }
+
+    @Test
+    void unknownUserNeverMatches() {
+        PasswordHasher hasher = new PasswordHasher(encoder, 4, 1, 4, 5000, 2);
+        assertThat(hasher.verify("not-a-real-password", null).matches()).isFalse();
+        hasher.stop();
+    }
+
+    @Test
+    void stoppedPoolTurnsRequestsAwayWithRetryAfter() {
+        PasswordHasher hasher = new PasswordHasher(encoder, 4, 1, 1, 5000, 7);
+        hasher.stop();
+        assertThatThrownBy(() -> hasher.encode("secret"))
+                .isInstanceOfSatisfying(ApiException.class, e -> {
+                    assertThat(e.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(7L);
+                });
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecoride.carbon.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RollupStoreTest {
+
+    @Test
+    void sumsRangeAcrossSeriesForCampus() {
+        RollupStore store = new RollupStore();
+        store.add(RollupStore.Unit.DAY, 100, "CSE", "Gate 1", 500, 5, 1);
+        store.add(RollupStore.Unit.DAY, 101, "ECE", "Gate 2", 300, 3, 1);
+        store.add(RollupStore.Unit.DAY, 101, "CSE", "Gate 1", 200, 2, 1);
+        store.add(RollupStore.Unit.DAY, 105, "CSE", "Gate 1", 999, 9, 1);  // outside the range
+
+        List<RollupStore.Result> results = store.query(RollupStore.Unit.DAY, 100, 103,
+                RollupStore.GroupBy.NONE, null, null);
+
+        assertThat(results).hasSize(1);
+        RollupStore.Result campus = results.get(0);
+        assertThat(campus.key()).isEqualTo("campus");
+        assertThat(campus.grams()).containsExactly(500, 500, 0);
+        assertThat(campus.credits()).containsExactly(5, 5, 0);
+        assertThat(campus.transactions()).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void groupsAndFiltersByDepartmentAndZone() {
+        RollupStore store = new RollupStore();
+        store.add(RollupStore.Unit.HOUR, 10, "CSE", "Gate 1", 100, 1, 1);
+        store.add(RollupStore.Unit.HOUR, 10, "CSE", "Gate 2", 40, 0, 1);
+        store.add(RollupStore.Unit.HOUR, 10, "ECE", "Gate 1", 70, 0, 1);
+
+        List<RollupStore.Result> byDepartment = store.query(RollupStore.Unit.HOUR, 10, 11,
+                RollupStore.GroupBy.DEPARTMENT, null, null);
+        assertThat(byDepartment).extracting(RollupStore.Result::key).containsExactlyInAnyOrder("CSE", "ECE");
+        assertThat(byDepartment).filteredOn(r -> r.key().equals("CSE"))
+                .singleElement().satisfies(r -> assertThat(r.grams()).containsExactly(140));
+
+        List<RollupStore.Result> gateOne = store.query(RollupStore.Unit.HOUR, 10, 11,
+                RollupStore.GroupBy.NONE, null, "Gate 1");
+        assertThat(gateOne.get(0).grams()).containsExactly(170);
+
+        assertThat(store.query(RollupStore.Unit.HOUR, 10, 11, RollupStore.GroupBy.NONE, "MECH", null)).isEmpty();
+    }
+
+    @Test
+    void growsInBothDirectionsWithoutLosingBuckets() {
+        RollupStore store = new RollupStore();
+        store.add(RollupStore.Unit.DAY, 1_000, "CSE", "Gate 1", 1, 0, 1);
+        store.add(RollupStore.Unit.DAY, 900, "CSE", "Gate 1", 2, 0, 1);    // before the base
+        store.add(RollupStore.Unit.DAY, 1_300, "CSE", "Gate 1", 3, 0, 1);  // far past the end
+
+        long[] grams = store.query(RollupStore.Unit.DAY, 900, 1_301,
+                RollupStore.GroupBy.NONE, null, null).get(0).grams();
+        assertThat(grams[0]).isEqualTo(2);
+        assertThat(grams[100]).isEqualTo(1);
+        assertThat(grams[400]).isEqualTo(3);
+        assertThat(Arrays.stream(grams).sum()).isEqualTo(6);
+    }
+
+    @Test
+    void hourAndDaySeriesAreIndependent() {
+        RollupStore store = new RollupStore();
+        store.add(RollupStore.Unit.HOUR, 5, "CSE", "Gate 1", 10, 0, 1);
+        assertThat(store.query(RollupStore.Unit.DAY, 0, 10, RollupStore.GroupBy.NONE, null, null)).isEmpty();
+    }
+}
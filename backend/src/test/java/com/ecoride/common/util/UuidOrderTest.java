@@ -0,0 +1,40 @@
+package com.ecoride.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidOrderTest {
+
+    // Most significant bits negative as a long, but lexically after the other id
+    private static final UUID HIGH_BIT = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+    private static final UUID LOW_BIT = UUID.fromString("10000000-0000-0000-0000-000000000000");
+
+    @Test
+    void ordersByStringNotBySignedLongs() {
+        assertThat(HIGH_BIT.compareTo(LOW_BIT)).isNegative();
+        assertThat(UuidOrder.compare(HIGH_BIT, LOW_BIT)).isPositive();
+        assertThat(UuidOrder.lower(HIGH_BIT, LOW_BIT)).isEqualTo(LOW_BIT);
+        assertThat(UuidOrder.higher(HIGH_BIT, LOW_BIT)).isEqualTo(HIGH_BIT);
+    }
+
+    @Test
+    void pairOrderIsIndependentOfArgumentOrder() {
+        for (int i = 0; i < 1000; i++) {
+            UUID a = UUID.randomUUID();
+            UUID b = UUID.randomUUID();
+            assertThat(UuidOrder.lower(a, b)).isEqualTo(UuidOrder.lower(b, a));
+            assertThat(UuidOrder.higher(a, b)).isEqualTo(UuidOrder.higher(b, a));
+            assertThat(UuidOrder.lower(a, b).toString()).isLessThanOrEqualTo(UuidOrder.higher(a, b).toString());
+        }
+    }
+
+    @Test
+    void samePairGivesSameIdTwice() {
+        UUID a = UUID.randomUUID();
+        assertThat(UuidOrder.lower(a, a)).isEqualTo(a);
+        assertThat(UuidOrder.higher(a, a)).isEqualTo(a);
+    }
+}
@@ -0,0 +1,72 @@
+package com.ecoride.leaderboard.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankTreeTest {
+
+    private static final Comparator<RankTree.Entry> ORDER = Comparator
+            .comparingLong(RankTree.Entry::score).reversed()
+            .thenComparing(RankTree.Entry::userId);
+
+    @Test
+    void ranksByScoreDescendingThenUserId() {
+        RankTree tree = new RankTree();
+        UUID a = new UUID(0, 1);
+        UUID b = new UUID(0, 2);
+        UUID c = new UUID(0, 3);
+        tree.insert(10, b);
+        tree.insert(30, c);
+        tree.insert(10, a);
+
+        assertThat(tree.size()).isEqualTo(3);
+        assertThat(tree.rank(30, c)).isZero();
+        assertThat(tree.rank(10, a)).isEqualTo(1);
+        assertThat(tree.rank(10, b)).isEqualTo(2);
+        assertThat(tree.top(2)).containsExactly(new RankTree.Entry(c, 30), new RankTree.Entry(a, 10));
+    }
+
+    @Test
+    void matchesSortedReferenceUnderRandomUpdates() {
+        SplittableRandom random = new SplittableRandom(42);
+        RankTree tree = new RankTree();
+        Map<UUID, Long> scores = new HashMap<>();
+        List<UUID> users = new ArrayList<>();
+        for (int i = 0; i < 200; i++) users.add(new UUID(random.nextLong(), random.nextLong()));
+
+        for (int step = 0; step < 5_000; step++) {
+            UUID user = users.get(random.nextInt(users.size()));
+            Long old = scores.remove(user);
+            if (old != null) tree.remove(old, user);
+            if (random.nextInt(4) != 0) {
+                long score = random.nextInt(50);  // small range forces many ties
+                tree.insert(score, user);
+                scores.put(user, score);
+            }
+        }
+
+        List<RankTree.Entry> expected = scores.entrySet().stream()
+                .map(e -> new RankTree.Entry(e.getKey(), e.getValue()))
+                .sorted(ORDER)
+                .toList();
+        assertThat(tree.size()).isEqualTo(expected.size());
+        assertThat(tree.top(expected.size() + 10)).isEqualTo(expected);
+        for (int i = 0; i < expected.size(); i++) {
+            RankTree.Entry e = expected.get(i);
+            assertThat(tree.rank(e.score(), e.userId())).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void removingAbsentKeyIsNoOp() {
+        RankTree tree = new RankTree();
+        UUID user = UUID.randomUUID();
+        tree.insert(5, user);
+        tree.remove(6, user);
+        assertThat(tree.size()).isEqualTo(1);
+        assertThat(tree.top(0)).isEmpty();
+    }
+}
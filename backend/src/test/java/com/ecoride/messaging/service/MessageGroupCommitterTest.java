@@ -0,0 +1,127 @@
+package com.ecoride.messaging.service;
+
+import com.ecoride.sync.service.ChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the group-commit writer with an in-memory JdbcTemplate, so batching and withdrawal
+ * can be checked under concurrent load without a database.
+ */
+class MessageGroupCommitterTest {
+
+    /** Records message rows instead of running SQL; optionally holds the writer inside a batch. */
+    private static class RecordingJdbcTemplate extends JdbcTemplate {
+        final Map<UUID, Integer> written = new ConcurrentHashMap<>();
+        final AtomicInteger messageInserts = new AtomicInteger();
+        final CountDownLatch inBatch = new CountDownLatch(1);
+        volatile CountDownLatch hold = new CountDownLatch(0);
+
+        @Override
+        public int update(String sql, Object... args) {
+            if (!sql.startsWith("INSERT INTO messages")) return args.length;
+            inBatch.countDown();
+            try {
+                hold.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            messageInserts.incrementAndGet();
+            for (int i = 0; i < args.length; i += 5) {
+                written.merge(UUID.fromString((String) args[i]), 1, Integer::sum);
+            }
+            return args.length / 5;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            // Every sync head already exists
+            return (List<T>) Arrays.asList(args);
+        }
+    }
+
+    private static class DirectTransactionTemplate extends TransactionTemplate {
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            return action.doInTransaction(null);
+        }
+    }
+
+    private final RecordingJdbcTemplate jdbc = new RecordingJdbcTemplate();
+    private final TransactionTemplate tx = new DirectTransactionTemplate();
+    private final MessageGroupCommitter committer =
+            new MessageGroupCommitter(jdbc, tx, new ChangeLog(jdbc, tx), true, 5, 100, 10_000);
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        jdbc.hold.countDown();
+        committer.stop();
+    }
+
+    @Test
+    void concurrentSendersAreCommittedOnceInFewBatches() throws Exception {
+        committer.start();
+        int senders = 16;
+        int perSender = 250;
+        ExecutorService pool = Executors.newFixedThreadPool(senders);
+        List<Future<List<UUID>>> results = new ArrayList<>();
+        for (int s = 0; s < senders; s++) {
+            results.add(pool.submit(() -> {
+                List<UUID> sent = new ArrayList<>();
+                for (int i = 0; i < perSender; i++) {
+                    UUID id = UUID.randomUUID();
+                    committer.submit(id, UUID.randomUUID(), UUID.randomUUID(), "hi", Instant.now())
+                            .get(10, TimeUnit.SECONDS);
+                    sent.add(id);
+                }
+                return sent;
+            }));
+        }
+        Set<UUID> sent = new HashSet<>();
+        for (Future<List<UUID>> r : results) sent.addAll(r.get(30, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertThat(jdbc.written).hasSize(senders * perSender);
+        assertThat(jdbc.written.keySet()).isEqualTo(sent);
+        assertThat(jdbc.written.values()).containsOnly(1);
+        // Each sender waits for its commit before sending again, so a batch holds up to one
+        // message per sender; far fewer INSERTs than messages shows the batching works
+        assertThat(jdbc.messageInserts.get()).isLessThan(senders * perSender / 4);
+    }
+
+    @Test
+    void queuedMessageCanBeWithdrawnButOneBeingWrittenCannot() throws Exception {
+        jdbc.hold = new CountDownLatch(1);
+        committer.start();
+
+        UUID writing = UUID.randomUUID();
+        CompletableFuture<Void> writingDone =
+                committer.submit(writing, UUID.randomUUID(), UUID.randomUUID(), "a", Instant.now());
+        assertThat(jdbc.inBatch.await(5, TimeUnit.SECONDS)).isTrue();
+
+        UUID queued = UUID.randomUUID();
+        CompletableFuture<Void> queuedDone =
+                committer.submit(queued, UUID.randomUUID(), UUID.randomUUID(), "b", Instant.now());
+
+        assertThat(committer.withdraw(queued)).isTrue();
+        assertThat(committer.withdraw(writing)).isFalse();
+
+        jdbc.hold.countDown();
+        writingDone.get(5, TimeUnit.SECONDS);
+        committer.stop();
+
+        assertThat(jdbc.written).containsOnlyKeys(writing);
+        assertThat(queuedDone).isNotDone();
+    }
+}
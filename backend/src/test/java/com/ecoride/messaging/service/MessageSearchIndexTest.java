@@ -0,0 +1,69 @@
+package com.ecoride.messaging.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageSearchIndexTest {
+
+    private final MessageSearchIndex index = new MessageSearchIndex(null, null, true);
+    private final UUID alice = UUID.randomUUID();
+    private final UUID bob = UUID.randomUUID();
+
+    @Test
+    void tokenizeLowercasesDropsStopWordsAndCountsTerms() {
+        Map<String, Integer> terms = MessageSearchIndex.tokenize("Meet at the GATE, gate 2 at 9:30!");
+        assertThat(terms).containsEntry("meet", 1).containsEntry("gate", 2).containsEntry("30", 1);
+        assertThat(terms).doesNotContainKeys("at", "the", "2", "9");
+    }
+
+    @Test
+    void decodesMultiByteDocGapsAndFrequencies() {
+        // Doc ids past 2^14 need three varint bytes for the gap; tf 300 needs two
+        UUID first = UUID.randomUUID();
+        index.add(first, alice, bob, "carpool " + "library ".repeat(300), Instant.ofEpochSecond(1));
+        for (int i = 0; i < 20_000; i++) {
+            index.add(UUID.randomUUID(), alice, bob, "filler message " + i, Instant.ofEpochSecond(2 + i));
+        }
+        UUID last = UUID.randomUUID();
+        index.add(last, alice, bob, "carpool tomorrow", Instant.ofEpochSecond(30_000));
+
+        List<MessageSearchIndex.Hit> hits = index.search(alice, "carpool", 10);
+        assertThat(hits).extracting(MessageSearchIndex.Hit::messageId).containsExactlyInAnyOrder(first, last);
+
+        List<MessageSearchIndex.Hit> library = index.search(alice, "library", 10);
+        assertThat(library).singleElement().satisfies(h -> assertThat(h.messageId()).isEqualTo(first));
+    }
+
+    @Test
+    void ranksMoreMatchedTermsFirstAndIndexesBothParticipants() {
+        UUID both = UUID.randomUUID();
+        UUID one = UUID.randomUUID();
+        index.add(one, alice, bob, "ride to campus", Instant.ofEpochSecond(10));
+        index.add(both, bob, alice, "ride to campus from metro", Instant.ofEpochSecond(5));
+
+        assertThat(index.search(alice, "metro ride", 10))
+                .extracting(MessageSearchIndex.Hit::messageId).containsExactly(both, one);
+        assertThat(index.search(bob, "metro", 10))
+                .singleElement().satisfies(h -> assertThat(h.peerId()).isEqualTo(alice));
+        assertThat(index.search(UUID.randomUUID(), "metro", 10)).isEmpty();
+    }
+
+    @Test
+    void reAddedMessagesAreIndexedOnceSoLimitIsFilled() {
+        UUID strong = UUID.randomUUID();
+        UUID weak = UUID.randomUUID();
+        // A replayed add of the best match used to take two of the top-K slots before deduping
+        index.add(strong, alice, bob, "carpool carpool carpool", Instant.ofEpochSecond(1));
+        index.add(strong, alice, bob, "carpool carpool carpool", Instant.ofEpochSecond(1));
+        index.add(weak, alice, bob, "carpool", Instant.ofEpochSecond(2));
+
+        assertThat(index.search(alice, "carpool", 2))
+                .extracting(MessageSearchIndex.Hit::messageId).containsExactly(strong, weak);
+    }
+}
@@ -0,0 +1,74 @@
+package com.ecoride.messaging.service;
+
+import com.ecoride.messaging.service.MessageSegmentStore.ArchivedMessage;
+import com.ecoride.messaging.service.MessageSegmentStore.BlockRef;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class MessageSegmentStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<ArchivedMessage> messages(int count) {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        List<ArchivedMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new ArchivedMessage(UUID.randomUUID(), i % 2 == 0 ? a : b, i % 2 == 0 ? b : a,
+                    "message number " + i, true, Instant.ofEpochSecond(1_700_000_000L + i)));
+        }
+        return messages;
+    }
+
+    @Test
+    void readsBackAppendedBlocks() throws Exception {
+        MessageSegmentStore store = new MessageSegmentStore(directory.toString(), 1 << 20);
+        List<ArchivedMessage> first = messages(50);
+        List<ArchivedMessage> second = messages(3);
+        BlockRef r1 = store.append(first);
+        BlockRef r2 = store.append(second);
+        store.close();
+
+        assertThat(store.read(r1.segmentNo(), r1.offset(), r1.length())).isEqualTo(first);
+        assertThat(store.read(r2.segmentNo(), r2.offset(), r2.length())).isEqualTo(second);
+    }
+
+    @Test
+    void missingSegmentReadsAsEmpty() {
+        MessageSegmentStore store = new MessageSegmentStore(directory.toString(), 1 << 20);
+        assertThat(store.read(7, 0, 100)).isEmpty();
+    }
+
+    @Test
+    void truncatedBlockFailsInsteadOfSpinning() throws Exception {
+        MessageSegmentStore store = new MessageSegmentStore(directory.toString(), 1 << 20);
+        BlockRef ref = store.append(messages(200));
+        store.close();
+
+        // Halve the stored compressed length so the inflater runs out of input mid-stream
+        try (FileChannel ch = FileChannel.open(directory.resolve("segment-000001.dat"), StandardOpenOption.WRITE)) {
+            int compressedLength = ref.length() - 12;
+            ch.write(ByteBuffer.allocate(4).putInt(compressedLength / 2).flip(), ref.offset() + 8);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThatThrownBy(() -> store.read(ref.segmentNo(), ref.offset(), ref.length()))
+                        .isInstanceOf(UncheckedIOException.class));
+    }
+}
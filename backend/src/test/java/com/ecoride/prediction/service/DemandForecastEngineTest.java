@@ -0,0 +1,203 @@
+package com.ecoride.prediction.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Runs the forecast over synthetic rides served by an in-memory JdbcTemplate: checks the parallel
+ * aggregation against a plain sequential computation, and times a large run.
+ */
+@Slf4j
+class DemandForecastEngineTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Asia/Kolkata");
+    private static final double SMOOTHING = 0.3;
+
+    /** Completed rides as the streaming query returns them. */
+    private record Rides(String[] zone, Timestamp[] departure, int[] seats, int[] riders) {
+    }
+
+    /** Serves the zone dictionary and the ride cursor, and captures the published cells. */
+    private static class SyntheticJdbcTemplate extends JdbcTemplate {
+        final int zones;
+        final Rides rides;
+        final Map<Long, double[]> published = new HashMap<>();
+
+        SyntheticJdbcTemplate(int zones, Rides rides) {
+            this.zones = zones;
+            this.rides = rides;
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch) {
+            int[] row = {-1};
+            ResultSet rs = resultSet((method, col) -> switch (method) {
+                case "getString" -> "Zone " + row[0];
+                case "getInt" -> row[0];
+                default -> throw new UnsupportedOperationException(method);
+            });
+            try {
+                for (row[0] = 0; row[0] < zones; row[0]++) rch.processRow(rs);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void query(PreparedStatementCreator psc, RowCallbackHandler rch) {
+            int[] row = {-1};
+            ResultSet rs = resultSet((method, col) -> switch (method + col) {
+                case "getString1" -> rides.zone()[row[0]];
+                case "getTimestamp2" -> rides.departure()[row[0]];
+                case "getInt3" -> rides.seats()[row[0]];
+                case "getInt4" -> rides.riders()[row[0]];
+                default -> throw new UnsupportedOperationException(method + col);
+            });
+            try {
+                for (row[0] = 0; row[0] < rides.zone().length; row[0]++) rch.processRow(rs);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) {
+            generatedKeyHolder.getKeyList().add(Map.of("GENERATED_KEY", 1L));
+            return 1;
+        }
+
+        @Override
+        public int update(String sql, Object... args) {
+            return 1;
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            for (Object[] cell : batchArgs) {
+                long key = (long) (int) cell[1] << 32 | (int) cell[2];
+                published.put(key, new double[]{(double) cell[3], (double) cell[4]});
+            }
+            return new int[batchArgs.size()];
+        }
+    }
+
+    private interface Column {
+        Object get(String method, int column);
+    }
+
+    private static ResultSet resultSet(Column column) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> column.get(method.getName(), (int) args[0]));
+    }
+
+    /** Rides spread uniformly over the engine's history window, which ends at this Monday. */
+    private static Rides rides(int count, int zones, int weeks, long seed) {
+        Instant end = LocalDate.now(ZONE).with(DayOfWeek.MONDAY).atStartOfDay(ZONE).toInstant();
+        long span = Duration.ofDays(7L * weeks).toSeconds();
+        Random random = new Random(seed);
+        Rides r = new Rides(new String[count], new Timestamp[count], new int[count], new int[count]);
+        for (int i = 0; i < count; i++) {
+            // Mixed case and padding, as free-text pickup zones arrive
+            r.zone()[i] = (random.nextBoolean() ? " zone " : "ZONE ") + random.nextInt(zones);
+            r.departure()[i] = Timestamp.from(end.minusSeconds(1 + random.nextLong(span)));
+            r.seats()[i] = random.nextInt(4);
+            r.riders()[i] = 1 + random.nextInt(3);
+        }
+        return r;
+    }
+
+    private static DemandForecastEngine engine(JdbcTemplate jdbc, int weeks, int parallelism) {
+        return new DemandForecastEngine(jdbc, new CommutePatterns(jdbc, ZONE.getId()), ZONE.getId(),
+                weeks, SMOOTHING, parallelism);
+    }
+
+    @Test
+    void parallelRunMatchesSequentialForecast() {
+        int zones = 5;
+        int weeks = 8;
+        Rides rides = rides(20_000, zones, weeks, 42);
+        SyntheticJdbcTemplate jdbc = new SyntheticJdbcTemplate(zones, rides);
+
+        DemandForecastEngine.RunSummary summary = engine(jdbc, weeks, 4).run();
+
+        // Same weights as the engine: (1-s)^(W-1) for the oldest week, s(1-s)^(W-1-w) after it
+        LocalDate firstMonday = LocalDate.now(ZONE).with(DayOfWeek.MONDAY).minusWeeks(weeks);
+        Map<Long, double[]> expected = new HashMap<>();
+        for (int i = 0; i < rides.zone().length; i++) {
+            ZonedDateTime local = rides.departure()[i].toInstant().atZone(ZONE);
+            int week = (int) ((local.toLocalDate().toEpochDay() - firstMonday.toEpochDay()) / 7);
+            double weight = week == 0
+                    ? Math.pow(1 - SMOOTHING, weeks - 1)
+                    : SMOOTHING * Math.pow(1 - SMOOTHING, weeks - 1 - week);
+            int zone = Integer.parseInt(rides.zone()[i].trim().substring(5));
+            int slot = (local.getDayOfWeek().getValue() - 1) * 24 + local.getHour();
+            double[] cell = expected.computeIfAbsent((long) zone << 32 | slot, k -> new double[2]);
+            cell[0] += weight * rides.riders()[i];
+            cell[1] += weight * (rides.riders()[i] + rides.seats()[i]);
+        }
+        expected.values().removeIf(c -> c[0] < 0.05 && c[1] < 0.05);
+
+        assertThat(summary.rides()).isEqualTo(rides.zone().length);
+        assertThat(summary.zones()).isEqualTo(zones);
+        assertThat(jdbc.published.keySet()).isEqualTo(expected.keySet());
+        expected.forEach((key, cell) -> {
+            assertThat(jdbc.published.get(key)[0]).isCloseTo(cell[0], within(1e-9));
+            assertThat(jdbc.published.get(key)[1]).isCloseTo(cell[1], within(1e-9));
+        });
+    }
+
+    @Test
+    void unknownZonesAreSkippedNotRegistered() {
+        Rides rides = new Rides(new String[]{"Zone 0", "Elsewhere"},
+                new Timestamp[]{Timestamp.from(Instant.now().minus(Duration.ofDays(8))),
+                        Timestamp.from(Instant.now().minus(Duration.ofDays(8)))},
+                new int[]{1, 1}, new int[]{1, 1});
+        SyntheticJdbcTemplate jdbc = new SyntheticJdbcTemplate(1, rides) {
+            @Override
+            public int update(String sql, Object... args) {
+                assertThat(sql).doesNotContain("pickup_zones");
+                return 1;
+            }
+        };
+
+        assertThat(engine(jdbc, 4, 2).run().rides()).isEqualTo(1);
+    }
+
+    /**
+     * Throughput benchmark: two million rides over a year of history. The bound is loose on
+     * purpose; the logged rate is what to compare between changes.
+     */
+    @Test
+    void benchmarkTwoMillionRides() {
+        int zones = 200;
+        int weeks = 52;
+        Rides rides = rides(2_000_000, zones, weeks, 7);
+        SyntheticJdbcTemplate jdbc = new SyntheticJdbcTemplate(zones, rides);
+        DemandForecastEngine engine = engine(jdbc, weeks, 0);
+
+        engine.run();  // warm-up
+        long start = System.nanoTime();
+        DemandForecastEngine.RunSummary summary = engine.run();
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        log.info("Demand forecast benchmark: {} rides in {} ms ({} rides/s, {} cells)",
+                summary.rides(), elapsedMs, summary.rides() * 1000 / Math.max(1, elapsedMs), summary.cells());
+        assertThat(summary.rides()).isEqualTo(rides.zone().length);
+        assertThat(elapsedMs).isLessThan(60_000);
+    }
+}
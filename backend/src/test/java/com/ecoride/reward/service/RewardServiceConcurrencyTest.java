@@ -0,0 +1,140 @@
+package com.ecoride.reward.service;
+
+import com.ecoride.carbon.service.CreditLedger;
+import com.ecoride.common.exception.ApiException;
+import com.ecoride.reward.entity.Reward;
+import com.ecoride.reward.repository.RewardRepository;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent redemptions against a real MySQL schema; runs when DATABASE_URL points at a
+ * disposable database (Flyway migrates it on startup).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = ".+")
+class RewardServiceConcurrencyTest {
+
+    private static final int STOCK = 5;
+    private static final int REDEEMERS = 40;
+    private static final int COST = 10;
+
+    @Autowired
+    private RewardService rewardService;
+    @Autowired
+    private RewardStock rewardStock;
+    @Autowired
+    private RewardRepository rewardRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CreditLedger creditLedger;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user(int credits) {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        User user = userRepository.save(User.builder()
+                .name("Reward tester " + tag)
+                .email("reward-" + tag + "@test.local")
+                .passwordHash("x")
+                .build());
+        transactionTemplate.executeWithoutResult(status ->
+                creditLedger.append(user.getId(), CreditLedger.EntryType.ADJUST, credits, null));
+        return user;
+    }
+
+    private Reward reward() {
+        return rewardRepository.save(Reward.builder()
+                .brand("Stress")
+                .name("Voucher " + UUID.randomUUID().toString().substring(0, 8))
+                .faceValue(100)
+                .costCredits(COST)
+                .totalStock(STOCK)
+                .build());
+    }
+
+    /** Runs every call at once; returns how many succeeded and checks the rest were 409s. */
+    private int redeemConcurrently(List<Callable<Object>> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> results = new ArrayList<>();
+        try {
+            for (Callable<Object> call : calls) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return call.call();
+                }));
+            }
+            start.countDown();
+            int redeemed = 0;
+            for (Future<Object> f : results) {
+                try {
+                    f.get(60, TimeUnit.SECONDS);
+                    redeemed++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOfSatisfying(ApiException.class,
+                            ex -> assertThat(ex.getStatus()).isEqualTo(HttpStatus.CONFLICT));
+                }
+            }
+            return redeemed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void concurrentRedeemersNeverOversellStock() throws Exception {
+        // First a reward the in-memory gate does not know, so only the database decides;
+        // then the same rush with the gate loaded
+        for (boolean gated : new boolean[]{false, true}) {
+            Reward reward = reward();
+            if (gated) rewardStock.refresh();
+            List<Callable<Object>> calls = new ArrayList<>();
+            for (int i = 0; i < REDEEMERS; i++) {
+                User u = user(COST);
+                calls.add(() -> rewardService.redeem(u.getEmail(), reward.getId()));
+            }
+
+            int redeemed = redeemConcurrently(calls);
+
+            int redeemedCount = jdbcTemplate.queryForObject(
+                    "SELECT redeemed_count FROM rewards WHERE id = ?", Integer.class, reward.getId().toString());
+            int redemptionRows = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM redemptions WHERE reward_id = ?", Integer.class, reward.getId().toString());
+            assertThat(redeemedCount).isLessThanOrEqualTo(STOCK);
+            assertThat(redeemed).isEqualTo(STOCK);
+            assertThat(redeemedCount).isEqualTo(redeemed);
+            assertThat(redemptionRows).isEqualTo(redeemed);
+        }
+    }
+
+    @Test
+    void oneUserCannotSpendTheSameCreditsTwice() throws Exception {
+        Reward reward = reward();
+        User user = user(2 * COST);
+        List<Callable<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            calls.add(() -> rewardService.redeem(user.getEmail(), reward.getId()));
+        }
+
+        assertThat(redeemConcurrently(calls)).isEqualTo(2);
+        assertThat(creditLedger.balance(user.getId())).isZero();
+    }
+}
@@ -0,0 +1,61 @@
+package com.ecoride.subscription.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PoolSearchIndexTest {
+
+    private final PoolSearchIndex index = new PoolSearchIndex(null);
+
+    private UUID pool(String zone, int minute, int dayOfWeek) {
+        UUID id = UUID.randomUUID();
+        index.add(id, zone, minute, dayOfWeek, UUID.randomUUID(), 4);
+        return id;
+    }
+
+    @Test
+    void windowWrapsPastMidnightAndSortsByDistanceToCentre() {
+        UUID lateEvening = pool("Hostel", 23 * 60 + 40, 1);
+        UUID midnight = pool("Hostel", 5, 1);
+        UUID earlyMorning = pool("Hostel", 30, 1);
+        pool("Hostel", 2 * 60, 1);
+        pool("Hostel", 22 * 60, 1);
+
+        // 23:30 -> 00:30 is centred on 00:00
+        assertThat(index.search("hostel", 1, 23 * 60 + 30, 30, 10))
+                .extracting(PoolSearchIndex.Hit::poolId)
+                .containsExactly(midnight, lateEvening, earlyMorning);
+    }
+
+    @Test
+    void windowBoundsAreInclusiveAndScopedToZoneAndDay() {
+        UUID from = pool("Gate 1", 8 * 60, 3);
+        UUID to = pool("Gate 1", 9 * 60, 3);
+        pool("Gate 1", 8 * 60 + 30, 4);
+        pool("Gate 2", 8 * 60 + 30, 3);
+
+        assertThat(index.search(" GATE 1 ", 3, 8 * 60, 9 * 60, 10))
+                .extracting(PoolSearchIndex.Hit::poolId)
+                .containsExactlyInAnyOrder(from, to);
+        assertThat(index.search("Gate 3", 3, 0, 24 * 60 - 1, 10)).isEmpty();
+    }
+
+    @Test
+    void fullerPoolsWinTiesAndMemberCountsAreShared() {
+        UUID quiet = pool("Library", 9 * 60, 2);
+        UUID busy = pool("Library", 9 * 60, 2);
+        index.memberJoined(busy);
+        index.add(busy, "Library", 9 * 60, 2, UUID.randomUUID(), 4);
+
+        assertThat(index.search("library", 2, 8 * 60 + 30, 9 * 60 + 30, 1))
+                .singleElement().satisfies(h -> {
+                    assertThat(h.poolId()).isEqualTo(busy);
+                    assertThat(h.memberCount()).isEqualTo(2);
+                });
+        assertThat(index.search("library", 2, 8 * 60 + 30, 9 * 60 + 30, 10))
+                .extracting(PoolSearchIndex.Hit::poolId).containsExactly(busy, quiet);
+    }
+}
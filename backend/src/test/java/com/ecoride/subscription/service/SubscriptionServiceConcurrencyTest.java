@@ -0,0 +1,134 @@
+package com.ecoride.subscription.service;
+
+import com.ecoride.subscription.dto.CreateSubscriptionRequest;
+import com.ecoride.subscription.dto.SubscriptionDto;
+import com.ecoride.user.entity.User;
+import com.ecoride.user.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent joins against a real MySQL schema; runs when DATABASE_URL points at a disposable
+ * database (Flyway migrates it on startup).
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "DATABASE_URL", matches = ".+")
+class SubscriptionServiceConcurrencyTest {
+
+    private static final int CAPACITY = 5;
+    private static final int JOINERS = 40;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user() {
+        String tag = UUID.randomUUID().toString().substring(0, 8);
+        return userRepository.save(User.builder()
+                .name("Pool tester " + tag)
+                .email("pool-" + tag + "@test.local")
+                .passwordHash("x")
+                .build());
+    }
+
+    private SubscriptionDto pool(User creator) {
+        CreateSubscriptionRequest req = new CreateSubscriptionRequest();
+        req.setPickupZone("Stress " + UUID.randomUUID().toString().substring(0, 8));
+        req.setDepartureTime("08:15");
+        req.setDayOfWeek(2);
+        req.setCapacity(CAPACITY);
+        return subscriptionService.createPool(creator.getEmail(), req);
+    }
+
+    @Test
+    void concurrentJoinsNeverAdmitPastCapacity() throws Exception {
+        SubscriptionDto pool = pool(user());
+        List<User> joiners = new ArrayList<>();
+        for (int i = 0; i < JOINERS; i++) joiners.add(user());
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<SubscriptionDto>> results = new ArrayList<>();
+        try {
+            for (User u : joiners) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return subscriptionService.joinPool(u.getEmail(), pool.getId());
+                }));
+            }
+            start.countDown();
+
+            int admitted = 0;
+            List<Integer> positions = new ArrayList<>();
+            for (Future<SubscriptionDto> f : results) {
+                SubscriptionDto dto = f.get(60, TimeUnit.SECONDS);
+                if (dto.getWaitlistPosition() == null) admitted++;
+                else positions.add(dto.getWaitlistPosition());
+            }
+
+            assertThat(admitted).isEqualTo(CAPACITY - 1);
+            assertThat(memberRows(pool.getId())).isEqualTo(CAPACITY);
+            assertThat(memberCount(pool.getId())).isEqualTo(CAPACITY);
+            assertThat(waitlistRows(pool.getId())).isEqualTo(JOINERS - (CAPACITY - 1));
+            assertThat(positions).allSatisfy(p -> assertThat(p).isBetween(1, JOINERS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void leavingPromotesTheHeadOfTheWaitlist() {
+        SubscriptionDto pool = pool(user());
+        List<User> members = new ArrayList<>();
+        for (int i = 0; i < CAPACITY - 1; i++) {
+            User u = user();
+            subscriptionService.joinPool(u.getEmail(), pool.getId());
+            members.add(u);
+        }
+        User first = user();
+        User second = user();
+        assertThat(subscriptionService.joinPool(first.getEmail(), pool.getId()).getWaitlistPosition()).isEqualTo(1);
+        assertThat(subscriptionService.joinPool(second.getEmail(), pool.getId()).getWaitlistPosition()).isEqualTo(2);
+
+        subscriptionService.leavePool(members.get(0).getEmail(), pool.getId());
+
+        assertThat(isMember(pool.getId(), first)).isTrue();
+        assertThat(isMember(pool.getId(), second)).isFalse();
+        assertThat(memberCount(pool.getId())).isEqualTo(CAPACITY);
+        assertThat(waitlistRows(pool.getId())).isEqualTo(1);
+    }
+
+    private int memberRows(UUID poolId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM subscription_members WHERE pool_id = ?",
+                Integer.class, poolId.toString());
+    }
+
+    private int memberCount(UUID poolId) {
+        return jdbcTemplate.queryForObject("SELECT member_count FROM subscription_pools WHERE id = ?",
+                Integer.class, poolId.toString());
+    }
+
+    private int waitlistRows(UUID poolId) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pool_waitlist WHERE pool_id = ?",
+                Integer.class, poolId.toString());
+    }
+
+    private boolean isMember(UUID poolId, User user) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM subscription_members WHERE pool_id = ? AND user_id = ?",
+                Integer.class, poolId.toString(), user.getId().toString()) == 1;
+    }
+}
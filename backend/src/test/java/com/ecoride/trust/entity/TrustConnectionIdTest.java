@@ -0,0 +1,30 @@
+package com.ecoride.trust.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrustConnectionIdTest {
+
+    @Test
+    void sameKeyForEitherArgumentOrder() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        assertThat(TrustConnectionId.canonical(a, b)).isEqualTo(TrustConnectionId.canonical(b, a));
+    }
+
+    @Test
+    void followsStoredStringOrderNotSignedUuidOrder() {
+        // UUID.compareTo treats the high bits as signed, so it puts f000... before 1000...
+        UUID high = UUID.fromString("f0000000-0000-0000-0000-000000000000");
+        UUID low = UUID.fromString("10000000-0000-0000-0000-000000000000");
+        assertThat(high.compareTo(low)).isNegative();
+
+        TrustConnectionId id = TrustConnectionId.canonical(high, low);
+        assertThat(id.getUser1Id()).isEqualTo(low);
+        assertThat(id.getUser2Id()).isEqualTo(high);
+        assertThat(id.getUser1Id().toString()).isLessThan(id.getUser2Id().toString());
+    }
+}